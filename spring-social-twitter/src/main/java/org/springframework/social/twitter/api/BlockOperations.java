@@ -94,4 +94,13 @@ public interface BlockOperations {
 	 */
 	CursoredList<Long> getBlockedUserIdsInCursor(long cursor);
 
+	/**
+	 * Retrieves a page of user IDs for the users that the authenticating user has blocked, without boxing each ID.
+	 * @param cursor the cursor to retrieve results from. -1 will retrieve the first cursored page of results.
+	 * @return a page of user IDs for the users that are blocked, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getBlockedUserIdPage(long cursor);
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+/**
+ * A page of user IDs returned from Twitter in cursored pages, held in a primitive <code>long[]</code>.
+ * A primitive counterpart to <code>CursoredList&lt;Long&gt;</code> that avoids allocating a {@link Long} for every ID,
+ * intended for crawling large friend and follower graphs.
+ */
+public class CursoredIdPage {
+
+	private final long[] ids;
+
+	private final long previousCursor;
+
+	private final long nextCursor;
+
+	public CursoredIdPage(long[] ids, long previousCursor, long nextCursor) {
+		this.ids = ids;
+		this.previousCursor = previousCursor;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * The user IDs in this page.
+	 * The array is the page's own storage and is not copied, so it should not be modified.
+	 */
+	public long[] getIds() {
+		return ids;
+	}
+
+	/**
+	 * The user ID at the given position in this page.
+	 */
+	public long get(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * The number of user IDs in this page.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Returns true if this page contains no user IDs.
+	 */
+	public boolean isEmpty() {
+		return ids.length == 0;
+	}
+
+	/**
+	 * The cursor to retrieve the previous page of results.
+	 */
+	public long getPreviousCursor() {
+		return previousCursor;
+	}
+
+	/**
+	 * The cursor to retrieve the next page of results.
+	 */
+	public long getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * Returns true if there is a previous page of results.
+	 */
+	public boolean hasPrevious() {
+		return previousCursor > 0;
+	}
+
+	/**
+	 * Returns true if there is a next page of results.
+	 */
+	public boolean hasNext() {
+		return nextCursor > 0;
+	}
+
+}
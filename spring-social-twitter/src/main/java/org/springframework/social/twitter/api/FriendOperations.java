@@ -154,6 +154,35 @@ public interface FriendOperations {
 	 */
 	CursoredList<Long> getFriendIdsInCursor(String screenName, long cursor);
 
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that the authenticated user follows, without boxing each ID.
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFriendIdPage(long cursor);
+
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that the given user follows, without boxing each ID.
+	 * @param userId the user's Twitter ID
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFriendIdPage(long userId, long cursor);
+
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that the given user follows, without boxing each ID.
+	 * @param screenName the user's Twitter screen name
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFriendIdPage(String screenName, long cursor);
+
 	/**
 	 * Retrieves a list of up to 5000 users that the authenticated user is being followed by
 	 * Note that this method make multiple calls to Twitter's REST API (one call to get a list of the follower IDs and one call for every 100 followers).
@@ -282,6 +311,35 @@ public interface FriendOperations {
 	 */
 	CursoredList<Long> getFollowerIdsInCursor(String screenName, long cursor);
 
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that follow the authenticated user, without boxing each ID.
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFollowerIdPage(long cursor);
+
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that follow the given user, without boxing each ID.
+	 * @param userId the user's Twitter ID
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFollowerIdPage(long userId, long cursor);
+
+	/**
+	 * Retrieves a page of up to 5000 IDs for the Twitter users that follow the given user, without boxing each ID.
+	 * @param screenName the user's Twitter screen name
+	 * @param cursor the cursor value to fetch a specific page of entries. Use -1 for the first page of entries.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getFollowerIdPage(String screenName, long cursor);
+
 	/**
 	 * Allows the authenticated user to follow (create a friendship) with another user.
 	 * @param userId The Twitter ID of the user to follow
@@ -384,4 +442,34 @@ public interface FriendOperations {
 	 */
 	CursoredList<Long> getOutgoingFriendships(long cursor);
 
+	/**
+	 * Retrieves a page of IDs for every user who has a pending request to follow the authenticating user, without boxing each ID.
+	 * @param cursor the cursor of the page to retrieve.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getIncomingFriendshipIdPage(long cursor);
+
+	/**
+	 * Retrieves a page of IDs for every protected user for whom the authenticating user has a pending follow request, without boxing each ID.
+	 * @param cursor the cursor of the page to retrieve.
+	 * @return a page of user IDs, held in a primitive array
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredIdPage getOutgoingFriendshipIdPage(long cursor);
+
+	/**
+	 * Looks up the authenticated user's relationships with a batch of users: whether the authenticated user follows, is followed by, blocks or mutes each of them.
+	 * Any number of IDs may be given; they are looked up in chunks of 100 (the most that Twitter allows per request).
+	 * The chunks are requested concurrently if the TwitterTemplate has been given a task executor.
+	 * Note that Twitter allows only 15 requests to friendships/lookup per 15 minutes.
+	 * @param userIds the IDs of the users
+	 * @return the relationships, indexed by user ID
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Relationships lookupRelationships(long... userIds);
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+/**
+ * Indexes a sequence of IDs by position, ignoring duplicates, in a primitive open-addressing hash table.
+ * Backs the ID-keyed bulk lookup results, such as {@link LookupResult} and {@link Relationships}.
+ */
+class IdIndex {
+
+	private final long[] ids;
+
+	private final int[] index;
+
+	/**
+	 * Indexes the given IDs. Each distinct ID is given the position of its first occurrence, counting distinct IDs only.
+	 */
+	public IdIndex(long[] ids) {
+		this.index = new int[tableSize(ids.length)];
+		long[] distinctIds = new long[ids.length];
+		int distinctCount = 0;
+		for (long id : ids) {
+			int slot = slotOf(id, distinctIds);
+			if (slot < 0) {
+				distinctIds[distinctCount] = id;
+				index[-slot - 1] = ++distinctCount;
+			}
+		}
+		this.ids = new long[distinctCount];
+		System.arraycopy(distinctIds, 0, this.ids, 0, distinctCount);
+	}
+
+	/**
+	 * The number of distinct IDs.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * The ID at the given position.
+	 */
+	public long get(int position) {
+		return ids[position];
+	}
+
+	/**
+	 * A copy of the distinct IDs, in order of first occurrence.
+	 */
+	public long[] toArray() {
+		return ids.clone();
+	}
+
+	/**
+	 * The position of the given ID, or -1 if it isn't indexed.
+	 */
+	public int positionOf(long id) {
+		int slot = slotOf(id, ids);
+		return slot >= 0 ? index[slot] - 1 : -1;
+	}
+
+	// private helpers
+
+	/*
+	 * Returns the index slot holding the given ID, or (-(insertion slot) - 1) if the ID isn't indexed.
+	 */
+	private int slotOf(long id, long[] positionedIds) {
+		int mask = index.length - 1;
+		int slot = hash(id) & mask;
+		while (index[slot] != 0) {
+			if (positionedIds[index[slot] - 1] == id) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -slot - 1;
+	}
+
+	private static int hash(long id) {
+		int h = (int) (id ^ (id >>> 32));
+		return h * 0x9E3779B9;
+	}
+
+	private static int tableSize(int expectedSize) {
+		int size = 2;
+		while (size < expectedSize * 2) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+}
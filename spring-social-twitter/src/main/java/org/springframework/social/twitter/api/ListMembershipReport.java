@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports the outcome of a bulk list membership change, such as {@link ListOperations#addMembers(long, long...)}.
+ * Twitter accepts at most 100 members per request, so large changes are made in chunks; each chunk succeeds or fails on its own.
+ * Members in chunks that failed or were skipped may be retried with {@link #getUnappliedUserIds()} or {@link #getUnappliedScreenNames()}.
+ */
+public class ListMembershipReport {
+
+	private final List<Chunk> chunks;
+
+	public ListMembershipReport(List<Chunk> chunks) {
+		this.chunks = Collections.unmodifiableList(new ArrayList<Chunk>(chunks));
+	}
+
+	/**
+	 * The chunks in the order they were sent to Twitter.
+	 */
+	public List<Chunk> getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * Returns true if every chunk succeeded.
+	 */
+	public boolean isComplete() {
+		for (Chunk chunk : chunks) {
+			if (chunk.getStatus() != Chunk.Status.SUCCEEDED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The list as returned by Twitter after the last successful chunk, or null if no chunk succeeded.
+	 */
+	public UserList getList() {
+		for (int i = chunks.size() - 1; i >= 0; i--) {
+			if (chunks.get(i).getList() != null) {
+				return chunks.get(i).getList();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The user IDs in chunks that failed or were skipped.
+	 */
+	public long[] getUnappliedUserIds() {
+		int count = 0;
+		for (Chunk chunk : chunks) {
+			if (chunk.getStatus() != Chunk.Status.SUCCEEDED && chunk.getUserIds() != null) {
+				count += chunk.getUserIds().length;
+			}
+		}
+		long[] userIds = new long[count];
+		int position = 0;
+		for (Chunk chunk : chunks) {
+			if (chunk.getStatus() != Chunk.Status.SUCCEEDED && chunk.getUserIds() != null) {
+				System.arraycopy(chunk.getUserIds(), 0, userIds, position, chunk.getUserIds().length);
+				position += chunk.getUserIds().length;
+			}
+		}
+		return userIds;
+	}
+
+	/**
+	 * The screen names in chunks that failed or were skipped.
+	 */
+	public List<String> getUnappliedScreenNames() {
+		List<String> screenNames = new ArrayList<String>();
+		for (Chunk chunk : chunks) {
+			if (chunk.getStatus() != Chunk.Status.SUCCEEDED && chunk.getScreenNames() != null) {
+				Collections.addAll(screenNames, chunk.getScreenNames());
+			}
+		}
+		return screenNames;
+	}
+
+	/**
+	 * The outcome of a single request within a bulk list membership change.
+	 */
+	public static class Chunk {
+
+		/**
+		 * The outcome of a chunk.
+		 */
+		public enum Status {
+			/** Twitter accepted the chunk. */
+			SUCCEEDED,
+			/** Twitter rejected the chunk or could not be reached. */
+			FAILED,
+			/** The chunk was not sent because the calling thread was interrupted. */
+			SKIPPED
+		}
+
+		private final long[] userIds;
+
+		private final String[] screenNames;
+
+		private final Status status;
+
+		private final UserList list;
+
+		private final RuntimeException exception;
+
+		public Chunk(long[] userIds, String[] screenNames, Status status, UserList list, RuntimeException exception) {
+			this.userIds = userIds;
+			this.screenNames = screenNames;
+			this.status = status;
+			this.list = list;
+			this.exception = exception;
+		}
+
+		/**
+		 * The user IDs in this chunk, or null if the members were given by screen name.
+		 */
+		public long[] getUserIds() {
+			return userIds;
+		}
+
+		/**
+		 * The screen names in this chunk, or null if the members were given by user ID.
+		 */
+		public String[] getScreenNames() {
+			return screenNames;
+		}
+
+		/**
+		 * The number of members in this chunk.
+		 */
+		public int size() {
+			return userIds != null ? userIds.length : screenNames.length;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * The list as returned by Twitter after this chunk was applied, or null if the chunk didn't succeed.
+		 */
+		public UserList getList() {
+			return list;
+		}
+
+		/**
+		 * The exception that caused this chunk to fail, or null if it didn't fail.
+		 */
+		public RuntimeException getException() {
+			return exception;
+		}
+
+	}
+
+}
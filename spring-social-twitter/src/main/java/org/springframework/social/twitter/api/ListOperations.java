@@ -15,6 +15,7 @@
  */
 package org.springframework.social.twitter.api;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.springframework.social.ApiException;
@@ -170,6 +171,8 @@ public interface ListOperations {
 	
 	/**
 	 * Retrieves a list of Twitter profiles whose users are members of the list.
+	 * Only the first page of members (20 by default) is returned; use {@link #getListMembersInCursor(long, long)} or
+	 * {@link #iterateListMembers(long, boolean)} to retrieve them all.
 	 * @param listId the ID of the list.
 	 * @throws ApiException if there is an error while communicating with Twitter.
 	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
@@ -179,6 +182,7 @@ public interface ListOperations {
 
 	/**
 	 * Retrieves a list of Twitter profiles whose users are members of the list.
+	 * Only the first page of members (20 by default) is returned; use {@link #getListMembersInCursor(String, String, long)} to retrieve them all.
 	 * @param screenName the screen name of the list owner.
 	 * @param listSlug the slug of the list.
 	 * @throws ApiException if there is an error while communicating with Twitter.
@@ -187,6 +191,51 @@ public interface ListOperations {
 	 */
 	List<TwitterProfile> getListMembers(String screenName, String listSlug);
 
+	/**
+	 * Retrieves a page of Twitter profiles whose users are members of the list.
+	 * @param listId the ID of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListMembersInCursor(long listId, long cursor);
+
+	/**
+	 * Retrieves a page of Twitter profiles whose users are members of the list.
+	 * @param listId the ID of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @param skipStatus if true, the profiles won't include the users' latest tweets, making for much smaller responses
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListMembersInCursor(long listId, long cursor, boolean skipStatus);
+
+	/**
+	 * Retrieves a page of Twitter profiles whose users are members of the list.
+	 * @param screenName the screen name of the list owner.
+	 * @param listSlug the slug of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListMembersInCursor(String screenName, String listSlug, long cursor);
+
+	/**
+	 * Iterates over every member of a list, fetching members 5000 at a time.
+	 * The next page is requested as soon as the current one arrives; if a task executor has been set on the TwitterTemplate
+	 * (see {@link org.springframework.social.twitter.api.impl.TwitterTemplate#setTaskExecutor(org.springframework.core.task.TaskExecutor)}),
+	 * it is fetched in the background while the current page is being consumed.
+	 * Errors fetching a page are thrown from the iterator's <code>hasNext()</code> and <code>next()</code> methods.
+	 * @param listId the ID of the list.
+	 * @param skipStatus if true, the profiles won't include the users' latest tweets, making for much smaller responses
+	 * @return an iterator over the list's members
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Iterator<TwitterProfile> iterateListMembers(long listId, boolean skipStatus);
+
 	/**
 	 * Adds one or more new members to a user list.
 	 * @param listId the ID of the list.
@@ -225,6 +274,54 @@ public interface ListOperations {
 	 */
 	void removeFromList(long listId, String memberScreenName);
 
+	/**
+	 * Adds any number of members to a user list.
+	 * Members are added 100 at a time, pacing the requests to avoid tripping Twitter's limits on list changes.
+	 * This method blocks the calling thread until every chunk has been sent, which may take many minutes for a large number of members.
+	 * A chunk that fails doesn't stop the remaining chunks from being sent; the outcome of each chunk is given in the returned report.
+	 * @param listId the ID of the list.
+	 * @param newMemberIds the IDs of the users to add to the list.
+	 * @return a {@link ListMembershipReport} giving the outcome of each chunk
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	ListMembershipReport addMembers(long listId, long... newMemberIds);
+
+	/**
+	 * Adds any number of members to a user list.
+	 * Members are added 100 at a time, pacing the requests to avoid tripping Twitter's limits on list changes.
+	 * This method blocks the calling thread until every chunk has been sent, which may take many minutes for a large number of members.
+	 * A chunk that fails doesn't stop the remaining chunks from being sent; the outcome of each chunk is given in the returned report.
+	 * @param listId the ID of the list.
+	 * @param newMemberScreenNames the screen names of the users to add to the list.
+	 * @return a {@link ListMembershipReport} giving the outcome of each chunk
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	ListMembershipReport addMembers(long listId, String... newMemberScreenNames);
+
+	/**
+	 * Removes any number of members from a user list.
+	 * Members are removed 100 at a time, pacing the requests to avoid tripping Twitter's limits on list changes.
+	 * This method blocks the calling thread until every chunk has been sent, which may take many minutes for a large number of members.
+	 * A chunk that fails doesn't stop the remaining chunks from being sent; the outcome of each chunk is given in the returned report.
+	 * @param listId the ID of the list.
+	 * @param memberIds the IDs of the users to remove from the list.
+	 * @return a {@link ListMembershipReport} giving the outcome of each chunk
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	ListMembershipReport removeMembers(long listId, long... memberIds);
+
+	/**
+	 * Removes any number of members from a user list.
+	 * Members are removed 100 at a time, pacing the requests to avoid tripping Twitter's limits on list changes.
+	 * This method blocks the calling thread until every chunk has been sent, which may take many minutes for a large number of members.
+	 * A chunk that fails doesn't stop the remaining chunks from being sent; the outcome of each chunk is given in the returned report.
+	 * @param listId the ID of the list.
+	 * @param memberScreenNames the screen names of the users to remove from the list.
+	 * @return a {@link ListMembershipReport} giving the outcome of each chunk
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	ListMembershipReport removeMembers(long listId, String... memberScreenNames);
+
 	/**
 	 * Subscribes the authenticating user to a list.
 	 * @param listId the ID of the list.
@@ -265,6 +362,8 @@ public interface ListOperations {
 
 	/**
 	 * Retrieves the subscribers to a list.
+	 * Only the first page of subscribers (20 by default) is returned; use {@link #getListSubscribersInCursor(long, long)} or
+	 * {@link #iterateListSubscribers(long, boolean)} to retrieve them all.
 	 * @param listId the ID of the list.
 	 * @return a list of {@link TwitterProfile}s for the list's subscribers.
 	 * @throws ApiException if there is an error while communicating with Twitter.
@@ -274,6 +373,7 @@ public interface ListOperations {
 
 	/**
 	 * Retrieves the subscribers to a list.
+	 * Only the first page of subscribers (20 by default) is returned; use {@link #getListSubscribersInCursor(String, String, long)} to retrieve them all.
 	 * @param screenName the screen name of the list owner.
 	 * @param listSlug the slug of the list.
 	 * @return a list of {@link TwitterProfile}s for the list's subscribers.
@@ -282,6 +382,51 @@ public interface ListOperations {
 	 */
 	List<TwitterProfile> getListSubscribers(String screenName, String listSlug);
 
+	/**
+	 * Retrieves a page of the subscribers to a list.
+	 * @param listId the ID of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListSubscribersInCursor(long listId, long cursor);
+
+	/**
+	 * Retrieves a page of the subscribers to a list.
+	 * @param listId the ID of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @param skipStatus if true, the profiles won't include the users' latest tweets, making for much smaller responses
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListSubscribersInCursor(long listId, long cursor, boolean skipStatus);
+
+	/**
+	 * Retrieves a page of the subscribers to a list.
+	 * @param screenName the screen name of the list owner.
+	 * @param listSlug the slug of the list.
+	 * @param cursor the cursor of the page to retrieve; -1 for the first page.
+	 * @return a page of {@link TwitterProfile}s, with the cursors of the previous and next pages
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	CursoredList<TwitterProfile> getListSubscribersInCursor(String screenName, String listSlug, long cursor);
+
+	/**
+	 * Iterates over every subscriber to a list, fetching subscribers 5000 at a time.
+	 * The next page is requested as soon as the current one arrives; if a task executor has been set on the TwitterTemplate
+	 * (see {@link org.springframework.social.twitter.api.impl.TwitterTemplate#setTaskExecutor(org.springframework.core.task.TaskExecutor)}),
+	 * it is fetched in the background while the current page is being consumed.
+	 * Errors fetching a page are thrown from the iterator's <code>hasNext()</code> and <code>next()</code> methods.
+	 * @param listId the ID of the list.
+	 * @param skipStatus if true, the profiles won't include the users' latest tweets, making for much smaller responses
+	 * @return an iterator over the list's subscribers
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Iterator<TwitterProfile> iterateListSubscribers(long listId, boolean skipStatus);
+
 	/**
 	 * Retrieves the lists that a given user is a member of.
 	 * @param userId the user ID
@@ -339,6 +484,20 @@ public interface ListOperations {
 	 */
 	boolean isMember(String screenName, String listSlug, String memberScreenName);
 
+	/**
+	 * Retrieves the IDs of all members of a list, indexed for fast membership checks.
+	 * Prefer this to {@link #isMember(long, long)} when checking more than a handful of users: the members are fetched
+	 * once and every check is answered locally.
+	 * The set is cached and reused for up to five minutes (see {@link org.springframework.social.twitter.api.impl.TwitterTemplate#setListMembershipCacheTimeout(long)});
+	 * a stale set is refreshed by the first caller to ask for it, while concurrent callers continue to use the stale set.
+	 * Changing the list's members through this ListOperations discards the cached set.
+	 * @param listId the list ID
+	 * @return the member IDs
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	UserIdSet getMemberIdSet(long listId);
+
 	/**
 	 * Checks to see if a given user subscribes to a given list.
 	 * @param listId the list ID
@@ -360,4 +519,17 @@ public interface ListOperations {
 	 */
 	boolean isSubscriber(String screenName, String listSlug, String subscriberScreenName);
 
+	/**
+	 * Retrieves the IDs of all subscribers to a list, indexed for fast subscription checks.
+	 * Prefer this to {@link #isSubscriber(long, long)} when checking more than a handful of users: the subscribers are fetched
+	 * once and every check is answered locally.
+	 * The set is cached and reused for up to five minutes (see {@link org.springframework.social.twitter.api.impl.TwitterTemplate#setListMembershipCacheTimeout(long)});
+	 * a stale set is refreshed by the first caller to ask for it, while concurrent callers continue to use the stale set.
+	 * @param listId the list ID
+	 * @return the subscriber IDs
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	UserIdSet getSubscriberIdSet(long listId);
+
 }
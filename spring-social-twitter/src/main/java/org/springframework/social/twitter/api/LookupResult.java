@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a bulk lookup by ID, such as {@link UserOperations#lookupUsers(long...)}.
+ * Results are kept in the order that their IDs were requested and are indexed by ID without boxing.
+ * IDs that were requested but not returned by Twitter (for example, suspended users) are reported as missing.
+ * @param <T> the type of the looked-up resources
+ */
+public class LookupResult<T> {
+
+	private final IdIndex index;
+
+	private final Object[] values;
+
+	private final List<T> results;
+
+	private final long[] missingIds;
+
+	/**
+	 * Creates a lookup result.
+	 * @param requestedIds the IDs that were requested, possibly containing duplicates
+	 * @param foundIds the IDs of the resources that were found, parallel to <code>found</code>
+	 * @param found the resources that were found, in any order
+	 */
+	public LookupResult(long[] requestedIds, long[] foundIds, List<T> found) {
+		this.index = new IdIndex(requestedIds);
+		this.values = new Object[index.size()];
+		for (int i = 0; i < foundIds.length; i++) {
+			int position = index.positionOf(foundIds[i]);
+			if (position >= 0) {
+				values[position] = found.get(i);
+			}
+		}
+		List<T> results = new ArrayList<T>(found.size());
+		int missingCount = 0;
+		for (Object value : values) {
+			if (value != null) {
+				@SuppressWarnings("unchecked")
+				T result = (T) value;
+				results.add(result);
+			} else {
+				missingCount++;
+			}
+		}
+		this.results = Collections.unmodifiableList(results);
+		this.missingIds = new long[missingCount];
+		for (int i = 0, j = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				missingIds[j++] = index.get(i);
+			}
+		}
+	}
+
+	/**
+	 * The resources that were found, in the order their IDs were requested.
+	 */
+	public List<T> getResults() {
+		return results;
+	}
+
+	/**
+	 * The resource with the given ID, or null if it was not requested or was not found.
+	 */
+	public T get(long id) {
+		int position = index.positionOf(id);
+		if (position < 0) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		T value = (T) values[position];
+		return value;
+	}
+
+	/**
+	 * Returns true if a resource with the given ID was found.
+	 */
+	public boolean isFound(long id) {
+		return get(id) != null;
+	}
+
+	/**
+	 * Returns true if the given ID was requested but no resource was returned for it.
+	 */
+	public boolean isMissing(long id) {
+		int position = index.positionOf(id);
+		return position >= 0 && values[position] == null;
+	}
+
+	/**
+	 * The distinct IDs that were requested, in the order they were requested.
+	 */
+	public long[] getRequestedIds() {
+		return index.toArray();
+	}
+
+	/**
+	 * The IDs that were requested but for which no resource was returned, in the order they were requested.
+	 */
+	public long[] getMissingIds() {
+		return missingIds.clone();
+	}
+
+}
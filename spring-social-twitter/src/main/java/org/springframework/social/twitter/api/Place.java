@@ -35,7 +35,13 @@ public class Place {
 	
 	private final PlaceType placeType;
 
+	private final BoundingBox boundingBox;
+
 	public Place(String id, String name, String fullName, String streetAddress, String country, String countryCode, PlaceType placeType) {
+		this(id, name, fullName, streetAddress, country, countryCode, placeType, null);
+	}
+
+	public Place(String id, String name, String fullName, String streetAddress, String country, String countryCode, PlaceType placeType, BoundingBox boundingBox) {
 		this.id = id;
 		this.name = name;
 		this.fullName = fullName;
@@ -43,6 +49,7 @@ public class Place {
 		this.streetAddress = streetAddress;
 		this.countryCode = countryCode;
 		this.placeType = placeType;
+		this.boundingBox = boundingBox;
 	}
 	
 	public String getId() {
@@ -73,4 +80,11 @@ public class Place {
 		return placeType;
 	}
 
+	/**
+	 * The rectangle enclosing this place, or null if Twitter didn't give one.
+	 */
+	public BoundingBox getBoundingBox() {
+		return boundingBox;
+	}
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+import org.springframework.util.Assert;
+
+/**
+ * Spaces requests to a rate-limited Twitter resource evenly across its rate limit window.
+ * Twitter's REST API limits each resource to a number of requests per 15 minute window (for example, 15 requests to followers/ids).
+ * Rather than exhausting the limit in a burst and then waiting for the window to reset, a pacer lets one request through every
+ * <code>window / requestsPerWindow</code> milliseconds, so that long-running jobs proceed at the highest sustainable rate.
+ * A single pacer may be shared by several threads making requests to the same resource.
+ */
+public class RateLimitPacer {
+
+	private final long windowMillis;
+
+	private final long intervalMillis;
+
+	private long nextPermitTime;
+
+	/**
+	 * Creates a pacer for a resource allowing the given number of requests per window.
+	 * @param requestsPerWindow the number of requests allowed per window
+	 * @param windowMillis the length of the rate limit window, in milliseconds
+	 */
+	public RateLimitPacer(int requestsPerWindow, long windowMillis) {
+		Assert.isTrue(requestsPerWindow > 0, "The number of requests per window must be greater than zero");
+		Assert.isTrue(windowMillis >= 0, "The window length must not be negative");
+		this.windowMillis = windowMillis;
+		this.intervalMillis = windowMillis / requestsPerWindow;
+	}
+
+	/**
+	 * Creates a pacer for a resource allowing the given number of requests per 15 minute window, as Twitter's REST API does.
+	 * @param requestsPerWindow the number of requests allowed per 15 minute window
+	 */
+	public static RateLimitPacer perRateLimitWindow(int requestsPerWindow) {
+		return new RateLimitPacer(requestsPerWindow, RATE_LIMIT_WINDOW_MILLIS);
+	}
+
+	/**
+	 * The time, in milliseconds, between requests permitted by this pacer.
+	 */
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	/**
+	 * Blocks until the next request may be made.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		long waitMillis;
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			long permitTime = Math.max(now, nextPermitTime);
+			nextPermitTime = permitTime + intervalMillis;
+			waitMillis = permitTime - now;
+		}
+		if (waitMillis > 0) {
+			Thread.sleep(waitMillis);
+		}
+	}
+
+	/**
+	 * Counts a request made without waiting for the pacer (for example, one a user is waiting on), so that the requests
+	 * that do wait make up for it.
+	 */
+	public synchronized void record() {
+		nextPermitTime = Math.max(System.currentTimeMillis(), nextPermitTime) + intervalMillis;
+	}
+
+	/**
+	 * Holds back further requests until the given time.
+	 * @param timeMillis the time, in milliseconds since the epoch, before which no further requests should be made
+	 */
+	public synchronized void deferUntil(long timeMillis) {
+		nextPermitTime = Math.max(nextPermitTime, timeMillis);
+	}
+
+	/**
+	 * Holds back further requests until the current rate limit window has passed.
+	 * Useful after Twitter has reported that the rate limit was exceeded in spite of pacing (for example, because other
+	 * clients share the same access token).
+	 * Twitter's rate limits reset every 15 minutes, so a pacer spreading requests over a longer window (such as a daily limit)
+	 * only holds them back for 15 minutes.
+	 */
+	public void deferForWindow() {
+		deferUntil(System.currentTimeMillis() + Math.min(windowMillis, RATE_LIMIT_WINDOW_MILLIS));
+	}
+
+	/**
+	 * Adjusts this pacer to the rate limit status reported by Twitter.
+	 * If no requests remain in the current window, further requests are held back until the window resets.
+	 * @param status the rate limit status for the paced resource
+	 */
+	public void update(RateLimitStatus status) {
+		if (status.getRemainingHits() <= 0) {
+			deferUntil(status.getResetTimeInSeconds() * 1000);
+		}
+	}
+
+	static final long RATE_LIMIT_WINDOW_MILLIS = 15 * 60 * 1000;
+
+}
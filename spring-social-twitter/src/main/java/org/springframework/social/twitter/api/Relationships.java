@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+/**
+ * The authenticated user's relationships with a batch of other users, as returned by {@link FriendOperations#lookupRelationships(long...)}.
+ * Each user's connections are held as a bit mask of the flags defined here, indexed by user ID without boxing.
+ * <pre>
+ * Relationships relationships = twitter.friendOperations().lookupRelationships(candidateIds);
+ * long[] toFollow = relationships.getUserIdsWithout(Relationships.FOLLOWING | Relationships.BLOCKING | Relationships.MUTING);
+ * </pre>
+ */
+public class Relationships {
+
+	/** The authenticated user follows the user. */
+	public static final int FOLLOWING = 1;
+
+	/** The user follows the authenticated user. */
+	public static final int FOLLOWED_BY = 1 << 1;
+
+	/** The authenticated user has asked to follow the user, who protects their tweets. */
+	public static final int FOLLOWING_REQUESTED = 1 << 2;
+
+	/** The authenticated user blocks the user. */
+	public static final int BLOCKING = 1 << 3;
+
+	/** The authenticated user mutes the user. */
+	public static final int MUTING = 1 << 4;
+
+	private final IdIndex index;
+
+	private final int[] connections;
+
+	private final boolean[] found;
+
+	/**
+	 * Creates a set of relationships.
+	 * @param requestedIds the user IDs that were requested, possibly containing duplicates
+	 * @param foundIds the IDs of the users that Twitter reported on, parallel to <code>foundConnections</code>
+	 * @param foundConnections the connections to each found user, as bit masks of this class's flags
+	 */
+	public Relationships(long[] requestedIds, long[] foundIds, int[] foundConnections) {
+		this.index = new IdIndex(requestedIds);
+		this.connections = new int[index.size()];
+		this.found = new boolean[index.size()];
+		for (int i = 0; i < foundIds.length; i++) {
+			int position = index.positionOf(foundIds[i]);
+			if (position >= 0) {
+				connections[position] = foundConnections[i];
+				found[position] = true;
+			}
+		}
+	}
+
+	/**
+	 * The connections to the given user as a bit mask of this class's flags; 0 if there are none, or if the user wasn't found.
+	 */
+	public int getConnections(long userId) {
+		int position = index.positionOf(userId);
+		return position >= 0 ? connections[position] : 0;
+	}
+
+	/**
+	 * Returns true if the given user has all of the given connections.
+	 * @param userId the user ID
+	 * @param flags one or more of this class's flags, combined with <code>|</code>
+	 */
+	public boolean has(long userId, int flags) {
+		return (getConnections(userId) & flags) == flags;
+	}
+
+	public boolean isFollowing(long userId) {
+		return has(userId, FOLLOWING);
+	}
+
+	public boolean isFollowedBy(long userId) {
+		return has(userId, FOLLOWED_BY);
+	}
+
+	public boolean isBlocking(long userId) {
+		return has(userId, BLOCKING);
+	}
+
+	public boolean isMuting(long userId) {
+		return has(userId, MUTING);
+	}
+
+	/**
+	 * Returns true if the given user ID was requested but Twitter didn't report on it (for example, because the user is suspended).
+	 */
+	public boolean isMissing(long userId) {
+		int position = index.positionOf(userId);
+		return position >= 0 && !found[position];
+	}
+
+	/**
+	 * The IDs of the found users having all of the given connections, in the order they were requested.
+	 * @param flags one or more of this class's flags, combined with <code>|</code>
+	 */
+	public long[] getUserIdsWith(int flags) {
+		return select(flags, true);
+	}
+
+	/**
+	 * The IDs of the found users having none of the given connections, in the order they were requested.
+	 * @param flags one or more of this class's flags, combined with <code>|</code>
+	 */
+	public long[] getUserIdsWithout(int flags) {
+		return select(flags, false);
+	}
+
+	/**
+	 * The distinct user IDs that were requested, in the order they were requested.
+	 */
+	public long[] getRequestedIds() {
+		return index.toArray();
+	}
+
+	// private helpers
+
+	private long[] select(int flags, boolean with) {
+		long[] selected = new long[connections.length];
+		int count = 0;
+		for (int i = 0; i < connections.length; i++) {
+			boolean matches = with ? (connections[i] & flags) == flags : (connections[i] & flags) == 0;
+			if (found[i] && matches) {
+				selected[count++] = index.get(i);
+			}
+		}
+		long[] trimmed = new long[count];
+		System.arraycopy(selected, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+}
@@ -7,15 +7,15 @@ package org.springframework.social.twitter.api;
  */
 public class SearchMetadata {
 	
-	private final int max_id;
+	private final long max_id;
 	private final long since_id;
 	
-	public SearchMetadata(int max_id, long since_id) {
+	public SearchMetadata(long max_id, long since_id) {
 		this.max_id = max_id;
 		this.since_id = since_id;
 	}
 
-	public int getMax_id() {
+	public long getMax_id() {
 		return max_id;
 	}
 
@@ -15,6 +15,7 @@
  */
 package org.springframework.social.twitter.api;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.springframework.social.ApiException;
@@ -76,6 +77,29 @@ public interface SearchOperations {
 	 * @see Tweet
 	 */
 	SearchResults search(SearchParameters searchParameters);
+
+	/**
+	 * Iterates over every tweet matching a search, walking backwards through the results page by page with max_id until Twitter has no more.
+	 * The next page is fetched while the current one is being consumed if TwitterTemplate has a task executor.
+	 * A tweet appearing on more than one page is only returned once.
+	 * @param searchParameters The search parameters. A max_id or since_id bounds the search. The count, if set, is the page size; otherwise pages of 100 tweets are fetched.
+	 * @return an iterator over the matching {@link Tweet}s. The iterator throws {@link ApiException} if fetching a page fails.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Iterator<Tweet> iterateSearch(SearchParameters searchParameters);
+
+	/**
+	 * Iterates over the tweets matching a search, walking backwards through the results page by page with max_id until Twitter has no more
+	 * or the given number of tweets has been returned.
+	 * The next page is fetched while the current one is being consumed if TwitterTemplate has a task executor.
+	 * A tweet appearing on more than one page is only returned once.
+	 * @param searchParameters The search parameters. A max_id or since_id bounds the search. The count, if set, is the page size; otherwise pages of 100 tweets are fetched.
+	 * @param maxResults the maximum number of tweets to return
+	 * @return an iterator over the matching {@link Tweet}s. The iterator throws {@link ApiException} if fetching a page fails.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Iterator<Tweet> iterateSearch(SearchParameters searchParameters, int maxResults);
+
 	/**
 	 * Retrieves the authenticating user's saved searches.
 	 * @return a list of SavedSearch items
@@ -211,6 +211,17 @@ public interface TimelineOperations {
 	 */
 	Tweet getStatus(long tweetId);
 
+	/**
+	 * Looks up several tweets at once, reporting any IDs for which no tweet was returned (for example, deleted tweets or tweets by protected users).
+	 * Any number of IDs may be given; they are looked up in chunks of 100 (the most that Twitter allows per request).
+	 * The chunks are requested concurrently if the TwitterTemplate has been given a task executor.
+	 * @param tweetIds the IDs of the tweets to look up
+	 * @return the tweets, in the order that their IDs were given, and the IDs of any tweets that could not be found
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	LookupResult<Tweet> getStatuses(long... tweetIds);
+
 	/**
 	 * Updates the user's status.
 	 * @param status The status message
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api;
+
+/**
+ * An immutable set of user IDs, such as the members of a list, indexed for fast membership checks.
+ * IDs are kept in a primitive open-addressing hash table, so checking thousands of users against a set
+ * requires no boxing and no calls to Twitter.
+ */
+public class UserIdSet {
+
+	private static final long EMPTY = 0L;
+
+	private final long[] table;
+
+	private final boolean containsEmptyMarker;
+
+	private final int size;
+
+	/**
+	 * Creates a set of the given IDs, which may contain duplicates.
+	 */
+	public UserIdSet(long... ids) {
+		int tableSize = 2;
+		while (tableSize < ids.length * 2) {
+			tableSize <<= 1;
+		}
+		this.table = new long[tableSize];
+		int mask = tableSize - 1;
+		int size = 0;
+		boolean containsEmptyMarker = false;
+		for (long id : ids) {
+			if (id == EMPTY) {
+				if (!containsEmptyMarker) {
+					containsEmptyMarker = true;
+					size++;
+				}
+				continue;
+			}
+			int slot = hash(id) & mask;
+			while (table[slot] != EMPTY && table[slot] != id) {
+				slot = (slot + 1) & mask;
+			}
+			if (table[slot] == EMPTY) {
+				table[slot] = id;
+				size++;
+			}
+		}
+		this.containsEmptyMarker = containsEmptyMarker;
+		this.size = size;
+	}
+
+	/**
+	 * Returns true if this set contains the given user ID.
+	 */
+	public boolean contains(long id) {
+		if (id == EMPTY) {
+			return containsEmptyMarker;
+		}
+		int mask = table.length - 1;
+		int slot = hash(id) & mask;
+		while (table[slot] != EMPTY) {
+			if (table[slot] == id) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks several user IDs at once.
+	 * @return an array parallel to the given IDs, holding true for each ID in this set
+	 */
+	public boolean[] contains(long... ids) {
+		boolean[] contained = new boolean[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			contained[i] = contains(ids[i]);
+		}
+		return contained;
+	}
+
+	/**
+	 * The number of user IDs in this set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if this set has no user IDs.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * The user IDs in this set, in no particular order.
+	 */
+	public long[] toArray() {
+		long[] ids = new long[size];
+		int i = 0;
+		if (containsEmptyMarker) {
+			ids[i++] = EMPTY;
+		}
+		for (long id : table) {
+			if (id != EMPTY) {
+				ids[i++] = id;
+			}
+		}
+		return ids;
+	}
+
+	private static int hash(long id) {
+		int h = (int) (id ^ (id >>> 32));
+		return h * 0x9E3779B9;
+	}
+
+}
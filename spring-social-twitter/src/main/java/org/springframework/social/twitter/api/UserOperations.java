@@ -74,6 +74,8 @@ public interface UserOperations {
 	
 	/**
 	 * Retrieves a list of Twitter profiles for the given list of user IDs.
+	 * Any number of IDs may be given; they are looked up in chunks of 100 (the most that Twitter allows per request).
+	 * The profiles are returned in the order that their IDs were given.
 	 * @throws ApiException if there is an error while communicating with Twitter.
 	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
 	 */
@@ -81,10 +83,44 @@ public interface UserOperations {
 
 	/**
 	 * Retrieves a list of Twitter profiles for the given list of screen names.
+	 * Any number of screen names may be given; they are looked up in chunks of 100 (the most that Twitter allows per request).
 	 * @throws ApiException if there is an error while communicating with Twitter.
 	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
 	 */
 	List<TwitterProfile> getUsers(String... screenNames);
+
+	/**
+	 * Looks up the Twitter profiles for the given list of user IDs, reporting any IDs for which no profile was returned.
+	 * Any number of IDs may be given; they are looked up in chunks of 100 (the most that Twitter allows per request).
+	 * The chunks are requested concurrently if the TwitterTemplate has been given a task executor.
+	 * @param userIds the user IDs to look up
+	 * @return the profiles, in the order that their IDs were given, and the IDs of any users that could not be found
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	LookupResult<TwitterProfile> lookupUsers(long... userIds);
+
+	/**
+	 * Resolves screen names to user IDs.
+	 * Users seen recently in any response read by this TwitterTemplate are resolved without a request;
+	 * only the rest are looked up, in chunks of 100, with users/lookup.
+	 * @param screenNames the screen names to resolve (matched without regard to case)
+	 * @return the user IDs, keyed by screen name as given, in the order given. Screen names of users that could not be found are left out.
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Map<String, Long> resolveUserIds(String... screenNames);
+
+	/**
+	 * Resolves user IDs to screen names.
+	 * Users seen recently in any response read by this TwitterTemplate are resolved without a request;
+	 * only the rest are looked up, in chunks of 100, with users/lookup.
+	 * @param userIds the user IDs to resolve
+	 * @return the screen names, keyed by user ID, in the order given. IDs of users that could not be found are left out.
+	 * @throws ApiException if there is an error while communicating with Twitter.
+	 * @throws MissingAuthorizationException if TwitterTemplate was not created with OAuth credentials.
+	 */
+	Map<Long, String> resolveScreenNames(long... userIds);
 	
 	/**
 	 * Searches for up to 20 users that match a given query.
@@ -15,6 +15,9 @@
  */
 package org.springframework.social.twitter.api.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class ArrayUtils {
 	private ArrayUtils() {
 	}
@@ -41,4 +44,24 @@ class ArrayUtils {
 		return sb.toString();
 	}
 
+	public static List<long[]> chunk(long[] items, int chunkSize) {
+		List<long[]> chunks = new ArrayList<long[]>();
+		for (int start = 0; start < items.length; start += chunkSize) {
+			long[] chunk = new long[Math.min(chunkSize, items.length - start)];
+			System.arraycopy(items, start, chunk, 0, chunk.length);
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	public static List<String[]> chunk(String[] items, int chunkSize) {
+		List<String[]> chunks = new ArrayList<String[]>();
+		for (int start = 0; start < items.length; start += chunkSize) {
+			String[] chunk = new String[Math.min(chunkSize, items.length - start)];
+			System.arraycopy(items, start, chunk, 0, chunk.length);
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
 }
@@ -17,6 +17,7 @@ package org.springframework.social.twitter.api.impl;
 
 
 import org.springframework.social.twitter.api.BlockOperations;
+import org.springframework.social.twitter.api.CursoredIdPage;
 import org.springframework.social.twitter.api.CursoredList;
 import org.springframework.social.twitter.api.TwitterProfile;
 import org.springframework.util.LinkedMultiValueMap;
@@ -86,4 +87,11 @@ class BlockTemplate extends AbstractTwitterOperations implements BlockOperations
 		return restTemplate.getForObject(buildUri("blocks/ids.json", parameters), CursoredLongList.class).getList();
 	}
 
+	public CursoredIdPage getBlockedUserIdPage(long cursor) {
+		requireAuthorization();
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("cursor", String.valueOf(cursor));
+		return restTemplate.getForObject(buildUri("blocks/ids.json", parameters), CursoredIdPage.class);
+	}
+
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.util.Assert;
+
+/**
+ * Executes the chunked requests behind bulk operations (such as users/lookup for more than 100 users),
+ * running at most {@link #setConcurrencyLimit(int) concurrencyLimit} requests at a time.
+ * Results are always returned in the order the requests were given.
+ * The calling thread takes part in running the requests and only waits for those that other threads have taken on,
+ * so a bulk operation completes even if the executor's threads are all busy (with the caller itself, say).
+ * Unless a {@link TaskExecutor} is set, all requests run one after another on the calling thread.
+ */
+class BulkRequestExecutor {
+
+	private volatile TaskExecutor taskExecutor;
+
+	private volatile int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "The concurrency limit must be greater than zero");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	public <T> List<T> execute(List<? extends Callable<T>> requests) {
+		Object[] results = new Object[requests.size()];
+		TaskExecutor taskExecutor = this.taskExecutor;
+		int workerCount = Math.min(concurrencyLimit, requests.size());
+		if (taskExecutor == null || workerCount < 2) {
+			for (int i = 0; i < requests.size(); i++) {
+				results[i] = call(requests.get(i));
+			}
+		} else {
+			executeConcurrently(taskExecutor, workerCount, requests, results);
+		}
+		List<T> resultList = new ArrayList<T>(results.length);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			T typedResult = (T) result;
+			resultList.add(typedResult);
+		}
+		return resultList;
+	}
+
+	/**
+	 * Starts a task in the background if a {@link TaskExecutor} is set.
+	 * Otherwise (or if the executor rejects the task) the task is left to be run by whoever needs its result.
+	 */
+	public void prefetch(Runnable task) {
+		TaskExecutor taskExecutor = this.taskExecutor;
+		if (taskExecutor != null) {
+			try {
+				taskExecutor.execute(task);
+			} catch (TaskRejectedException e) {
+				// the caller runs the task when it needs the result
+			}
+		}
+	}
+
+	// private helpers
+
+	private <T> void executeConcurrently(TaskExecutor taskExecutor, int workerCount, List<? extends Callable<T>> requests, Object[] results) {
+		Worker worker = new Worker(requests, results);
+		for (int i = 1; i < workerCount; i++) {
+			try {
+				taskExecutor.execute(worker);
+			} catch (TaskRejectedException e) {
+				// the calling thread picks up the slack
+				break;
+			}
+		}
+		// claims every request not yet taken on, so workers starting later find nothing left to do
+		worker.drain();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				worker.done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		Throwable failure = worker.failure.get();
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new UncategorizedApiException("twitter", "Error executing bulk request", failure);
+		}
+	}
+
+	private static <T> T call(Callable<T> request) {
+		try {
+			return request.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new UncategorizedApiException("twitter", "Error executing bulk request", e);
+		}
+	}
+
+	private static class Worker implements Runnable {
+
+		private final List<? extends Callable<?>> requests;
+
+		private final Object[] results;
+
+		private final AtomicInteger next = new AtomicInteger();
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		// counted down once for each request, whoever claims it
+		private final CountDownLatch done;
+
+		public Worker(List<? extends Callable<?>> requests, Object[] results) {
+			this.requests = requests;
+			this.results = results;
+			this.done = new CountDownLatch(requests.size());
+		}
+
+		public void run() {
+			drain();
+		}
+
+		private void drain() {
+			int i;
+			while ((i = next.getAndIncrement()) < requests.size()) {
+				try {
+					// once a request has failed, the remaining ones are claimed but not run
+					if (failure.get() == null) {
+						results[i] = requests.get(i).call();
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					done.countDown();
+				}
+			}
+		}
+
+	}
+
+	static final int DEFAULT_CONCURRENCY_LIMIT = 10;
+
+}
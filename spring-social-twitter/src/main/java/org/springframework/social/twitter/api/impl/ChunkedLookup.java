@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Looks up any number of items through one of Twitter's bulk lookup endpoints (such as users/lookup or statuses/lookup),
+ * which take at most {@link #CHUNK_SIZE} IDs or screen names per request.
+ * The IDs are split into chunks, the chunks are requested through a {@link BulkRequestExecutor}, and the items found are
+ * returned in one list, in the order of the chunks.
+ * Subclasses make the request for a single chunk and tell the ID of each item found.
+ * @param <T> the type of item looked up
+ */
+abstract class ChunkedLookup<T> {
+
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	public ChunkedLookup(BulkRequestExecutor bulkRequestExecutor) {
+		this.bulkRequestExecutor = bulkRequestExecutor;
+	}
+
+	/**
+	 * Looks up the items with the given IDs, passing them to Twitter as a comma-separated list.
+	 */
+	public List<T> lookup(long[] ids) {
+		List<Callable<List<T>>> requests = new ArrayList<Callable<List<T>>>();
+		for (long[] chunk : ArrayUtils.chunk(ids, CHUNK_SIZE)) {
+			requests.add(new ChunkRequest(ArrayUtils.join(chunk)));
+		}
+		return flatten(bulkRequestExecutor.execute(requests), ids.length);
+	}
+
+	/**
+	 * Looks up the items with the given screen names (or other string keys), passing them to Twitter as a comma-separated list.
+	 */
+	public List<T> lookup(String[] keys) {
+		List<Callable<List<T>>> requests = new ArrayList<Callable<List<T>>>();
+		for (String[] chunk : ArrayUtils.chunk(keys, CHUNK_SIZE)) {
+			requests.add(new ChunkRequest(ArrayUtils.join(chunk)));
+		}
+		return flatten(bulkRequestExecutor.execute(requests), keys.length);
+	}
+
+	/**
+	 * The IDs of the given items, as given by {@link #getId(Object)}.
+	 */
+	public long[] getIds(List<T> items) {
+		long[] ids = new long[items.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = getId(items.get(i));
+		}
+		return ids;
+	}
+
+	/**
+	 * Requests a single chunk.
+	 * @param joinedKeys the IDs or screen names in the chunk, separated by commas
+	 * @return the items found
+	 */
+	protected abstract List<T> fetchChunk(String joinedKeys);
+
+	/**
+	 * The ID of an item found.
+	 */
+	protected abstract long getId(T item);
+
+	// private helpers
+
+	private List<T> flatten(List<List<T>> chunks, int expectedSize) {
+		List<T> items = new ArrayList<T>(expectedSize);
+		for (List<T> chunk : chunks) {
+			items.addAll(chunk);
+		}
+		return items;
+	}
+
+	private class ChunkRequest implements Callable<List<T>> {
+
+		private final String joinedKeys;
+
+		public ChunkRequest(String joinedKeys) {
+			this.joinedKeys = joinedKeys;
+		}
+
+		public List<T> call() {
+			return fetchChunk(joinedKeys);
+		}
+
+	}
+
+	/**
+	 * The maximum number of IDs or screen names Twitter accepts in a single bulk request.
+	 */
+	static final int CHUNK_SIZE = 100;
+
+}
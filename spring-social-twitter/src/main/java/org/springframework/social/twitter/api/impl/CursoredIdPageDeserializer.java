@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonProcessingException;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.DeserializationContext;
+import org.codehaus.jackson.map.JsonDeserializer;
+import org.springframework.social.twitter.api.CursoredIdPage;
+
+/**
+ * Deserializer to read a cursored page of IDs (as returned from friends/ids, followers/ids, and the like) into a CursoredIdPage.
+ * Reads the IDs straight from the token stream into a long[] without building a tree or boxing each ID.
+ */
+class CursoredIdPageDeserializer extends JsonDeserializer<CursoredIdPage> {
+
+	@Override
+	public CursoredIdPage deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
+		if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+			throw ctxt.mappingException(CursoredIdPage.class);
+		}
+		long[] ids = EMPTY_IDS;
+		long previousCursor = 0;
+		long nextCursor = 0;
+		while (jp.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = jp.getCurrentName();
+			JsonToken token = jp.nextToken();
+			if ("ids".equals(fieldName) && token == JsonToken.START_ARRAY) {
+				ids = readIds(jp);
+			} else if ("previous_cursor".equals(fieldName) && token == JsonToken.VALUE_NUMBER_INT) {
+				previousCursor = jp.getLongValue();
+			} else if ("next_cursor".equals(fieldName) && token == JsonToken.VALUE_NUMBER_INT) {
+				nextCursor = jp.getLongValue();
+			} else {
+				jp.skipChildren();
+			}
+		}
+		return new CursoredIdPage(ids, previousCursor, nextCursor);
+	}
+
+	private long[] readIds(JsonParser jp) throws IOException {
+		long[] ids = new long[INITIAL_CAPACITY];
+		int size = 0;
+		JsonToken token;
+		while ((token = jp.nextToken()) != JsonToken.END_ARRAY) {
+			if (size == ids.length) {
+				ids = copyOf(ids, size * 2);
+			}
+			// IDs are given as strings when requested with stringify_ids=true
+			ids[size++] = token == JsonToken.VALUE_STRING ? Long.parseLong(jp.getText()) : jp.getLongValue();
+		}
+		return size == ids.length ? ids : copyOf(ids, size);
+	}
+
+	private static long[] copyOf(long[] ids, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(ids, 0, copy, 0, Math.min(ids.length, length));
+		return copy;
+	}
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final long[] EMPTY_IDS = new long[0];
+
+}
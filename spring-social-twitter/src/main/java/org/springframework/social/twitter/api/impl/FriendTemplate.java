@@ -18,9 +18,12 @@ package org.springframework.social.twitter.api.impl;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.social.twitter.api.CursoredIdPage;
 import org.springframework.social.twitter.api.CursoredList;
 import org.springframework.social.twitter.api.FriendOperations;
+import org.springframework.social.twitter.api.Relationships;
 import org.springframework.social.twitter.api.TwitterProfile;
+import org.springframework.social.twitter.api.impl.FriendshipConnectionsList.FriendshipConnections;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
@@ -33,9 +36,12 @@ class FriendTemplate extends AbstractTwitterOperations implements FriendOperatio
 	
 	private final RestTemplate restTemplate;
 
-	public FriendTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	public FriendTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, boolean isAuthorizedForUser) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.bulkRequestExecutor = bulkRequestExecutor;
 	}
 
 	public CursoredList<TwitterProfile> getFriends() {
@@ -98,6 +104,27 @@ class FriendTemplate extends AbstractTwitterOperations implements FriendOperatio
 		return restTemplate.getForObject(buildUri("friends/ids.json", parameters), CursoredLongList.class).getList();
 	}
 
+	public CursoredIdPage getFriendIdPage(long cursor) {
+		requireAuthorization();
+		return restTemplate.getForObject(buildUri("friends/ids.json", "cursor", String.valueOf(cursor)), CursoredIdPage.class);
+	}
+
+	public CursoredIdPage getFriendIdPage(long userId, long cursor) {
+		requireAuthorization();
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("cursor", String.valueOf(cursor));
+		parameters.set("user_id", String.valueOf(userId));
+		return restTemplate.getForObject(buildUri("friends/ids.json", parameters), CursoredIdPage.class);
+	}
+
+	public CursoredIdPage getFriendIdPage(String screenName, long cursor) {
+		requireAuthorization();
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("cursor", String.valueOf(cursor));
+		parameters.set("screen_name", screenName);
+		return restTemplate.getForObject(buildUri("friends/ids.json", parameters), CursoredIdPage.class);
+	}
+
 	public CursoredList<TwitterProfile> getFollowers() {
 		return getFollowersInCursor(-1);
 	}
@@ -158,6 +185,27 @@ class FriendTemplate extends AbstractTwitterOperations implements FriendOperatio
 		return restTemplate.getForObject(buildUri("followers/ids.json", parameters), CursoredLongList.class).getList();
 	}
 
+	public CursoredIdPage getFollowerIdPage(long cursor) {
+		requireAuthorization();
+		return restTemplate.getForObject(buildUri("followers/ids.json", "cursor", String.valueOf(cursor)), CursoredIdPage.class);
+	}
+
+	public CursoredIdPage getFollowerIdPage(long userId, long cursor) {
+		requireAuthorization();
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("cursor", String.valueOf(cursor));
+		parameters.set("user_id", String.valueOf(userId));
+		return restTemplate.getForObject(buildUri("followers/ids.json", parameters), CursoredIdPage.class);
+	}
+
+	public CursoredIdPage getFollowerIdPage(String screenName, long cursor) {
+		requireAuthorization();
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("cursor", String.valueOf(cursor));
+		parameters.set("screen_name", screenName);
+		return restTemplate.getForObject(buildUri("followers/ids.json", parameters), CursoredIdPage.class);
+	}
+
 	public String follow(long userId) {
 		requireAuthorization();
 		return (String) restTemplate.postForObject(buildUri("friendships/create.json", "user_id", String.valueOf(userId)), EMPTY_DATA, Map.class).get("screen_name");
@@ -228,14 +276,50 @@ class FriendTemplate extends AbstractTwitterOperations implements FriendOperatio
 		return restTemplate.getForObject(buildUri("friendships/outgoing.json", "cursor", String.valueOf(cursor)), CursoredLongList.class).getList();
 	}
 
+	public CursoredIdPage getIncomingFriendshipIdPage(long cursor) {
+		requireAuthorization();
+		return restTemplate.getForObject(buildUri("friendships/incoming.json", "cursor", String.valueOf(cursor)), CursoredIdPage.class);
+	}
+
+	public CursoredIdPage getOutgoingFriendshipIdPage(long cursor) {
+		requireAuthorization();
+		return restTemplate.getForObject(buildUri("friendships/outgoing.json", "cursor", String.valueOf(cursor)), CursoredIdPage.class);
+	}
+
+	public Relationships lookupRelationships(long... userIds) {
+		requireAuthorization();
+		ChunkedLookup<FriendshipConnections> lookup = new ChunkedLookup<FriendshipConnections>(bulkRequestExecutor) {
+			protected List<FriendshipConnections> fetchChunk(String joinedIds) {
+				return restTemplate.getForObject(buildUri("friendships/lookup.json", "user_id", joinedIds), FriendshipConnectionsList.class);
+			}
+			protected long getId(FriendshipConnections entry) {
+				return entry.getId();
+			}
+		};
+		List<FriendshipConnections> entries = lookup.lookup(userIds);
+		int[] connections = new int[entries.size()];
+		for (int i = 0; i < connections.length; i++) {
+			connections[i] = entries.get(i).getConnections();
+		}
+		return new Relationships(userIds, lookup.getIds(entries), connections);
+	}
+
 	private CursoredList<TwitterProfile> getCursoredProfileList(List<Long> userIds, long previousCursor, long nextCursor) {
 		// TODO: Would be good to figure out how to retrieve profiles in a tighter-than-cursor granularity.
-		List<List<Long>> chunks = CursorUtils.chunkList(userIds, 100);
-		CursoredList<TwitterProfile> users = new CursoredList<TwitterProfile>(userIds.size(), previousCursor, nextCursor);
-		for (List<Long> userIdChunk : chunks) {
-			String joinedIds = ArrayUtils.join(userIdChunk.toArray());
-			users.addAll(restTemplate.getForObject(buildUri("users/lookup.json", "user_id", joinedIds), TwitterProfileList.class));
+		long[] ids = new long[userIds.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = userIds.get(i);
 		}
+		ChunkedLookup<TwitterProfile> lookup = new ChunkedLookup<TwitterProfile>(bulkRequestExecutor) {
+			protected List<TwitterProfile> fetchChunk(String joinedIds) {
+				return restTemplate.getForObject(buildUri("users/lookup.json", "user_id", joinedIds), TwitterProfileList.class);
+			}
+			protected long getId(TwitterProfile profile) {
+				return profile.getId();
+			}
+		};
+		CursoredList<TwitterProfile> users = new CursoredList<TwitterProfile>(userIds.size(), previousCursor, nextCursor);
+		users.addAll(lookup.lookup(ids));
 		return users;
 	}
 	
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonCreator;
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.springframework.social.twitter.api.Relationships;
+
+/**
+ * Holder for the entries returned from friendships/lookup.json, each giving a user's ID and connections to the authenticated user.
+ */
+@SuppressWarnings("serial")
+class FriendshipConnectionsList extends ArrayList<FriendshipConnectionsList.FriendshipConnections> {
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	static class FriendshipConnections {
+
+		private final long id;
+
+		private final int connections;
+
+		@JsonCreator
+		public FriendshipConnections(@JsonProperty("id") long id, @JsonProperty("connections") List<String> connections) {
+			this.id = id;
+			int flags = 0;
+			if (connections != null) {
+				for (String connection : connections) {
+					flags |= toFlag(connection);
+				}
+			}
+			this.connections = flags;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public int getConnections() {
+			return connections;
+		}
+
+		private static int toFlag(String connection) {
+			if ("following".equals(connection)) {
+				return Relationships.FOLLOWING;
+			} else if ("followed_by".equals(connection)) {
+				return Relationships.FOLLOWED_BY;
+			} else if ("following_requested".equals(connection)) {
+				return Relationships.FOLLOWING_REQUESTED;
+			} else if ("blocking".equals(connection)) {
+				return Relationships.BLOCKING;
+			} else if ("muting".equals(connection)) {
+				return Relationships.MUTING;
+			}
+			return 0;
+		}
+
+	}
+
+}
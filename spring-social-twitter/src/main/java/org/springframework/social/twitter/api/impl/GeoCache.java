@@ -0,0 +1,288 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.social.twitter.api.BoundingBox;
+import org.springframework.social.twitter.api.Place;
+import org.springframework.social.twitter.api.PlaceType;
+
+/**
+ * Caches places by ID, and the results of place lookups by coordinates, so that nearby coordinates are resolved without asking Twitter again.
+ * <p>
+ * Coordinates are snapped to a grid whose cells are sized by the lookup's granularity (about 100 meters for points of interest, up to
+ * hundreds of kilometers for countries) and, if it is given in meters or feet, no larger than the lookup's accuracy.
+ * A lookup in a cell that hasn't been looked up yet may still be answered from the cache if the point lies within the bounding box of the
+ * place found by an earlier lookup with the same granularity (for example, anywhere within a city that has already been looked up).
+ * Those bounding boxes are indexed by coarse grid cells ten times the size of the lookup cells, so only the few boxes near a point are checked.
+ * Each cache holds at most {@link #MAX_ENTRIES} entries, evicting the least recently used.
+ * A cache holds nothing specific to a user, so one cache may be shared by the templates of many users.
+ * </p>
+ */
+class GeoCache {
+
+	private final Map<String, Cached<Place>> places = new LruMap<Cached<Place>>();
+
+	@SuppressWarnings("serial")
+	private final Map<String, CachedLookup> lookups = new LruMap<CachedLookup>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedLookup> eldest) {
+			if (size() <= MAX_ENTRIES) {
+				return false;
+			}
+			unindex(eldest.getValue());
+			return true;
+		}
+	};
+
+	// guarded by lookups
+	private final Map<String, List<CachedLookup>> boxIndex = new HashMap<String, List<CachedLookup>>();
+
+	private volatile long timeoutMillis;
+
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public boolean isEnabled() {
+		return timeoutMillis > 0;
+	}
+
+	public Place getPlace(String placeId) {
+		synchronized (places) {
+			Cached<Place> cached = places.get(placeId);
+			return isFresh(cached) ? cached.value : null;
+		}
+	}
+
+	public void putPlace(Place place) {
+		synchronized (places) {
+			places.put(place.getId(), new Cached<Place>(place));
+		}
+	}
+
+	public List<Place> getPlaces(String resource, double latitude, double longitude, PlaceType granularity, String accuracy, String query) {
+		String scope = scope(resource, granularity, accuracy, query);
+		String cellKey = cellKey(scope, latitude, longitude, cellSize(granularity, accuracy));
+		synchronized (lookups) {
+			CachedLookup cached = lookups.get(cellKey);
+			if (isFresh(cached)) {
+				return cached.value;
+			}
+			if (granularity == null) {
+				return null;
+			}
+			List<CachedLookup> nearby = boxIndex.get(cellKey(scope, latitude, longitude, indexCellSize(granularity)));
+			if (nearby != null) {
+				for (CachedLookup lookup : nearby) {
+					if (isFresh(lookup) && lookup.boundingBox.contains(latitude, longitude)) {
+						return lookup.value;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	public List<Place> putPlaces(String resource, double latitude, double longitude, PlaceType granularity, String accuracy, String query, List<Place> results) {
+		String scope = scope(resource, granularity, accuracy, query);
+		String cellKey = cellKey(scope, latitude, longitude, cellSize(granularity, accuracy));
+		List<Place> unmodifiableResults = Collections.unmodifiableList(results);
+		CachedLookup lookup = new CachedLookup(scope, unmodifiableResults, containingBox(results, granularity, accuracy));
+		synchronized (lookups) {
+			CachedLookup replaced = lookups.put(cellKey, lookup);
+			if (replaced != null) {
+				unindex(replaced);
+			}
+			if (lookup.boundingBox != null) {
+				index(lookup, indexCellSize(granularity));
+			}
+		}
+		synchronized (places) {
+			for (Place place : results) {
+				places.put(place.getId(), new Cached<Place>(place));
+			}
+		}
+		return unmodifiableResults;
+	}
+
+	/**
+	 * The size, in degrees, of the grid cells for lookups with the given granularity and accuracy.
+	 */
+	static double cellSize(PlaceType granularity, String accuracy) {
+		double cellSize = granularity != null ? CELL_SIZES[granularity.ordinal()] : CELL_SIZES[PlaceType.NEIGHBORHOOD.ordinal()];
+		double accuracyMeters = parseMeters(accuracy);
+		if (accuracyMeters > 0) {
+			cellSize = Math.min(cellSize, accuracyMeters / METERS_PER_DEGREE);
+		}
+		return cellSize;
+	}
+
+	// private helpers
+
+	/*
+	 * Adds a lookup's bounding box to every index cell it overlaps, unless it overlaps too many to be worth indexing.
+	 */
+	private void index(CachedLookup lookup, double indexCellSize) {
+		BoundingBox box = lookup.boundingBox;
+		long minRow = (long) Math.floor(box.getMinLatitude() / indexCellSize);
+		long maxRow = (long) Math.floor(box.getMaxLatitude() / indexCellSize);
+		long minColumn = (long) Math.floor(box.getMinLongitude() / indexCellSize);
+		long maxColumn = (long) Math.floor(box.getMaxLongitude() / indexCellSize);
+		if (maxRow < minRow || maxColumn < minColumn || (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > MAX_INDEX_CELLS_PER_BOX) {
+			return;
+		}
+		for (long row = minRow; row <= maxRow; row++) {
+			for (long column = minColumn; column <= maxColumn; column++) {
+				String indexKey = cellKey(lookup.scope, row, column);
+				List<CachedLookup> indexed = boxIndex.get(indexKey);
+				if (indexed == null) {
+					indexed = new ArrayList<CachedLookup>(2);
+					boxIndex.put(indexKey, indexed);
+				}
+				indexed.add(lookup);
+				lookup.indexKeys.add(indexKey);
+			}
+		}
+	}
+
+	private void unindex(CachedLookup lookup) {
+		for (String indexKey : lookup.indexKeys) {
+			List<CachedLookup> indexed = boxIndex.get(indexKey);
+			if (indexed != null) {
+				indexed.remove(lookup);
+				if (indexed.isEmpty()) {
+					boxIndex.remove(indexKey);
+				}
+			}
+		}
+	}
+
+	private boolean isFresh(Cached<?> cached) {
+		return cached != null && System.currentTimeMillis() - cached.fetchTime < timeoutMillis;
+	}
+
+	private static String scope(String resource, PlaceType granularity, String accuracy, String query) {
+		return resource + "|" + granularity + "|" + accuracy + "|" + query;
+	}
+
+	private static double indexCellSize(PlaceType granularity) {
+		return CELL_SIZES[granularity.ordinal()] * INDEX_CELL_FACTOR;
+	}
+
+	private static String cellKey(String scope, double latitude, double longitude, double cellSize) {
+		return cellKey(scope, (long) Math.floor(latitude / cellSize), (long) Math.floor(longitude / cellSize));
+	}
+
+	private static String cellKey(String scope, long row, long column) {
+		return scope + "|" + row + "," + column;
+	}
+
+	/**
+	 * The bounding box that every point resolving to the same results must lie in, or null if there isn't one.
+	 * Only a place of the looked-up granularity qualifies, and only if the lookup wasn't narrowed by an accuracy.
+	 */
+	private static BoundingBox containingBox(List<Place> results, PlaceType granularity, String accuracy) {
+		if (results.isEmpty() || granularity == null || accuracy != null || granularity == PlaceType.POINT_OF_INTEREST) {
+			return null;
+		}
+		Place first = results.get(0);
+		return first.getPlaceType() == granularity ? first.getBoundingBox() : null;
+	}
+
+	private static double parseMeters(String accuracy) {
+		if (accuracy == null) {
+			return -1;
+		}
+		String value = accuracy.trim().toLowerCase(Locale.ENGLISH);
+		double factor = 1;
+		if (value.endsWith("ft")) {
+			value = value.substring(0, value.length() - 2);
+			factor = METERS_PER_FOOT;
+		} else if (value.endsWith("m")) {
+			value = value.substring(0, value.length() - 1);
+		}
+		try {
+			return Double.parseDouble(value.trim()) * factor;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static class Cached<T> {
+
+		protected final T value;
+
+		protected final long fetchTime = System.currentTimeMillis();
+
+		public Cached(T value) {
+			this.value = value;
+		}
+
+	}
+
+	private static class CachedLookup extends Cached<List<Place>> {
+
+		private final String scope;
+
+		private final BoundingBox boundingBox;
+
+		private final List<String> indexKeys = new ArrayList<String>(1);
+
+		public CachedLookup(String scope, List<Place> results, BoundingBox boundingBox) {
+			super(results);
+			this.scope = scope;
+			this.boundingBox = boundingBox;
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	private static class LruMap<V> extends LinkedHashMap<String, V> {
+
+		public LruMap() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+
+	}
+
+	static final int MAX_ENTRIES = 10000;
+
+	// indexed by PlaceType ordinal: POINT_OF_INTEREST, NEIGHBORHOOD, CITY, ADMIN, COUNTRY
+	private static final double[] CELL_SIZES = { 0.001, 0.01, 0.1, 1, 5 };
+
+	private static final double INDEX_CELL_FACTOR = 10;
+
+	// a box covering more index cells than this (one crossing the antimeridian, say) isn't worth indexing
+	private static final int MAX_INDEX_CELLS_PER_BOX = 64;
+
+	private static final double METERS_PER_DEGREE = 111320;
+
+	private static final double METERS_PER_FOOT = 0.3048;
+
+}
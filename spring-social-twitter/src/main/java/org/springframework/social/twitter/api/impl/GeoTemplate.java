@@ -30,14 +30,29 @@ public class GeoTemplate extends AbstractTwitterOperations implements GeoOperati
 
 	private final RestTemplate restTemplate;
 
+	private final GeoCache cache;
+
 	public GeoTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+		this(restTemplate, isAuthorizedForUser, new GeoCache());
+	}
+
+	GeoTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser, GeoCache cache) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.cache = cache;
 	}
 
 	public Place getPlace(String placeId) {
 		requireAuthorization();
-		return restTemplate.getForObject(buildUri("geo/id/" + placeId + ".json"), Place.class);
+		if (!cache.isEnabled()) {
+			return restTemplate.getForObject(buildUri("geo/id/" + placeId + ".json"), Place.class);
+		}
+		Place place = cache.getPlace(placeId);
+		if (place == null) {
+			place = restTemplate.getForObject(buildUri("geo/id/" + placeId + ".json"), Place.class);
+			cache.putPlace(place);
+		}
+		return place;
 	}
 	
 	public List<Place> reverseGeoCode(double latitude, double longitude) {
@@ -46,8 +61,7 @@ public class GeoTemplate extends AbstractTwitterOperations implements GeoOperati
 	
 	public List<Place> reverseGeoCode(double latitude, double longitude, PlaceType granularity, String accuracy) {
 		requireAuthorization();
-		MultiValueMap<String, String> parameters = buildGeoParameters(latitude, longitude, granularity, accuracy, null);
-		return restTemplate.getForObject(buildUri("geo/reverse_geocode.json", parameters), PlacesList.class).getList();
+		return lookupPlaces("geo/reverse_geocode.json", latitude, longitude, granularity, accuracy, null);
 	}
 	
 	public List<Place> search(double latitude, double longitude) {
@@ -56,8 +70,7 @@ public class GeoTemplate extends AbstractTwitterOperations implements GeoOperati
 	
 	public List<Place> search(double latitude, double longitude, PlaceType granularity, String accuracy, String query) {
 		requireAuthorization();
-		MultiValueMap<String, String> parameters = buildGeoParameters(latitude, longitude, granularity, accuracy, query);
-		return restTemplate.getForObject(buildUri("geo/search.json", parameters), PlacesList.class).getList();
+		return lookupPlaces("geo/search.json", latitude, longitude, granularity, accuracy, query);
 	}
 	
 	public SimilarPlaces findSimilarPlaces(double latitude, double longitude, String name) {
@@ -80,7 +93,22 @@ public class GeoTemplate extends AbstractTwitterOperations implements GeoOperati
 	}
 	
 	// private helpers
-	
+
+	private List<Place> lookupPlaces(String path, double latitude, double longitude, PlaceType granularity, String accuracy, String query) {
+		if (cache.isEnabled()) {
+			List<Place> places = cache.getPlaces(path, latitude, longitude, granularity, accuracy, query);
+			if (places != null) {
+				return places;
+			}
+		}
+		MultiValueMap<String, String> parameters = buildGeoParameters(latitude, longitude, granularity, accuracy, query);
+		List<Place> places = restTemplate.getForObject(buildUri(path, parameters), PlacesList.class).getList();
+		if (cache.isEnabled()) {
+			return cache.putPlaces(path, latitude, longitude, granularity, accuracy, query, places);
+		}
+		return places;
+	}
+
 	private MultiValueMap<String, String> buildGeoParameters(double latitude, double longitude, PlaceType granularity, String accuracy, String query) {
 		MultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
 		parameters.set("lat", String.valueOf(latitude));
@@ -17,14 +17,21 @@ package org.springframework.social.twitter.api.impl;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import org.springframework.social.RateLimitExceededException;
 import org.springframework.social.ResourceNotFoundException;
 import org.springframework.social.twitter.api.CursoredList;
+import org.springframework.social.twitter.api.ListMembershipReport;
+import org.springframework.social.twitter.api.ListMembershipReport.Chunk;
 import org.springframework.social.twitter.api.ListOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
 import org.springframework.social.twitter.api.Tweet;
 import org.springframework.social.twitter.api.TwitterProfile;
+import org.springframework.social.twitter.api.UserIdSet;
 import org.springframework.social.twitter.api.UserList;
+import org.springframework.social.twitter.api.impl.UserIdSetCache.CachedUserIdSet;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
@@ -36,10 +43,32 @@ import org.springframework.web.client.RestTemplate;
 class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 	
 	private final RestTemplate restTemplate;
+
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	private volatile RateLimitPacer membershipPacer;
+
+	private final UserIdSetCache userIdSetCache;
+
+	// prefixes this template's keys in a cache shared with other users' templates
+	private final String userIdSetCacheScope;
 					
-	public ListTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+	public ListTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, boolean isAuthorizedForUser) {
+		this(restTemplate, bulkRequestExecutor, isAuthorizedForUser, newMembershipPacer(), new UserIdSetCache(), "");
+	}
+
+	public ListTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, boolean isAuthorizedForUser, RateLimitPacer membershipPacer,
+			UserIdSetCache userIdSetCache, String userIdSetCacheScope) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.bulkRequestExecutor = bulkRequestExecutor;
+		this.membershipPacer = membershipPacer;
+		this.userIdSetCache = userIdSetCache;
+		this.userIdSetCacheScope = userIdSetCacheScope;
+	}
+
+	void setMembershipPacer(RateLimitPacer membershipPacer) {
+		this.membershipPacer = membershipPacer;
 	}
 	
 	public List<UserList> getLists() {
@@ -136,12 +165,35 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		return restTemplate.getForObject(buildUri("lists/members.json", parameters), TwitterProfileUsersList.class).getList();
 	}
 
+	public CursoredList<TwitterProfile> getListMembersInCursor(long listId, long cursor) {
+		return getListMembersInCursor(listId, cursor, false);
+	}
+
+	public CursoredList<TwitterProfile> getListMembersInCursor(long listId, long cursor, boolean skipStatus) {
+		requireAuthorization();
+		return fetchUserPage(MEMBERS_PATH, listParameters(listId), cursor, 0, skipStatus);
+	}
+
+	public CursoredList<TwitterProfile> getListMembersInCursor(String screenName, String listSlug, long cursor) {
+		requireAuthorization();
+		return fetchUserPage(MEMBERS_PATH, listParameters(screenName, listSlug), cursor, 0, false);
+	}
+
+	public Iterator<TwitterProfile> iterateListMembers(long listId, boolean skipStatus) {
+		requireAuthorization();
+		return iterateUsers(MEMBERS_PATH, listId, skipStatus);
+	}
+
 	public UserList addToList(long listId, long... newMemberIds) {
 		requireAuthorization();
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
 		request.set("user_id", ArrayUtils.join(newMemberIds));
 		request.set("list_id", String.valueOf(listId));
-		return restTemplate.postForObject(buildUri("lists/members/create_all.json"), request, UserList.class);
+		try {
+			return restTemplate.postForObject(buildUri("lists/members/create_all.json"), request, UserList.class);
+		} finally {
+			evictMemberIdSet(listId);
+		}
 	}
 
 	public UserList addToList(long listId, String... newMemberScreenNames) {
@@ -149,7 +201,11 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
 		request.set("screen_name", ArrayUtils.join(newMemberScreenNames));
 		request.set("list_id", String.valueOf(listId));
-		return restTemplate.postForObject(buildUri("lists/members/create_all.json"), request, UserList.class);
+		try {
+			return restTemplate.postForObject(buildUri("lists/members/create_all.json"), request, UserList.class);
+		} finally {
+			evictMemberIdSet(listId);
+		}
 	}
 
 	public void removeFromList(long listId, long memberId) {
@@ -157,7 +213,11 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
 		request.set("user_id", String.valueOf(memberId)); 
 		request.set("list_id", String.valueOf(listId));
-		restTemplate.postForObject(buildUri("lists/members/destroy.json"), request, String.class);
+		try {
+			restTemplate.postForObject(buildUri("lists/members/destroy.json"), request, String.class);
+		} finally {
+			evictMemberIdSet(listId);
+		}
 	}
 
 	public void removeFromList(long listId, String memberScreenName) {
@@ -165,7 +225,31 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
 		request.set("screen_name", String.valueOf(memberScreenName)); 
 		request.set("list_id", String.valueOf(listId));
-		restTemplate.postForObject(buildUri("lists/members/destroy.json"), request, String.class);
+		try {
+			restTemplate.postForObject(buildUri("lists/members/destroy.json"), request, String.class);
+		} finally {
+			evictMemberIdSet(listId);
+		}
+	}
+
+	public ListMembershipReport addMembers(long listId, long... newMemberIds) {
+		requireAuthorization();
+		return changeMembers("lists/members/create_all.json", listId, ArrayUtils.chunk(newMemberIds, ChunkedLookup.CHUNK_SIZE), null);
+	}
+
+	public ListMembershipReport addMembers(long listId, String... newMemberScreenNames) {
+		requireAuthorization();
+		return changeMembers("lists/members/create_all.json", listId, null, ArrayUtils.chunk(newMemberScreenNames, ChunkedLookup.CHUNK_SIZE));
+	}
+
+	public ListMembershipReport removeMembers(long listId, long... memberIds) {
+		requireAuthorization();
+		return changeMembers("lists/members/destroy_all.json", listId, ArrayUtils.chunk(memberIds, ChunkedLookup.CHUNK_SIZE), null);
+	}
+
+	public ListMembershipReport removeMembers(long listId, String... memberScreenNames) {
+		requireAuthorization();
+		return changeMembers("lists/members/destroy_all.json", listId, null, ArrayUtils.chunk(memberScreenNames, ChunkedLookup.CHUNK_SIZE));
 	}
 
 	public List<TwitterProfile> getListSubscribers(long listId) {
@@ -181,6 +265,25 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		return restTemplate.getForObject(buildUri("lists/subscribers.json", parameters), TwitterProfileUsersList.class).getList();
 	}
 	
+	public CursoredList<TwitterProfile> getListSubscribersInCursor(long listId, long cursor) {
+		return getListSubscribersInCursor(listId, cursor, false);
+	}
+
+	public CursoredList<TwitterProfile> getListSubscribersInCursor(long listId, long cursor, boolean skipStatus) {
+		requireAuthorization();
+		return fetchUserPage(SUBSCRIBERS_PATH, listParameters(listId), cursor, 0, skipStatus);
+	}
+
+	public CursoredList<TwitterProfile> getListSubscribersInCursor(String screenName, String listSlug, long cursor) {
+		requireAuthorization();
+		return fetchUserPage(SUBSCRIBERS_PATH, listParameters(screenName, listSlug), cursor, 0, false);
+	}
+
+	public Iterator<TwitterProfile> iterateListSubscribers(long listId, boolean skipStatus) {
+		requireAuthorization();
+		return iterateUsers(SUBSCRIBERS_PATH, listId, skipStatus);
+	}
+
 	public UserList subscribe(long listId) {
 		requireAuthorization();
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
@@ -265,8 +368,102 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		return checkListConnection(buildUri("lists/subscribers/show.json", parameters));
 	}
 
+	public UserIdSet getMemberIdSet(long listId) {
+		requireAuthorization();
+		return getCachedUserIdSet(MEMBERS_PATH, listId);
+	}
+
+	public UserIdSet getSubscriberIdSet(long listId) {
+		requireAuthorization();
+		return getCachedUserIdSet(SUBSCRIBERS_PATH, listId);
+	}
+
 	// private helpers
 
+	private UserIdSet getCachedUserIdSet(String path, long listId) {
+		String key = userIdSetCacheKey(path, listId);
+		CachedUserIdSet cached = userIdSetCache.get(key);
+		if (cached != null) {
+			boolean fresh = userIdSetCache.isFresh(cached);
+			// only one caller refreshes a stale set; the others carry on with the stale one in the meantime
+			if (fresh || !cached.refreshing.compareAndSet(false, true)) {
+				return cached.userIds;
+			}
+			try {
+				return fetchAndCacheUserIdSet(key, path, listId);
+			} finally {
+				cached.refreshing.set(false);
+			}
+		}
+		return fetchAndCacheUserIdSet(key, path, listId);
+	}
+
+	private UserIdSet fetchAndCacheUserIdSet(String key, String path, long listId) {
+		long fetchTime = System.currentTimeMillis();
+		long evictionsBefore = userIdSetCache.getEvictionCount();
+		long[] userIds = new long[0];
+		int count = 0;
+		long cursor = -1;
+		do {
+			CursoredList<TwitterProfile> page = fetchUserPage(path, listParameters(listId), cursor, MAX_USERS_PER_PAGE, true);
+			if (count + page.size() > userIds.length) {
+				long[] grown = new long[Math.max(userIds.length * 2, count + page.size())];
+				System.arraycopy(userIds, 0, grown, 0, count);
+				userIds = grown;
+			}
+			for (TwitterProfile profile : page) {
+				userIds[count++] = profile.getId();
+			}
+			cursor = page.getNextCursor();
+		} while (cursor > 0);
+		long[] trimmed = new long[count];
+		System.arraycopy(userIds, 0, trimmed, 0, count);
+		UserIdSet userIdSet = new UserIdSet(trimmed);
+		// not cached if the list may have changed while it was being fetched
+		userIdSetCache.put(key, userIdSet, fetchTime, evictionsBefore);
+		return userIdSet;
+	}
+
+	private Iterator<TwitterProfile> iterateUsers(final String path, final long listId, final boolean skipStatus) {
+		return new PrefetchingCursorIterator<TwitterProfile>(bulkRequestExecutor) {
+			protected CursoredList<TwitterProfile> fetchPage(long cursor) {
+				return fetchUserPage(path, listParameters(listId), cursor, MAX_USERS_PER_PAGE, skipStatus);
+			}
+		};
+	}
+
+	private CursoredList<TwitterProfile> fetchUserPage(String path, LinkedMultiValueMap<String, String> parameters, long cursor, int count, boolean skipStatus) {
+		if (count > 0) {
+			parameters.set("count", String.valueOf(count));
+		}
+		if (skipStatus) {
+			parameters.set("skip_status", "true");
+		}
+		parameters.set("cursor", String.valueOf(cursor));
+		return restTemplate.getForObject(buildUri(path, parameters), CursoredTwitterProfileUsersList.class).getList();
+	}
+
+	private LinkedMultiValueMap<String, String> listParameters(long listId) {
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("list_id", String.valueOf(listId));
+		return parameters;
+	}
+
+	private LinkedMultiValueMap<String, String> listParameters(String screenName, String listSlug) {
+		LinkedMultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+		parameters.set("owner_screen_name", screenName);
+		parameters.set("slug", listSlug);
+		return parameters;
+	}
+
+	private void evictMemberIdSet(long listId) {
+		userIdSetCache.evict(userIdSetCacheKey(MEMBERS_PATH, listId));
+	}
+
+	private String userIdSetCacheKey(String path, long listId) {
+		return userIdSetCacheScope + "|" + path + listId;
+	}
+
 	private boolean checkListConnection(URI uri) {
 		try {
 			restTemplate.getForObject(uri, String.class);
@@ -276,6 +473,66 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 		}
 	}
 
+	/*
+	 * Sends the chunks (either userIdChunks or screenNameChunks) one at a time, pacing them with the membership pacer.
+	 * If Twitter reports that the rate limit was exceeded, the pacer holds off for a window and the chunk is retried once.
+	 * If the thread is interrupted while waiting, the remaining chunks are skipped and the interrupt flag is restored.
+	 */
+	private ListMembershipReport changeMembers(String path, long listId, List<long[]> userIdChunks, List<String[]> screenNameChunks) {
+		RateLimitPacer pacer = membershipPacer;
+		int chunkCount = userIdChunks != null ? userIdChunks.size() : screenNameChunks.size();
+		List<Chunk> chunks = new ArrayList<Chunk>(chunkCount);
+		boolean interrupted = false;
+		for (int i = 0; i < chunkCount; i++) {
+			long[] userIds = userIdChunks != null ? userIdChunks.get(i) : null;
+			String[] screenNames = screenNameChunks != null ? screenNameChunks.get(i) : null;
+			if (interrupted) {
+				chunks.add(new Chunk(userIds, screenNames, Chunk.Status.SKIPPED, null, null));
+				continue;
+			}
+			MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
+			if (userIds != null) {
+				request.set("user_id", ArrayUtils.join(userIds));
+			} else {
+				request.set("screen_name", ArrayUtils.join(screenNames));
+			}
+			request.set("list_id", String.valueOf(listId));
+			RuntimeException failure = null;
+			for (int attempt = 0; attempt < 2; attempt++) {
+				try {
+					pacer.acquire();
+				} catch (InterruptedException e) {
+					interrupted = true;
+					break;
+				}
+				try {
+					UserList list = restTemplate.postForObject(buildUri(path), request, UserList.class);
+					chunks.add(new Chunk(userIds, screenNames, Chunk.Status.SUCCEEDED, list, null));
+					failure = null;
+					break;
+				} catch (RateLimitExceededException e) {
+					pacer.deferForWindow();
+					failure = e;
+				} catch (RuntimeException e) {
+					failure = e;
+					break;
+				} finally {
+					// even a failed chunk may have been partly applied
+					evictMemberIdSet(listId);
+				}
+			}
+			if (interrupted) {
+				chunks.add(new Chunk(userIds, screenNames, Chunk.Status.SKIPPED, null, null));
+			} else if (failure != null) {
+				chunks.add(new Chunk(userIds, screenNames, Chunk.Status.FAILED, null, failure));
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return new ListMembershipReport(chunks);
+	}
+
 	private MultiValueMap<String, Object> buildListDataMap(String name,
 			String description, boolean isPublic) {
 		MultiValueMap<String, Object> request = new LinkedMultiValueMap<String, Object>();
@@ -291,4 +548,20 @@ class ListTemplate extends AbstractTwitterOperations implements ListOperations {
 	@SuppressWarnings("serial")
 	private static class UserSubscriptionList extends ArrayList<UserList> {}
 
+	/*
+	 * Creates a pacer for list membership changes made with one access token.
+	 */
+	static RateLimitPacer newMembershipPacer() {
+		return RateLimitPacer.perRateLimitWindow(MEMBERSHIP_CHUNKS_PER_WINDOW);
+	}
+
+	private static final int MAX_USERS_PER_PAGE = 5000;
+
+	private static final String MEMBERS_PATH = "lists/members.json";
+
+	private static final String SUBSCRIBERS_PATH = "lists/subscribers.json";
+
+	// Twitter doesn't publish a limit for list membership changes, so this errs on the side of caution
+	private static final int MEMBERSHIP_CHUNKS_PER_WINDOW = 180;
+
 }
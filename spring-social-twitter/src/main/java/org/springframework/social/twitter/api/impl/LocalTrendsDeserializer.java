@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TimeZone;
 
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParser;
@@ -58,11 +59,13 @@ class LocalTrendsDeserializer extends JsonDeserializer<LocalTrendsHolder> {
 		throw ctxt.mappingException(LocalTrendsHolder.class);
 	}
 	
-	private static final String LOCAL_TREND_DATE_FORMAT = "yyyy-mm-dd'T'HH:mm:ss'Z'";
+	private static final String LOCAL_TREND_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
 	private static Date toDate(String dateString) {
 		try {
-			return new SimpleDateFormat(LOCAL_TREND_DATE_FORMAT).parse(dateString);
+			SimpleDateFormat dateFormat = new SimpleDateFormat(LOCAL_TREND_DATE_FORMAT);
+			dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+			return dateFormat.parse(dateString);
 		} catch (ParseException e) {
 			return null;
 		}
@@ -26,6 +26,7 @@ import org.codehaus.jackson.annotate.JsonProperty;
 import org.codehaus.jackson.map.DeserializationContext;
 import org.codehaus.jackson.map.JsonDeserializer;
 import org.codehaus.jackson.map.annotate.JsonDeserialize;
+import org.springframework.social.twitter.api.BoundingBox;
 import org.springframework.social.twitter.api.PlaceType;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -39,7 +40,8 @@ class PlaceMixin {
 			@JsonProperty("attributes") @JsonDeserialize(using = StreetAddressDeserializer.class) String streetAddress,
 			@JsonProperty("country") String country, 
 			@JsonProperty("country_code") String countryCode, 
-			@JsonProperty("place_type") @JsonDeserialize(using = PlaceTypeDeserializer.class) PlaceType placeType) {}
+			@JsonProperty("place_type") @JsonDeserialize(using = PlaceTypeDeserializer.class) PlaceType placeType,
+			@JsonProperty("bounding_box") @JsonDeserialize(using = BoundingBoxDeserializer.class) BoundingBox boundingBox) {}
 	
 	private static class StreetAddressDeserializer extends JsonDeserializer<String> {
 		@Override
@@ -48,4 +50,40 @@ class PlaceMixin {
 			return tree.has("street_address") ? tree.get("street_address").asText() : null;
 		}
 	}
+
+	private static class BoundingBoxDeserializer extends JsonDeserializer<BoundingBox> {
+		@Override
+		public BoundingBox deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
+			JsonNode tree = jp.readValueAsTree();
+			double[] bounds = { Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+			if (!addCoordinates(tree.get("coordinates"), bounds)) {
+				return null;
+			}
+			return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]);
+		}
+
+		// GeoJSON coordinates are [longitude, latitude] pairs, nested in arrays as deep as the geometry needs
+		private boolean addCoordinates(JsonNode node, double[] bounds) {
+			if (node == null || !node.isArray() || node.size() == 0) {
+				return false;
+			}
+			if (node.get(0).isNumber()) {
+				if (node.size() < 2) {
+					return false;
+				}
+				double longitude = node.get(0).asDouble();
+				double latitude = node.get(1).asDouble();
+				bounds[0] = Math.min(bounds[0], latitude);
+				bounds[1] = Math.min(bounds[1], longitude);
+				bounds[2] = Math.max(bounds[2], latitude);
+				bounds[3] = Math.max(bounds[3], longitude);
+				return true;
+			}
+			boolean found = false;
+			for (JsonNode child : node) {
+				found |= addCoordinates(child, bounds);
+			}
+			return found;
+		}
+	}
 }
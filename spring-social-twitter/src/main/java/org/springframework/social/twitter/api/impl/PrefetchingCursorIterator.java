@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.social.twitter.api.CursoredList;
+
+/**
+ * Iterates over every item of a cursored Twitter resource, fetching the next page while the current one is being consumed.
+ * The next page is fetched in the background when the {@link BulkRequestExecutor} has a task executor; otherwise it is
+ * fetched on the calling thread when the current page runs out.
+ * @param <T> the item type
+ */
+abstract class PrefetchingCursorIterator<T> implements Iterator<T> {
+
+	private final BulkRequestExecutor executor;
+
+	private Iterator<T> currentPage;
+
+	private FutureTask<CursoredList<T>> nextPage;
+
+	public PrefetchingCursorIterator(BulkRequestExecutor executor) {
+		this.executor = executor;
+		this.nextPage = prefetch(-1);
+	}
+
+	/**
+	 * Fetches the page at the given cursor.
+	 */
+	protected abstract CursoredList<T> fetchPage(long cursor);
+
+	public boolean hasNext() {
+		while ((currentPage == null || !currentPage.hasNext()) && nextPage != null) {
+			CursoredList<T> page = await(nextPage);
+			nextPage = page.hasNext() ? prefetch(page.getNextCursor()) : null;
+			currentPage = page.iterator();
+		}
+		return currentPage != null && currentPage.hasNext();
+	}
+
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	// private helpers
+
+	private FutureTask<CursoredList<T>> prefetch(final long cursor) {
+		FutureTask<CursoredList<T>> task = new FutureTask<CursoredList<T>>(new Callable<CursoredList<T>>() {
+			public CursoredList<T> call() {
+				return fetchPage(cursor);
+			}
+		});
+		executor.prefetch(task);
+		return task;
+	}
+
+	private CursoredList<T> await(FutureTask<CursoredList<T>> task) {
+		// runs the task here unless it has already been started in the background
+		task.run();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			nextPage = null;
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new UncategorizedApiException("twitter", "Error fetching cursored page", cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.social.twitter.api.UserOperations;
+
+/**
+ * Remembers which screen name belongs to which user ID, in both directions, as profiles are bound from Twitter's responses.
+ * Used by {@link UserOperations#resolveUserIds(String...)} and {@link UserOperations#resolveScreenNames(long...)} to skip users/lookup
+ * for users that have been seen recently.
+ * Screen names are matched without regard to case. Users change their screen names, so entries expire after a timeout;
+ * the least recently used entries are evicted once the cache is full.
+ */
+class ScreenNameCache {
+
+	@SuppressWarnings("serial")
+	private final Map<Long, Mapping> byId = new LinkedHashMap<Long, Mapping>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Mapping> eldest) {
+			if (size() <= maxSize) {
+				return false;
+			}
+			unmapName(eldest.getValue());
+			return true;
+		}
+	};
+
+	private final Map<String, Mapping> byName = new HashMap<String, Mapping>();
+
+	private volatile long timeoutMillis = DEFAULT_TIMEOUT;
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+		if (timeoutMillis == 0) {
+			clear();
+		}
+	}
+
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		// trims the cache on the next put
+	}
+
+	public void put(long userId, String screenName) {
+		if (timeoutMillis == 0 || screenName == null) {
+			return;
+		}
+		String key = screenName.toLowerCase(Locale.ENGLISH);
+		synchronized (this) {
+			Mapping previous = byId.remove(userId);
+			if (previous != null) {
+				unmapName(previous);
+			}
+			Mapping nameTaken = byName.get(key);
+			if (nameTaken != null) {
+				// the screen name has moved to another user
+				byId.remove(nameTaken.userId);
+			}
+			Mapping entry = new Mapping(userId, screenName, key, System.currentTimeMillis());
+			byId.put(userId, entry);
+			byName.put(key, entry);
+		}
+	}
+
+	/**
+	 * The ID of the user with the given screen name, or -1 if it isn't known.
+	 */
+	public synchronized long getUserId(String screenName) {
+		Mapping entry = byName.get(screenName.toLowerCase(Locale.ENGLISH));
+		return isFresh(entry) ? entry.userId : -1;
+	}
+
+	/**
+	 * The screen name of the user with the given ID, or null if it isn't known.
+	 */
+	public synchronized String getScreenName(long userId) {
+		Mapping entry = byId.get(userId);
+		return isFresh(entry) ? entry.screenName : null;
+	}
+
+	public synchronized void clear() {
+		byId.clear();
+		byName.clear();
+	}
+
+	// private helpers
+
+	private boolean isFresh(Mapping entry) {
+		return entry != null && System.currentTimeMillis() - entry.fetchTime < timeoutMillis;
+	}
+
+	private void unmapName(Mapping entry) {
+		if (byName.get(entry.key) == entry) {
+			byName.remove(entry.key);
+		}
+	}
+
+	private static class Mapping {
+
+		private final long userId;
+
+		private final String screenName;
+
+		private final String key;
+
+		private final long fetchTime;
+
+		public Mapping(long userId, String screenName, String key, long fetchTime) {
+			this.userId = userId;
+			this.screenName = screenName;
+			this.key = key;
+			this.fetchTime = fetchTime;
+		}
+
+	}
+
+	static final long DEFAULT_TIMEOUT = 60 * 60 * 1000;
+
+	static final int DEFAULT_MAX_SIZE = 100000;
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+import org.springframework.social.twitter.api.DirectMessage;
+import org.springframework.social.twitter.api.SearchResults;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.social.twitter.api.TwitterProfile;
+
+/**
+ * JSON message converter that records the screen name and ID of every user it reads (whether as a profile, or as the author of a tweet or
+ * direct message) in a {@link ScreenNameCache}.
+ */
+class ScreenNameRecordingMessageConverter extends MappingJacksonHttpMessageConverter {
+
+	private final ScreenNameCache screenNameCache = new ScreenNameCache();
+
+	public ScreenNameCache getScreenNameCache() {
+		return screenNameCache;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		Object value = super.read(type, contextClass, inputMessage);
+		record(value);
+		return value;
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		Object value = super.readInternal(clazz, inputMessage);
+		record(value);
+		return value;
+	}
+
+	// private helpers
+
+	private void record(Object value) {
+		if (value instanceof TwitterProfile) {
+			TwitterProfile profile = (TwitterProfile) value;
+			screenNameCache.put(profile.getId(), profile.getScreenName());
+		} else if (value instanceof Tweet) {
+			Tweet tweet = (Tweet) value;
+			if (tweet.getUser() != null) {
+				record(tweet.getUser());
+			} else if (tweet.getFromUserId() > 0) {
+				screenNameCache.put(tweet.getFromUserId(), tweet.getFromUser());
+			}
+			if (tweet.getRetweetedStatus() != null) {
+				record(tweet.getRetweetedStatus());
+			}
+		} else if (value instanceof DirectMessage) {
+			DirectMessage message = (DirectMessage) value;
+			record(message.getSender());
+			record(message.getRecipient());
+		} else if (value instanceof SearchResults) {
+			record(((SearchResults) value).getTweets());
+		} else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				record(element);
+			}
+		}
+	}
+
+}
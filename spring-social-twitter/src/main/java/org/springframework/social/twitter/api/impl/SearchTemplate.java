@@ -16,12 +16,18 @@
 package org.springframework.social.twitter.api.impl;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.springframework.social.twitter.api.CursoredList;
 import org.springframework.social.twitter.api.SavedSearch;
 import org.springframework.social.twitter.api.SearchOperations;
 import org.springframework.social.twitter.api.SearchResults;
 import org.springframework.social.twitter.api.Trends;
+import org.springframework.social.twitter.api.Tweet;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -35,9 +41,12 @@ class SearchTemplate extends AbstractTwitterOperations implements SearchOperatio
 
 	private final RestTemplate restTemplate;
 
-	public SearchTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	public SearchTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, boolean isAuthorizedForUser) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.bulkRequestExecutor = bulkRequestExecutor;
 	}
 
 	public SearchResults search(String query) {
@@ -65,6 +74,49 @@ class SearchTemplate extends AbstractTwitterOperations implements SearchOperatio
 		return restTemplate.getForObject(buildUri("search/tweets.json", parameters),SearchResults.class);
 	}
 
+	public Iterator<Tweet> iterateSearch(SearchParameters searchParameters) {
+		return iterateSearch(searchParameters, Integer.MAX_VALUE);
+	}
+
+	public Iterator<Tweet> iterateSearch(SearchParameters searchParameters, final int maxResults) {
+		requireAuthorization();
+		Assert.notNull(searchParameters);
+		Assert.isTrue(maxResults > 0, "The maximum number of results must be greater than zero");
+		final MultiValueMap<String, String> parameters = buildQueryParametersFromSearchParameters(searchParameters);
+		final int pageSize = searchParameters.getCount() != null ? searchParameters.getCount() : MAX_RESULTS_PER_PAGE;
+		final long initialMaxId = searchParameters.getMaxId() != null ? searchParameters.getMaxId() : 0;
+		return new PrefetchingCursorIterator<Tweet>(bulkRequestExecutor) {
+			// pages are fetched one at a time, so this state is never touched by two threads at once
+			private int resultCount;
+
+			// a tweet is only ever repeated by the page right after the one it first appeared on
+			private Set<Long> previousPageIds = new HashSet<Long>();
+
+			protected CursoredList<Tweet> fetchPage(long cursor) {
+				long maxId = cursor == -1 ? initialMaxId : cursor;
+				MultiValueMap<String, String> pageParameters = new LinkedMultiValueMap<String, String>(parameters);
+				pageParameters.set("count", String.valueOf(Math.min(pageSize, maxResults - resultCount)));
+				if (maxId > 0) {
+					pageParameters.set("max_id", String.valueOf(maxId));
+				}
+				List<Tweet> tweets = restTemplate.getForObject(buildUri("search/tweets.json", pageParameters), SearchResults.class).getTweets();
+				List<Tweet> page = new ArrayList<Tweet>(tweets.size());
+				Set<Long> pageIds = new HashSet<Long>();
+				long minId = Long.MAX_VALUE;
+				for (Tweet tweet : tweets) {
+					minId = Math.min(minId, tweet.getId());
+					if (resultCount < maxResults && !previousPageIds.contains(tweet.getId()) && pageIds.add(tweet.getId())) {
+						page.add(tweet);
+						resultCount++;
+					}
+				}
+				previousPageIds = pageIds;
+				boolean more = !tweets.isEmpty() && resultCount < maxResults && minId > 1;
+				return new CursoredList<Tweet>(page, cursor, more ? minId - 1 : 0);
+			}
+		};
+	}
+
 	public List<SavedSearch> getSavedSearches() {
 		requireAuthorization();
 		return restTemplate.getForObject(buildUri("saved_searches/list.json"), SavedSearchList.class);
@@ -137,4 +189,6 @@ class SearchTemplate extends AbstractTwitterOperations implements SearchOperatio
 	}
 
 	static final int DEFAULT_RESULTS_PER_PAGE = 50;
+
+	static final int MAX_RESULTS_PER_PAGE = 100;
 }
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.core.io.Resource;
+import org.springframework.social.twitter.api.LookupResult;
 import org.springframework.social.twitter.api.StatusDetails;
 import org.springframework.social.twitter.api.TimelineOperations;
 import org.springframework.social.twitter.api.Tweet;
@@ -34,9 +35,12 @@ class TimelineTemplate extends AbstractTwitterOperations implements TimelineOper
 	
 	private final RestTemplate restTemplate;
 
-	public TimelineTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	public TimelineTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, boolean isAuthorizedForUser) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.bulkRequestExecutor = bulkRequestExecutor;
 	}
 
 	public List<Tweet> getHomeTimeline() {
@@ -137,6 +141,13 @@ class TimelineTemplate extends AbstractTwitterOperations implements TimelineOper
 		return restTemplate.getForObject(buildUri("statuses/show/" + tweetId + ".json", parameters), Tweet.class);
 	}
 
+	public LookupResult<Tweet> getStatuses(long... tweetIds) {
+		requireAuthorization();
+		StatusLookup lookup = new StatusLookup();
+		List<Tweet> tweets = lookup.lookup(tweetIds);
+		return new LookupResult<Tweet>(tweetIds, lookup.getIds(tweets), tweets);
+	}
+
 	public Tweet updateStatus(String message) {
 		return updateStatus(message, new StatusDetails());
 	}
@@ -214,5 +225,24 @@ class TimelineTemplate extends AbstractTwitterOperations implements TimelineOper
 
 	@SuppressWarnings("serial")
 	private static class TweetList extends ArrayList<Tweet> {}
+
+	private class StatusLookup extends ChunkedLookup<Tweet> {
+
+		public StatusLookup() {
+			super(bulkRequestExecutor);
+		}
+
+		protected List<Tweet> fetchChunk(String joinedIds) {
+			MultiValueMap<String, String> parameters = new LinkedMultiValueMap<String, String>();
+			parameters.set("id", joinedIds);
+			parameters.set("include_entities", "true");
+			return restTemplate.getForObject(buildUri("statuses/lookup.json", parameters), TweetList.class);
+		}
+
+		protected long getId(Tweet tweet) {
+			return tweet.getId();
+		}
+
+	}
 	
 }
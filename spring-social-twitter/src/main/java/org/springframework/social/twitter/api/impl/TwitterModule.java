@@ -17,6 +17,7 @@ package org.springframework.social.twitter.api.impl;
 
 import org.codehaus.jackson.Version;
 import org.codehaus.jackson.map.module.SimpleModule;
+import org.springframework.social.twitter.api.CursoredIdPage;
 import org.springframework.social.twitter.api.DirectMessage;
 import org.springframework.social.twitter.api.Entities;
 import org.springframework.social.twitter.api.HashTagEntity;
@@ -60,6 +61,7 @@ class TwitterModule extends SimpleModule {
 		context.setMixInAnnotations(MediaEntity.class, MediaEntityMixin.class);
 		context.setMixInAnnotations(MentionEntity.class, MentionEntityMixin.class);
 		context.setMixInAnnotations(UrlEntity.class, UrlEntityMixin.class);
+		context.setMixInAnnotations(CursoredIdPage.class, CursoredIdPageMixin.class);
 	}
 
 }
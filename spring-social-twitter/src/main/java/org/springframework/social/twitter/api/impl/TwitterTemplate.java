@@ -15,7 +15,13 @@
  */
 package org.springframework.social.twitter.api.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
 import org.springframework.social.NotAuthorizedException;
 import org.springframework.social.oauth1.AbstractOAuth1ApiBinding;
@@ -24,10 +30,13 @@ import org.springframework.social.twitter.api.DirectMessageOperations;
 import org.springframework.social.twitter.api.FriendOperations;
 import org.springframework.social.twitter.api.GeoOperations;
 import org.springframework.social.twitter.api.ListOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
 import org.springframework.social.twitter.api.SearchOperations;
 import org.springframework.social.twitter.api.TimelineOperations;
 import org.springframework.social.twitter.api.Twitter;
 import org.springframework.social.twitter.api.UserOperations;
+import org.springframework.util.Assert;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
@@ -46,26 +55,46 @@ import org.springframework.web.client.RestTemplate;
  * Attempts to perform secured operations through such an instance, however,
  * will result in {@link NotAuthorizedException} being thrown.
  * </p>
+ * <p>
+ * Applications creating TwitterTemplates for many users should create them through a {@link TwitterTemplateFactory},
+ * which shares the templates' message converters, error handler and caches.
+ * </p>
  * @author Craig Walls
  */
 public class TwitterTemplate extends AbstractOAuth1ApiBinding implements Twitter {
 	
-	private TimelineOperations timelineOperations;
+	private volatile TimelineOperations timelineOperations;
 
-	private UserOperations userOperations;
+	private volatile UserOperations userOperations;
 
-	private FriendOperations friendOperations;
+	private volatile FriendOperations friendOperations;
 
-	private ListOperations listOperations;
+	private volatile ListOperations listOperations;
 
-	private SearchOperations searchOperations;
+	private volatile SearchOperations searchOperations;
 
-	private DirectMessageOperations directMessageOperations;
+	private volatile DirectMessageOperations directMessageOperations;
 	
-	private BlockOperations blockOperations;
+	private volatile BlockOperations blockOperations;
 	
-	private GeoOperations geoOperations;
+	private volatile GeoOperations geoOperations;
+
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	private final RateLimitPacer listMembershipPacer;
+
+	private final GeoCache geoCache;
+
+	private final UserIdSetCache userIdSetCache;
+
+	private final String userIdSetCacheScope;
+
+	private ScreenNameCache screenNameCache;
 
+	private final Object subApiMonitor = new Object();
+
+	// false while AbstractOAuth1ApiBinding's constructor runs, as fields are only assigned after it returns
+	private boolean constructed;
 
 	/**
 	 * Create a new instance of TwitterTemplate.
@@ -76,6 +105,12 @@ public class TwitterTemplate extends AbstractOAuth1ApiBinding implements Twitter
 	 */
 	public TwitterTemplate() {
 		super();
+		installOwnMessageConverters();
+		this.bulkRequestExecutor = new BulkRequestExecutor();
+		this.listMembershipPacer = ListTemplate.newMembershipPacer();
+		this.geoCache = new GeoCache();
+		this.userIdSetCache = new UserIdSetCache();
+		this.userIdSetCacheScope = "";
 		initSubApis();
 	}
 
@@ -88,38 +123,126 @@ public class TwitterTemplate extends AbstractOAuth1ApiBinding implements Twitter
 	 */
 	public TwitterTemplate(String consumerKey, String consumerSecret, String accessToken, String accessTokenSecret) {
 		super(consumerKey, consumerSecret, accessToken, accessTokenSecret);
+		installOwnMessageConverters();
+		this.bulkRequestExecutor = new BulkRequestExecutor();
+		this.listMembershipPacer = ListTemplate.newMembershipPacer();
+		this.geoCache = new GeoCache();
+		this.userIdSetCache = new UserIdSetCache();
+		this.userIdSetCacheScope = "";
+		initSubApis();
+	}
+
+	/*
+	 * Creates a template sharing the given factory's message converters, error handler, request factory and caches.
+	 */
+	TwitterTemplate(TwitterTemplateFactory factory) {
+		super();
+		this.bulkRequestExecutor = factory.getBulkRequestExecutor();
+		this.listMembershipPacer = ListTemplate.newMembershipPacer();
+		this.geoCache = factory.getGeoCache();
+		this.userIdSetCache = factory.getUserIdSetCache();
+		this.userIdSetCacheScope = "";
+		shareRestTemplateParts(factory);
+		initSubApis();
+	}
+
+	TwitterTemplate(TwitterTemplateFactory factory, String accessToken, String accessTokenSecret) {
+		super(factory.getConsumerKey(), factory.getConsumerSecret(), accessToken, accessTokenSecret);
+		this.bulkRequestExecutor = factory.getBulkRequestExecutor();
+		// templates created for the same user share a pacer, as they share the user's limits
+		this.listMembershipPacer = factory.getListMembershipPacer(accessToken);
+		this.geoCache = factory.getGeoCache();
+		this.userIdSetCache = factory.getUserIdSetCache();
+		this.userIdSetCacheScope = accessToken;
+		shareRestTemplateParts(factory);
 		initSubApis();
 	}
 
 	public TimelineOperations timelineOperations() {
+		if (timelineOperations == null) {
+			synchronized (subApiMonitor) {
+				if (timelineOperations == null) {
+					timelineOperations = new TimelineTemplate(getRestTemplate(), bulkRequestExecutor, isAuthorized());
+				}
+			}
+		}
 		return timelineOperations;
 	}
 
 	public FriendOperations friendOperations() {
+		if (friendOperations == null) {
+			synchronized (subApiMonitor) {
+				if (friendOperations == null) {
+					friendOperations = new FriendTemplate(getRestTemplate(), bulkRequestExecutor, isAuthorized());
+				}
+			}
+		}
 		return friendOperations;
 	}
 
 	public ListOperations listOperations() {
+		if (listOperations == null) {
+			synchronized (subApiMonitor) {
+				if (listOperations == null) {
+					listOperations = new ListTemplate(getRestTemplate(), bulkRequestExecutor, isAuthorized(), listMembershipPacer, userIdSetCache, userIdSetCacheScope);
+				}
+			}
+		}
 		return listOperations;
 	}
 
 	public SearchOperations searchOperations() {
+		if (searchOperations == null) {
+			synchronized (subApiMonitor) {
+				if (searchOperations == null) {
+					searchOperations = new SearchTemplate(getRestTemplate(), bulkRequestExecutor, isAuthorized());
+				}
+			}
+		}
 		return searchOperations;
 	}
 
 	public DirectMessageOperations directMessageOperations() {
+		if (directMessageOperations == null) {
+			synchronized (subApiMonitor) {
+				if (directMessageOperations == null) {
+					directMessageOperations = new DirectMessageTemplate(getRestTemplate(), isAuthorized());
+				}
+			}
+		}
 		return directMessageOperations;
 	}
 
 	public UserOperations userOperations() {
+		if (userOperations == null) {
+			synchronized (subApiMonitor) {
+				if (userOperations == null) {
+					userOperations = new UserTemplate(getRestTemplate(), bulkRequestExecutor, screenNameCache, isAuthorized());
+				}
+			}
+		}
 		return userOperations;
 	}
 	
 	public BlockOperations blockOperations() {
+		if (blockOperations == null) {
+			synchronized (subApiMonitor) {
+				if (blockOperations == null) {
+					blockOperations = new BlockTemplate(getRestTemplate(), isAuthorized());
+				}
+			}
+		}
 		return blockOperations;
 	}
 	
 	public GeoOperations geoOperations() {
+		if (geoOperations == null) {
+			synchronized (subApiMonitor) {
+				if (geoOperations == null) {
+					geoOperations = new GeoTemplate(getRestTemplate(), isAuthorized(), geoCache);
+				}
+			}
+		}
 		return geoOperations;
 	}
 	
@@ -127,11 +250,116 @@ public class TwitterTemplate extends AbstractOAuth1ApiBinding implements Twitter
 		return getRestTemplate();
 	}
 
+	/**
+	 * Sets the {@link TaskExecutor} used to request the chunks of bulk operations concurrently.
+	 * Bulk operations, such as {@link UserOperations#getUsers(long...)} for more than 100 users, are split into several requests.
+	 * By default, those requests are made one after another on the calling thread.
+	 * @param taskExecutor the task executor to run bulk request chunks on
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		bulkRequestExecutor.setTaskExecutor(taskExecutor);
+	}
+
+	/**
+	 * Sets the maximum number of chunks of a single bulk operation that may be requested at the same time.
+	 * Only applies if a {@link #setTaskExecutor(TaskExecutor) task executor} has been set. Defaults to 10.
+	 * @param concurrencyLimit the maximum number of concurrent requests per bulk operation
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		bulkRequestExecutor.setConcurrencyLimit(concurrencyLimit);
+	}
+
+	/**
+	 * Sets the pacer for the requests made by bulk list membership changes, such as {@link ListOperations#addMembers(long, long...)}.
+	 * By default, at most 180 such requests are made per 15 minutes. Templates created by a {@link TwitterTemplateFactory} for the same
+	 * access token share the default pacer.
+	 * @param membershipPacer the pacer for list membership changes
+	 */
+	public void setListMembershipPacer(RateLimitPacer membershipPacer) {
+		Assert.notNull(membershipPacer, "RateLimitPacer must not be null");
+		((ListTemplate) listOperations()).setMembershipPacer(membershipPacer);
+	}
+
+	/**
+	 * Sets how long the member and subscriber sets returned by {@link ListOperations#getMemberIdSet(long)} and
+	 * {@link ListOperations#getSubscriberIdSet(long)} are cached before being fetched again. Defaults to 5 minutes.
+	 * The cache of a template created by a {@link TwitterTemplateFactory} is shared by every template created by that factory,
+	 * each seeing only the sets fetched with its access token.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 */
+	public void setListMembershipCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		userIdSetCache.setTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Sets how long places and place lookups made through {@link GeoOperations} are cached. By default, nothing is cached.
+	 * Cached place lookups are shared by nearby coordinates, so enabling the cache trades some precision for far fewer requests.
+	 * The cache of a template created by a {@link TwitterTemplateFactory} is shared by every template created by that factory.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 */
+	public void setGeoCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		geoCache.setTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Sets how long the screen names and IDs of the users seen in Twitter's responses are remembered, for
+	 * {@link UserOperations#resolveUserIds(String...)} and {@link UserOperations#resolveScreenNames(long...)}. Defaults to 1 hour.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 */
+	public void setScreenNameCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		screenNameCache.setTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Sets the maximum number of users whose screen names and IDs are remembered. Defaults to 100,000.
+	 * @param maxSize the maximum number of users
+	 */
+	public void setScreenNameCacheSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "The cache size must be greater than zero");
+		screenNameCache.setMaxSize(maxSize);
+	}
+
+	/**
+	 * Sets how long the authenticated user's profile, as returned by {@link UserOperations#getUserProfile()}, is remembered.
+	 * {@link UserOperations#getProfileId()} and {@link UserOperations#getScreenName()} share it, so that a connect or sign-in flow
+	 * asking who the user is several times makes a single request. Defaults to 1 minute.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 */
+	public void setUserProfileCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		((UserTemplate) userOperations()).setProfileCacheTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Forgets the authenticated user's profile, so that the next request for it goes to Twitter.
+	 * Call this after changing the user's profile by other means.
+	 */
+	public void evictUserProfile() {
+		UserOperations userOperations = this.userOperations;
+		if (userOperations != null) {
+			((UserTemplate) userOperations).evictUserProfile();
+		}
+	}
+
 	// AbstractOAuth1ApiBinding hooks
-	
+
+	@Override
+	protected List<HttpMessageConverter<?>> getMessageConverters() {
+		if (!constructed) {
+			// the converters asked for while the base class is constructed are replaced right after, so none are built for it
+			List<HttpMessageConverter<?>> placeholder = new ArrayList<HttpMessageConverter<?>>(1);
+			placeholder.add(PLACEHOLDER_CONVERTER);
+			return placeholder;
+		}
+		return super.getMessageConverters();
+	}
+
 	@Override
 	protected MappingJacksonHttpMessageConverter getJsonMessageConverter() {
-		MappingJacksonHttpMessageConverter converter = super.getJsonMessageConverter();
+		MappingJacksonHttpMessageConverter converter = new ScreenNameRecordingMessageConverter();
 		ObjectMapper objectMapper = new ObjectMapper();				
 		objectMapper.registerModule(new TwitterModule());
 		converter.setObjectMapper(objectMapper);		
@@ -140,20 +368,43 @@ public class TwitterTemplate extends AbstractOAuth1ApiBinding implements Twitter
 	
 	@Override
 	protected void configureRestTemplate(RestTemplate restTemplate) {
-		restTemplate.setErrorHandler(new TwitterErrorHandler());
+		restTemplate.setErrorHandler(ERROR_HANDLER);
 	}
 	
 	// private helper 
 
-    private void initSubApis() {
-		this.userOperations = new UserTemplate(getRestTemplate(), isAuthorized());
-		this.directMessageOperations = new DirectMessageTemplate(getRestTemplate(), isAuthorized());
-		this.friendOperations = new FriendTemplate(getRestTemplate(), isAuthorized());
-		this.listOperations = new ListTemplate(getRestTemplate(), isAuthorized());
-		this.timelineOperations = new TimelineTemplate(getRestTemplate(), isAuthorized());
-		this.searchOperations = new SearchTemplate(getRestTemplate(), isAuthorized());
-		this.blockOperations = new BlockTemplate(getRestTemplate(), isAuthorized());
-		this.geoOperations = new GeoTemplate(getRestTemplate(), isAuthorized());
+	private void installOwnMessageConverters() {
+		this.constructed = true;
+		getRestTemplate().setMessageConverters(getMessageConverters());
 	}
 
+	private void shareRestTemplateParts(TwitterTemplateFactory factory) {
+		// AbstractOAuth1ApiBinding may have built a request factory of its own, which is replaced before first use
+		this.constructed = true;
+		RestTemplate restTemplate = getRestTemplate();
+		restTemplate.setMessageConverters(new ArrayList<HttpMessageConverter<?>>(factory.getMessageConverters()));
+		restTemplate.setErrorHandler(factory.getErrorHandler());
+		restTemplate.setRequestFactory(factory.getRequestFactory());
+	}
+
+	private void initSubApis() {
+		// the operations themselves are created on first use, as most requests only need one or two of them
+		this.screenNameCache = findScreenNameCache();
+	}
+
+	private ScreenNameCache findScreenNameCache() {
+		for (HttpMessageConverter<?> converter : getRestTemplate().getMessageConverters()) {
+			if (converter instanceof ScreenNameRecordingMessageConverter) {
+				return ((ScreenNameRecordingMessageConverter) converter).getScreenNameCache();
+			}
+		}
+		// a subclass has replaced the JSON converter, so nothing is remembered and every user is looked up
+		return new ScreenNameCache();
+	}
+
+	private static final HttpMessageConverter<String> PLACEHOLDER_CONVERTER = new StringHttpMessageConverter();
+
+	// stateless, so shared by all templates
+	private static final ResponseErrorHandler ERROR_HANDLER = new TwitterErrorHandler();
+
 }
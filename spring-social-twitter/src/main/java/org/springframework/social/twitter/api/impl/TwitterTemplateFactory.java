@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.social.support.ClientHttpRequestFactorySelector;
+import org.springframework.social.twitter.api.GeoOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.UserOperations;
+import org.springframework.util.Assert;
+import org.springframework.web.client.ResponseErrorHandler;
+
+/**
+ * Creates {@link TwitterTemplate}s for many users of one application that share everything but their credentials.
+ * A TwitterTemplate created through its constructors builds its own message converters, Jackson ObjectMapper, error handler and caches.
+ * A TwitterTemplate created by a factory shares the factory's instead, including one {@link ObjectMapper} with Twitter's mixins registered,
+ * one screen name cache, one cache of places, one cache of list member and subscriber sets (kept apart for each access token)
+ * and one {@link ClientHttpRequestFactory} with its connection pool.
+ * Templates created for the same access token also share the pacer for bulk list membership changes, so that creating a template per
+ * request doesn't defeat it.
+ * A template created by a factory builds no message converters or ObjectMapper of its own, which makes up most of the cost of
+ * creating one through its constructors. It still gets a RestTemplate of its own from {@link org.springframework.social.oauth1.AbstractOAuth1ApiBinding},
+ * along with whatever request factory the base class builds for it before the shared one replaces it; the default message converters
+ * that RestTemplate's constructor builds are most of what a template created by a factory still costs.
+ * <p>
+ * Settings changed through the shared parts of a template created by a factory, such as {@link TwitterTemplate#setTaskExecutor(TaskExecutor)},
+ * {@link TwitterTemplate#setScreenNameCacheTimeout(long)}, {@link TwitterTemplate#setGeoCacheTimeout(long)} and
+ * {@link TwitterTemplate#setListMembershipCacheTimeout(long)}, apply to every template created by that factory.
+ * A factory is safe for use by multiple threads.
+ */
+public class TwitterTemplateFactory {
+
+	private final String consumerKey;
+
+	private final String consumerSecret;
+
+	private final ScreenNameRecordingMessageConverter jsonMessageConverter;
+
+	private final List<HttpMessageConverter<?>> messageConverters;
+
+	private final ResponseErrorHandler errorHandler = new TwitterErrorHandler();
+
+	private final BulkRequestExecutor bulkRequestExecutor = new BulkRequestExecutor();
+
+	private final GeoCache geoCache = new GeoCache();
+
+	private final UserIdSetCache userIdSetCache = new UserIdSetCache();
+
+	private volatile ClientHttpRequestFactory requestFactory = ClientHttpRequestFactorySelector.getRequestFactory();
+
+	@SuppressWarnings("serial")
+	private final Map<String, RateLimitPacer> listMembershipPacers = new LinkedHashMap<String, RateLimitPacer>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, RateLimitPacer> eldest) {
+			return size() > MAX_PACED_ACCESS_TOKENS;
+		}
+	};
+
+	/**
+	 * Creates a factory for templates that make requests on behalf of the given application.
+	 * @param consumerKey the application's API key
+	 * @param consumerSecret the application's API secret
+	 */
+	public TwitterTemplateFactory(String consumerKey, String consumerSecret) {
+		this.consumerKey = consumerKey;
+		this.consumerSecret = consumerSecret;
+		this.jsonMessageConverter = new ScreenNameRecordingMessageConverter();
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.registerModule(new TwitterModule());
+		jsonMessageConverter.setObjectMapper(objectMapper);
+		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
+		messageConverters.add(new StringHttpMessageConverter());
+		messageConverters.add(new FormHttpMessageConverter());
+		messageConverters.add(jsonMessageConverter);
+		messageConverters.add(new ByteArrayHttpMessageConverter());
+		this.messageConverters = Collections.unmodifiableList(messageConverters);
+	}
+
+	/**
+	 * Creates a template that makes requests on behalf of the user who was issued the given access token.
+	 * @param accessToken an access token acquired through OAuth authentication with Twitter
+	 * @param accessTokenSecret an access token secret acquired through OAuth authentication with Twitter
+	 */
+	public TwitterTemplate createTemplate(String accessToken, String accessTokenSecret) {
+		return new TwitterTemplate(this, accessToken, accessTokenSecret);
+	}
+
+	/**
+	 * Creates a template able to perform unauthenticated operations only.
+	 */
+	public TwitterTemplate createTemplate() {
+		return new TwitterTemplate(this);
+	}
+
+	/**
+	 * Sets the request factory shared by the templates created from now on, so that they share its connection pool.
+	 * By default, the templates share a request factory chosen as Spring Social chooses one for each API binding,
+	 * backed by Apache HttpComponents if it is available. Set one with a larger pool if many requests are made at once.
+	 * @param requestFactory the request factory
+	 */
+	public void setRequestFactory(ClientHttpRequestFactory requestFactory) {
+		Assert.notNull(requestFactory, "The request factory must not be null");
+		this.requestFactory = requestFactory;
+	}
+
+	/**
+	 * Sets the {@link TaskExecutor} used by every template created by this factory to request the chunks of bulk operations concurrently.
+	 * @param taskExecutor the task executor to run bulk request chunks on
+	 * @see TwitterTemplate#setTaskExecutor(TaskExecutor)
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		bulkRequestExecutor.setTaskExecutor(taskExecutor);
+	}
+
+	/**
+	 * Sets the maximum number of chunks of a single bulk operation that may be requested at the same time. Defaults to 10.
+	 * @param concurrencyLimit the maximum number of concurrent requests per bulk operation
+	 * @see TwitterTemplate#setConcurrencyLimit(int)
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		bulkRequestExecutor.setConcurrencyLimit(concurrencyLimit);
+	}
+
+	/**
+	 * Sets how long the screen names and IDs of the users seen in Twitter's responses are remembered, for
+	 * {@link UserOperations#resolveUserIds(String...)} and {@link UserOperations#resolveScreenNames(long...)}. Defaults to 1 hour.
+	 * The screen names seen by any template created by this factory are shared by all of them.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 */
+	public void setScreenNameCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		jsonMessageConverter.getScreenNameCache().setTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Sets the maximum number of users whose screen names and IDs are remembered. Defaults to 100,000.
+	 * @param maxSize the maximum number of users
+	 */
+	public void setScreenNameCacheSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "The cache size must be greater than zero");
+		jsonMessageConverter.getScreenNameCache().setMaxSize(maxSize);
+	}
+
+	/**
+	 * Sets how long places and place lookups made through {@link GeoOperations} are cached. By default, nothing is cached.
+	 * The places looked up by any template created by this factory are shared by all of them.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 * @see TwitterTemplate#setGeoCacheTimeout(long)
+	 */
+	public void setGeoCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		geoCache.setTimeout(timeoutMillis);
+	}
+
+	/**
+	 * Sets how long list member and subscriber sets are cached before being fetched again. Defaults to 5 minutes.
+	 * @param timeoutMillis the cache timeout, in milliseconds; 0 disables caching
+	 * @see TwitterTemplate#setListMembershipCacheTimeout(long)
+	 */
+	public void setListMembershipCacheTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		userIdSetCache.setTimeout(timeoutMillis);
+	}
+
+	// package-level accessors used by TwitterTemplate
+
+	String getConsumerKey() {
+		return consumerKey;
+	}
+
+	String getConsumerSecret() {
+		return consumerSecret;
+	}
+
+	List<HttpMessageConverter<?>> getMessageConverters() {
+		return messageConverters;
+	}
+
+	ResponseErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	BulkRequestExecutor getBulkRequestExecutor() {
+		return bulkRequestExecutor;
+	}
+
+	GeoCache getGeoCache() {
+		return geoCache;
+	}
+
+	UserIdSetCache getUserIdSetCache() {
+		return userIdSetCache;
+	}
+
+	ScreenNameCache getScreenNameCache() {
+		return jsonMessageConverter.getScreenNameCache();
+	}
+
+	RateLimitPacer getListMembershipPacer(String accessToken) {
+		synchronized (listMembershipPacers) {
+			RateLimitPacer pacer = listMembershipPacers.get(accessToken);
+			if (pacer == null) {
+				pacer = ListTemplate.newMembershipPacer();
+				listMembershipPacers.put(accessToken, pacer);
+			}
+			return pacer;
+		}
+	}
+
+	// the least recently used access tokens lose their pacers, which only matters for users changing lists at that very moment
+	private static final int MAX_PACED_ACCESS_TOKENS = 10000;
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.social.twitter.api.UserIdSet;
+
+/**
+ * Caches the member and subscriber sets of lists, as returned by {@link ListTemplate#getMemberIdSet(long)} and
+ * {@link ListTemplate#getSubscriberIdSet(long)}.
+ * Templates prefix their keys with a scope, so that one cache may be shared by the templates of many users: a template created by a
+ * {@link TwitterTemplateFactory} uses its access token, as a list's members may look different to different users.
+ * Each cache holds at most {@link #MAX_ENTRIES} sets, evicting the least recently used.
+ */
+class UserIdSetCache {
+
+	@SuppressWarnings("serial")
+	private final Map<String, CachedUserIdSet> sets = new LinkedHashMap<String, CachedUserIdSet>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedUserIdSet> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	// incremented by every eviction, so that a fetch that overlaps one doesn't cache what may be a stale member set
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private volatile long timeoutMillis = DEFAULT_TIMEOUT;
+
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public boolean isFresh(CachedUserIdSet cached) {
+		return System.currentTimeMillis() - cached.fetchTime < timeoutMillis;
+	}
+
+	public CachedUserIdSet get(String key) {
+		synchronized (sets) {
+			return sets.get(key);
+		}
+	}
+
+	/**
+	 * The number of evictions so far, to be passed to {@link #put(String, UserIdSet, long, long)} by a fetch starting now.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Caches a fetched set, unless an eviction has happened since the fetch started.
+	 */
+	public void put(String key, UserIdSet userIds, long fetchTime, long evictionsBefore) {
+		CachedUserIdSet cached = new CachedUserIdSet(userIds, fetchTime);
+		synchronized (sets) {
+			if (evictionCount.get() == evictionsBefore) {
+				sets.put(key, cached);
+			}
+		}
+	}
+
+	public void evict(String key) {
+		synchronized (sets) {
+			evictionCount.incrementAndGet();
+			sets.remove(key);
+		}
+	}
+
+	static class CachedUserIdSet {
+
+		final UserIdSet userIds;
+
+		private final long fetchTime;
+
+		// set while one caller refreshes a stale set, so that the others carry on with the stale one
+		final AtomicBoolean refreshing = new AtomicBoolean();
+
+		public CachedUserIdSet(UserIdSet userIds, long fetchTime) {
+			this.userIds = userIds;
+			this.fetchTime = fetchTime;
+		}
+
+	}
+
+	static final long DEFAULT_TIMEOUT = 5 * 60 * 1000;
+
+	// a set holds 8 bytes per user, so a cache full of large lists can take tens of megabytes
+	static final int MAX_ENTRIES = 1000;
+
+}
@@ -15,9 +15,15 @@
  */
 package org.springframework.social.twitter.api.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import org.springframework.social.twitter.api.LookupResult;
 import org.springframework.social.twitter.api.RateLimitStatus;
 import org.springframework.social.twitter.api.ResourceFamily;
 import org.springframework.social.twitter.api.SuggestionCategory;
@@ -34,9 +40,28 @@ class UserTemplate extends AbstractTwitterOperations implements UserOperations {
 	
 	private final RestTemplate restTemplate;
 
-	public UserTemplate(RestTemplate restTemplate, boolean isAuthorizedForUser) {
+	private final BulkRequestExecutor bulkRequestExecutor;
+
+	private final ScreenNameCache screenNameCache;
+
+	private volatile CachedProfile cachedProfile;
+
+	private volatile long profileCacheTimeout = DEFAULT_PROFILE_CACHE_TIMEOUT;
+
+	public UserTemplate(RestTemplate restTemplate, BulkRequestExecutor bulkRequestExecutor, ScreenNameCache screenNameCache, boolean isAuthorizedForUser) {
 		super(isAuthorizedForUser);
 		this.restTemplate = restTemplate;
+		this.bulkRequestExecutor = bulkRequestExecutor;
+		this.screenNameCache = screenNameCache;
+	}
+
+	void setProfileCacheTimeout(long profileCacheTimeout) {
+		this.profileCacheTimeout = profileCacheTimeout;
+		evictUserProfile();
+	}
+
+	void evictUserProfile() {
+		cachedProfile = null;
 	}
 
 	public long getProfileId() {
@@ -51,7 +76,15 @@ class UserTemplate extends AbstractTwitterOperations implements UserOperations {
 
 	public TwitterProfile getUserProfile() {
 		requireAuthorization();
-		return restTemplate.getForObject(buildUri("account/verify_credentials.json"), TwitterProfile.class);
+		CachedProfile cached = cachedProfile;
+		if (cached != null && System.currentTimeMillis() - cached.fetchTime < profileCacheTimeout) {
+			return cached.profile;
+		}
+		TwitterProfile profile = restTemplate.getForObject(buildUri("account/verify_credentials.json"), TwitterProfile.class);
+		if (profileCacheTimeout > 0) {
+			cachedProfile = new CachedProfile(profile, System.currentTimeMillis());
+		}
+		return profile;
 	}
 
 	public TwitterProfile getUserProfile(String screenName) {
@@ -65,15 +98,81 @@ class UserTemplate extends AbstractTwitterOperations implements UserOperations {
 	}
 
 	public List<TwitterProfile> getUsers(long... userIds) {
-		requireAuthorization();
-		String joinedIds = ArrayUtils.join(userIds);
-		return restTemplate.getForObject(buildUri("users/lookup.json", "user_id", joinedIds), TwitterProfileList.class);
+		return lookupUsers(userIds).getResults();
 	}
 
 	public List<TwitterProfile> getUsers(String... screenNames) {
 		requireAuthorization();
-		String joinedScreenNames = ArrayUtils.join(screenNames);
-		return restTemplate.getForObject(buildUri("users/lookup.json", "screen_name", joinedScreenNames), TwitterProfileList.class);
+		return new UserLookup("screen_name").lookup(screenNames);
+	}
+
+	public LookupResult<TwitterProfile> lookupUsers(long... userIds) {
+		requireAuthorization();
+		UserLookup lookup = new UserLookup("user_id");
+		List<TwitterProfile> users = lookup.lookup(userIds);
+		return new LookupResult<TwitterProfile>(userIds, lookup.getIds(users), users);
+	}
+
+	public Map<String, Long> resolveUserIds(String... screenNames) {
+		requireAuthorization();
+		Map<String, Long> userIds = new LinkedHashMap<String, Long>(screenNames.length * 2);
+		List<String> misses = new ArrayList<String>();
+		for (String screenName : screenNames) {
+			long userId = screenNameCache.getUserId(screenName);
+			userIds.put(screenName, userId != -1 ? userId : null);
+			if (userId == -1) {
+				misses.add(screenName);
+			}
+		}
+		if (!misses.isEmpty()) {
+			Map<String, Long> found = new HashMap<String, Long>();
+			for (TwitterProfile profile : getUsers(misses.toArray(new String[misses.size()]))) {
+				found.put(profile.getScreenName().toLowerCase(Locale.ENGLISH), profile.getId());
+			}
+			for (Iterator<Map.Entry<String, Long>> entries = userIds.entrySet().iterator(); entries.hasNext(); ) {
+				Map.Entry<String, Long> entry = entries.next();
+				if (entry.getValue() == null) {
+					Long userId = found.get(entry.getKey().toLowerCase(Locale.ENGLISH));
+					if (userId != null) {
+						entry.setValue(userId);
+					} else {
+						entries.remove();
+					}
+				}
+			}
+		}
+		return userIds;
+	}
+
+	public Map<Long, String> resolveScreenNames(long... userIds) {
+		requireAuthorization();
+		Map<Long, String> screenNames = new LinkedHashMap<Long, String>(userIds.length * 2);
+		long[] misses = new long[userIds.length];
+		int missCount = 0;
+		for (long userId : userIds) {
+			String screenName = screenNameCache.getScreenName(userId);
+			screenNames.put(userId, screenName);
+			if (screenName == null) {
+				misses[missCount++] = userId;
+			}
+		}
+		if (missCount > 0) {
+			long[] missedIds = new long[missCount];
+			System.arraycopy(misses, 0, missedIds, 0, missCount);
+			LookupResult<TwitterProfile> found = lookupUsers(missedIds);
+			for (Iterator<Map.Entry<Long, String>> entries = screenNames.entrySet().iterator(); entries.hasNext(); ) {
+				Map.Entry<Long, String> entry = entries.next();
+				if (entry.getValue() == null) {
+					TwitterProfile profile = found.get(entry.getKey());
+					if (profile != null) {
+						entry.setValue(profile.getScreenName());
+					} else {
+						entries.remove();
+					}
+				}
+			}
+		}
+		return screenNames;
 	}
 
 	public List<TwitterProfile> searchForUsers(String query) {
@@ -102,4 +201,39 @@ class UserTemplate extends AbstractTwitterOperations implements UserOperations {
 		String joinedResources = ArrayUtils.join(resources);
 		return restTemplate.getForObject(buildUri("application/rate_limit_status.json", "resources", joinedResources), RateLimitStatusHolder.class).getRateLimits();
 	}
+
+	private class UserLookup extends ChunkedLookup<TwitterProfile> {
+
+		private final String parameterName;
+
+		public UserLookup(String parameterName) {
+			super(bulkRequestExecutor);
+			this.parameterName = parameterName;
+		}
+
+		protected List<TwitterProfile> fetchChunk(String joinedValues) {
+			return restTemplate.getForObject(buildUri("users/lookup.json", parameterName, joinedValues), TwitterProfileList.class);
+		}
+
+		protected long getId(TwitterProfile profile) {
+			return profile.getId();
+		}
+
+	}
+
+	private static class CachedProfile {
+
+		private final TwitterProfile profile;
+
+		private final long fetchTime;
+
+		public CachedProfile(TwitterProfile profile, long fetchTime) {
+			this.profile = profile;
+			this.fetchTime = fetchTime;
+		}
+
+	}
+
+	static final long DEFAULT_PROFILE_CACHE_TIMEOUT = 60 * 1000;
+
 }
@@ -17,19 +17,29 @@ package org.springframework.social.twitter.config.xml;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.social.UserIdSource;
 import org.springframework.social.config.xml.AbstractProviderConfigBeanDefinitionParser;
 import org.springframework.social.config.xml.ApiHelper;
-import org.springframework.social.connect.Connection;
 import org.springframework.social.connect.UsersConnectionRepository;
 import org.springframework.social.security.provider.SocialAuthenticationService;
 import org.springframework.social.twitter.api.Twitter;
-import org.springframework.social.twitter.api.impl.TwitterTemplate;
+import org.springframework.social.twitter.connect.TwitterBindingCache;
+import org.springframework.social.twitter.connect.TwitterBindingCacheEvictor;
 import org.springframework.social.twitter.connect.TwitterConnectionFactory;
 import org.springframework.social.twitter.security.TwitterAuthenticationService;
+import org.w3c.dom.Element;
 
 /**
  * Implementation of {@link AbstractConnectionFactoryBeanDefinitionParser} that creates a {@link TwitterConnectionFactory}.
+ * The request-scoped Twitter bean is served from a {@link TwitterBindingCache} registered as the "twitterBindingCache" bean,
+ * and the "usersConnectionRepository" bean is decorated by a {@link TwitterBindingCacheEvictor}, so that a user's binding is evicted
+ * when the user's Twitter connection is added, updated or removed.
  * @author Craig Walls
  */
 class TwitterConfigBeanDefinitionParser extends AbstractProviderConfigBeanDefinitionParser {
@@ -43,31 +53,56 @@ class TwitterConfigBeanDefinitionParser extends AbstractProviderConfigBeanDefini
 		return TwitterAuthenticationService.class;
 	}
 
-	static class TwitterApiHelper implements ApiHelper<Twitter> {
-		
-		private final UsersConnectionRepository usersConnectionRepository;
+	@Override
+	public BeanDefinition parse(Element element, ParserContext parserContext) {
+		BeanDefinition connectionFactoryLocator = super.parse(element, parserContext);
+		registerBindingCache(parserContext.getRegistry());
+		return connectionFactoryLocator;
+	}
+
+	private static void registerBindingCache(BeanDefinitionRegistry registry) {
+		if (!registry.containsBeanDefinition(BINDING_CACHE_BEAN_NAME)) {
+			registry.registerBeanDefinition(BINDING_CACHE_BEAN_NAME,
+					BeanDefinitionBuilder.genericBeanDefinition(TwitterBindingCache.class).addConstructorArgReference("usersConnectionRepository").getBeanDefinition());
+		}
+		if (!registry.containsBeanDefinition(BINDING_CACHE_EVICTOR_BEAN_NAME)) {
+			registry.registerBeanDefinition(BINDING_CACHE_EVICTOR_BEAN_NAME,
+					BeanDefinitionBuilder.genericBeanDefinition(TwitterBindingCacheEvictor.class)
+						.addConstructorArgValue("usersConnectionRepository").addConstructorArgValue(BINDING_CACHE_BEAN_NAME).getBeanDefinition());
+		}
+	}
 
+	static class TwitterApiHelper implements ApiHelper<Twitter>, BeanFactoryAware {
+		
 		private final UserIdSource userIdSource;
 
+		private TwitterBindingCache bindingCache;
+
 		private TwitterApiHelper(UsersConnectionRepository usersConnectionRepository, UserIdSource userIdSource) {
-			this.usersConnectionRepository = usersConnectionRepository;
 			this.userIdSource = userIdSource;		
 		}
 
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.bindingCache = beanFactory.getBean(BINDING_CACHE_BEAN_NAME, TwitterBindingCache.class);
+		}
+
 		public Twitter getApi() {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Getting API binding instance for Twitter");
 			}
-					
-			Connection<Twitter> connection = usersConnectionRepository.createConnectionRepository(userIdSource.getUserId()).findPrimaryConnection(Twitter.class);
-			if (logger.isDebugEnabled() && connection == null) {
-				logger.debug("No current connection; Returning default TwitterTemplate instance.");
+			String userId = userIdSource.getUserId();
+			if (logger.isDebugEnabled() && !bindingCache.isCached(userId)) {
+				logger.debug("No cached binding; Looking up current connection.");
 			}
-			return connection != null ? connection.getApi() : new TwitterTemplate();
+			return bindingCache.getApi(userId);
 		}
 		
 		private final static Log logger = LogFactory.getLog(TwitterApiHelper.class);
 
 	}
 
+	private static final String BINDING_CACHE_BEAN_NAME = "twitterBindingCache";
+
+	private static final String BINDING_CACHE_EVICTOR_BEAN_NAME = "twitterBindingCacheEvictor";
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import org.springframework.social.oauth1.OAuthToken;
+
+/**
+ * An access token issued by Twitter.
+ * Twitter's access token response also identifies the user who authorized the token by ID and screen name,
+ * which is enough to create a connection without first asking Twitter who the user is.
+ */
+public class TwitterAccessToken extends OAuthToken {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long userId;
+
+	private final String screenName;
+
+	public TwitterAccessToken(String value, String secret, long userId, String screenName) {
+		super(value, secret);
+		this.userId = userId;
+		this.screenName = screenName;
+	}
+
+	/**
+	 * The ID of the user who authorized the token.
+	 */
+	public long getUserId() {
+		return userId;
+	}
+
+	/**
+	 * The screen name of the user who authorized the token.
+	 */
+	public String getScreenName() {
+		return screenName;
+	}
+
+}
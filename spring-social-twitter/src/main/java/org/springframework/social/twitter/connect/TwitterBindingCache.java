@@ -0,0 +1,242 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.social.ApiException;
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionRepository;
+import org.springframework.social.connect.UsersConnectionRepository;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.api.impl.TwitterTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Caches the {@link Twitter} API binding of each local user, so that looking up the current user's binding
+ * doesn't query the {@link UsersConnectionRepository} and create a new {@link TwitterTemplate} every time.
+ * Users who have no Twitter connection share a single unauthorized TwitterTemplate.
+ * Bindings expire after a timeout, and the least recently used bindings are evicted once the cache is full.
+ * <p>
+ * The cache can't see changes made through a {@link ConnectionRepository} by itself, so a user's binding must be evicted
+ * whenever the user's Twitter connection is added, updated or removed. A {@link TwitterBindingCacheEvictor} does so for changes made
+ * through the repositories of a decorated UsersConnectionRepository bean; changes made by other means must be evicted by the application.
+ * A binding being looked up while the user's binding is evicted isn't cached.
+ * <p>
+ * Connections created from an access token are saved without the user's profile image URL (see {@link TwitterConnectionFactory}).
+ * Given an image URL executor, the cache fetches the missing URL in the background when it loads such a connection,
+ * and saves it with {@link ConnectionRepository#updateConnection(Connection)} so that later loads don't fetch it again.
+ * The request-scoped Twitter bean configured by &lt;twitter:config&gt; or {@link org.springframework.social.twitter.config.annotation.EnableTwitter @EnableTwitter}
+ * is served from the cache registered as the "twitterBindingCache" bean, unless the application defines a bean of that name itself,
+ * and an evictor is registered for the "usersConnectionRepository" bean.
+ */
+public class TwitterBindingCache {
+
+	private final UsersConnectionRepository usersConnectionRepository;
+
+	@SuppressWarnings("serial")
+	private final Map<String, Binding> bindings = new LinkedHashMap<String, Binding>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Binding> eldest) {
+			return size() > maxSize;
+		}
+	};
+
+	private volatile long timeoutMillis = DEFAULT_TIMEOUT;
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	// the lookups in progress, by user ID
+	private final Map<String, Lookup> lookups = new HashMap<String, Lookup>();
+
+	private Twitter unauthorizedTwitter;
+
+	private volatile TaskExecutor imageUrlExecutor;
+
+	public TwitterBindingCache(UsersConnectionRepository usersConnectionRepository) {
+		this.usersConnectionRepository = usersConnectionRepository;
+	}
+
+	/**
+	 * Sets how long a binding is kept, in milliseconds. Defaults to 5 minutes.
+	 * @param timeoutMillis the timeout, in milliseconds. 0 disables caching.
+	 */
+	public void setTimeout(long timeoutMillis) {
+		Assert.isTrue(timeoutMillis >= 0, "The cache timeout must not be negative");
+		this.timeoutMillis = timeoutMillis;
+		if (timeoutMillis == 0) {
+			evictAll();
+		}
+	}
+
+	/**
+	 * Sets the executor that fetches and saves the profile image URL of connections loaded without one. By default, none is fetched.
+	 * @param imageUrlExecutor the executor to fetch image URLs on
+	 */
+	public void setImageUrlExecutor(TaskExecutor imageUrlExecutor) {
+		this.imageUrlExecutor = imageUrlExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of users whose bindings are kept. Defaults to 10000.
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "The maximum cache size must be greater than zero");
+		this.maxSize = maxSize;
+		// trims the cache on the next put
+	}
+
+	/**
+	 * The Twitter binding of the given local user's primary Twitter connection,
+	 * or an unauthorized binding if the user has no Twitter connection.
+	 * @param userId the local user ID
+	 */
+	public Twitter getApi(String userId) {
+		long timeoutMillis = this.timeoutMillis;
+		if (userId == null || timeoutMillis == 0) {
+			return lookUpApi(userId);
+		}
+		Lookup lookup;
+		synchronized (this) {
+			Binding binding = bindings.get(userId);
+			if (binding != null && System.currentTimeMillis() - binding.fetchTime < timeoutMillis) {
+				return binding.api;
+			}
+			lookup = lookups.get(userId);
+			if (lookup == null) {
+				lookup = new Lookup();
+				lookups.put(userId, lookup);
+			}
+			lookup.inProgress++;
+		}
+		long fetchTime = System.currentTimeMillis();
+		Twitter api = null;
+		try {
+			api = lookUpApi(userId);
+		} finally {
+			synchronized (this) {
+				if (--lookup.inProgress == 0) {
+					lookups.remove(userId);
+				}
+				// an eviction during the lookup may have been meant for the connection just read
+				if (api != null && !lookup.evicted) {
+					bindings.put(userId, new Binding(api, fetchTime));
+				}
+			}
+		}
+		return api;
+	}
+
+	/**
+	 * Returns true if a binding for the given local user is cached.
+	 */
+	public synchronized boolean isCached(String userId) {
+		Binding binding = bindings.get(userId);
+		return binding != null && System.currentTimeMillis() - binding.fetchTime < timeoutMillis;
+	}
+
+	/**
+	 * Removes the given local user's binding, so that the next lookup reads the user's connection from the repository.
+	 * Should be called whenever the user's Twitter connection is added, updated or removed.
+	 */
+	public synchronized void evict(String userId) {
+		bindings.remove(userId);
+		Lookup lookup = lookups.get(userId);
+		if (lookup != null) {
+			lookup.evicted = true;
+		}
+	}
+
+	/**
+	 * Removes all cached bindings.
+	 */
+	public synchronized void evictAll() {
+		bindings.clear();
+		for (Lookup lookup : lookups.values()) {
+			lookup.evicted = true;
+		}
+	}
+
+	// private helpers
+
+	private Twitter lookUpApi(String userId) {
+		ConnectionRepository connectionRepository = usersConnectionRepository.createConnectionRepository(userId);
+		Connection<Twitter> connection = connectionRepository.findPrimaryConnection(Twitter.class);
+		if (connection == null) {
+			return getUnauthorizedApi();
+		}
+		hydrateImageUrl(connectionRepository, connection);
+		return connection.getApi();
+	}
+
+	private void hydrateImageUrl(final ConnectionRepository connectionRepository, final Connection<Twitter> connection) {
+		TaskExecutor imageUrlExecutor = this.imageUrlExecutor;
+		// createData() doesn't fetch the image URL, unlike getImageUrl()
+		if (imageUrlExecutor == null || connection.createData().getImageUrl() != null) {
+			return;
+		}
+		imageUrlExecutor.execute(new Runnable() {
+			public void run() {
+				try {
+					connection.sync();
+				} catch (ApiException e) {
+					// left for the next load to try again
+					return;
+				}
+				if (connection.createData().getImageUrl() != null) {
+					connectionRepository.updateConnection(connection);
+				}
+			}
+		});
+	}
+
+	private synchronized Twitter getUnauthorizedApi() {
+		if (unauthorizedTwitter == null) {
+			unauthorizedTwitter = new TwitterTemplate();
+		}
+		return unauthorizedTwitter;
+	}
+
+	private static class Lookup {
+
+		// the number of threads looking up the user's binding
+		private int inProgress;
+
+		private boolean evicted;
+
+	}
+
+	private static class Binding {
+
+		private final Twitter api;
+
+		private final long fetchTime;
+
+		public Binding(Twitter api, long fetchTime) {
+			this.api = api;
+			this.fetchTime = fetchTime;
+		}
+
+	}
+
+	static final long DEFAULT_TIMEOUT = 5 * 60 * 1000;
+
+	static final int DEFAULT_MAX_SIZE = 10000;
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionKey;
+import org.springframework.social.connect.ConnectionRepository;
+import org.springframework.social.connect.UsersConnectionRepository;
+import org.springframework.util.Assert;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Decorates a {@link UsersConnectionRepository} bean so that adding, updating or removing a user's Twitter connection through
+ * the {@link ConnectionRepository}s it creates evicts the user's binding from a {@link TwitterBindingCache} bean.
+ * The cache is looked up by name when a connection changes, so it may itself be built from the decorated repository.
+ * <p>
+ * Registered by &lt;twitter:config&gt; and {@link org.springframework.social.twitter.config.annotation.EnableTwitter @EnableTwitter}
+ * for the "usersConnectionRepository" bean. The decorated bean is exposed as a plain UsersConnectionRepository.
+ * Changes made to the underlying store by other means (or by another application instance) still have to be evicted by the application.
+ * </p>
+ */
+public class TwitterBindingCacheEvictor implements BeanPostProcessor, BeanFactoryAware {
+
+	private final String repositoryBeanName;
+
+	private final String cacheBeanName;
+
+	private BeanFactory beanFactory;
+
+	/**
+	 * Creates an evictor for the given beans.
+	 * @param repositoryBeanName the name of the UsersConnectionRepository bean to decorate
+	 * @param cacheBeanName the name of the TwitterBindingCache bean to evict from
+	 */
+	public TwitterBindingCacheEvictor(String repositoryBeanName, String cacheBeanName) {
+		Assert.hasText(repositoryBeanName, "The repository bean name must not be empty");
+		Assert.hasText(cacheBeanName, "The cache bean name must not be empty");
+		this.repositoryBeanName = repositoryBeanName;
+		this.cacheBeanName = cacheBeanName;
+	}
+
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		return bean;
+	}
+
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (repositoryBeanName.equals(beanName) && bean instanceof UsersConnectionRepository) {
+			return new EvictingUsersConnectionRepository((UsersConnectionRepository) bean);
+		}
+		return bean;
+	}
+
+	// private helpers
+
+	private void evict(String userId) {
+		if (beanFactory != null && beanFactory.containsBean(cacheBeanName)) {
+			beanFactory.getBean(cacheBeanName, TwitterBindingCache.class).evict(userId);
+		}
+	}
+
+	private static boolean isTwitter(String providerId) {
+		return PROVIDER_ID.equals(providerId);
+	}
+
+	private class EvictingUsersConnectionRepository implements UsersConnectionRepository {
+
+		private final UsersConnectionRepository delegate;
+
+		public EvictingUsersConnectionRepository(UsersConnectionRepository delegate) {
+			this.delegate = delegate;
+		}
+
+		public List<String> findUserIdsWithConnection(Connection<?> connection) {
+			return delegate.findUserIdsWithConnection(connection);
+		}
+
+		public Set<String> findUserIdsConnectedTo(String providerId, Set<String> providerUserIds) {
+			return delegate.findUserIdsConnectedTo(providerId, providerUserIds);
+		}
+
+		public ConnectionRepository createConnectionRepository(String userId) {
+			return new EvictingConnectionRepository(delegate.createConnectionRepository(userId), userId);
+		}
+
+	}
+
+	private class EvictingConnectionRepository implements ConnectionRepository {
+
+		private final ConnectionRepository delegate;
+
+		private final String userId;
+
+		public EvictingConnectionRepository(ConnectionRepository delegate, String userId) {
+			this.delegate = delegate;
+			this.userId = userId;
+		}
+
+		public MultiValueMap<String, Connection<?>> findAllConnections() {
+			return delegate.findAllConnections();
+		}
+
+		public List<Connection<?>> findConnections(String providerId) {
+			return delegate.findConnections(providerId);
+		}
+
+		public <A> List<Connection<A>> findConnections(Class<A> apiType) {
+			return delegate.findConnections(apiType);
+		}
+
+		public MultiValueMap<String, Connection<?>> findConnectionsToUsers(MultiValueMap<String, String> providerUserIds) {
+			return delegate.findConnectionsToUsers(providerUserIds);
+		}
+
+		public Connection<?> getConnection(ConnectionKey connectionKey) {
+			return delegate.getConnection(connectionKey);
+		}
+
+		public <A> Connection<A> getConnection(Class<A> apiType, String providerUserId) {
+			return delegate.getConnection(apiType, providerUserId);
+		}
+
+		public <A> Connection<A> getPrimaryConnection(Class<A> apiType) {
+			return delegate.getPrimaryConnection(apiType);
+		}
+
+		public <A> Connection<A> findPrimaryConnection(Class<A> apiType) {
+			return delegate.findPrimaryConnection(apiType);
+		}
+
+		public void addConnection(Connection<?> connection) {
+			try {
+				delegate.addConnection(connection);
+			} finally {
+				evictIfTwitter(connection.getKey());
+			}
+		}
+
+		public void updateConnection(Connection<?> connection) {
+			try {
+				delegate.updateConnection(connection);
+			} finally {
+				evictIfTwitter(connection.getKey());
+			}
+		}
+
+		public void removeConnections(String providerId) {
+			try {
+				delegate.removeConnections(providerId);
+			} finally {
+				if (isTwitter(providerId)) {
+					evict(userId);
+				}
+			}
+		}
+
+		public void removeConnection(ConnectionKey connectionKey) {
+			try {
+				delegate.removeConnection(connectionKey);
+			} finally {
+				evictIfTwitter(connectionKey);
+			}
+		}
+
+		private void evictIfTwitter(ConnectionKey connectionKey) {
+			if (connectionKey == null || isTwitter(connectionKey.getProviderId())) {
+				evict(userId);
+			}
+		}
+
+	}
+
+	private static final String PROVIDER_ID = "twitter";
+
+}
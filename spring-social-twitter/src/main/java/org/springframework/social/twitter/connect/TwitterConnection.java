@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import org.springframework.social.ApiException;
+import org.springframework.social.connect.ApiAdapter;
+import org.springframework.social.connect.ConnectionData;
+import org.springframework.social.connect.support.OAuth1Connection;
+import org.springframework.social.oauth1.OAuth1ServiceProvider;
+import org.springframework.social.twitter.api.Twitter;
+
+/**
+ * A Twitter connection whose profile image URL is fetched from Twitter when first asked for.
+ * Connections created from an access token only know the user's ID and screen name; the image URL is left out until
+ * {@link #getImageUrl()} or {@link #sync()} is called so that connecting a user does not wait on a request to Twitter.
+ * Connection data created before the image URL has been fetched carries a null image URL.
+ * <p>
+ * A connection restored from such data fetches the image URL again the first time it is asked for.
+ * To avoid that request on every restore, persist the fetched URL by passing the connection to
+ * {@link org.springframework.social.connect.ConnectionRepository#updateConnection(org.springframework.social.connect.Connection)},
+ * or let a {@link TwitterBindingCache} with an image URL executor do so in the background.
+ * </p>
+ */
+class TwitterConnection extends OAuth1Connection<Twitter> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String accessToken;
+
+	private final String secret;
+
+	private boolean imageUrlFetched;
+
+	public TwitterConnection(ConnectionData data, OAuth1ServiceProvider<Twitter> serviceProvider, ApiAdapter<Twitter> apiAdapter) {
+		super(data, serviceProvider, apiAdapter);
+		this.accessToken = data.getAccessToken();
+		this.secret = data.getSecret();
+	}
+
+	@Override
+	public String getImageUrl() {
+		synchronized (getMonitor()) {
+			if (!imageUrlFetched) {
+				imageUrlFetched = true;
+				if (super.getImageUrl() == null) {
+					try {
+						sync();
+					} catch (ApiException e) {
+						// leave the image URL unset
+					}
+				}
+			}
+			return super.getImageUrl();
+		}
+	}
+
+	@Override
+	public void sync() {
+		synchronized (getMonitor()) {
+			super.sync();
+			imageUrlFetched = true;
+		}
+	}
+
+	@Override
+	public ConnectionData createData() {
+		synchronized (getMonitor()) {
+			return new ConnectionData(getKey().getProviderId(), getKey().getProviderUserId(), getDisplayName(), getProfileUrl(), super.getImageUrl(), accessToken, secret, null, null);
+		}
+	}
+
+}
@@ -15,11 +15,18 @@
  */
 package org.springframework.social.twitter.connect;
 
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionData;
 import org.springframework.social.connect.support.OAuth1ConnectionFactory;
+import org.springframework.social.oauth1.OAuthToken;
 import org.springframework.social.twitter.api.Twitter;
 
 /**
  * Twitter ConnectionFactory implementation.
+ * Connections are created from the user ID and screen name that Twitter returns along with the access token,
+ * so completing the authorization flow doesn't cost an extra request to verify the user's credentials.
+ * The user's profile image URL is fetched from Twitter the first time it is asked for, and is only kept across restores
+ * once the connection has been updated in its {@link org.springframework.social.connect.ConnectionRepository} after the fetch.
  * @author Keith Donald
  */
 public class TwitterConnectionFactory extends OAuth1ConnectionFactory<Twitter> {
@@ -27,5 +34,29 @@ public class TwitterConnectionFactory extends OAuth1ConnectionFactory<Twitter> {
 	public TwitterConnectionFactory(String consumerKey, String consumerSecret) {
 		super("twitter", new TwitterServiceProvider(consumerKey, consumerSecret), new TwitterAdapter());
 	}
+
+	@Override
+	public Connection<Twitter> createConnection(OAuthToken accessToken) {
+		if (!(accessToken instanceof TwitterAccessToken)) {
+			return super.createConnection(accessToken);
+		}
+		TwitterAccessToken twitterAccessToken = (TwitterAccessToken) accessToken;
+		String screenName = twitterAccessToken.getScreenName();
+		return createConnection(new ConnectionData(getProviderId(), Long.toString(twitterAccessToken.getUserId()), "@" + screenName,
+				"http://twitter.com/" + screenName, null, accessToken.getValue(), accessToken.getSecret(), null, null));
+	}
+
+	@Override
+	public Connection<Twitter> createConnection(ConnectionData data) {
+		return new TwitterConnection(data, (TwitterServiceProvider) getServiceProvider(), getApiAdapter());
+	}
+
+	@Override
+	protected String extractProviderUserId(OAuthToken accessToken) {
+		if (accessToken instanceof TwitterAccessToken) {
+			return Long.toString(((TwitterAccessToken) accessToken).getUserId());
+		}
+		return null;
+	}
 	
 }
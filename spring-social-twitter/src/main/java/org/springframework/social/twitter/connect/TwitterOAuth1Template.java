@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import org.springframework.social.oauth1.OAuth1Template;
+import org.springframework.social.oauth1.OAuthToken;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * OAuth1Template for Twitter.
+ * Keeps the user_id and screen_name parameters of the access token response in a {@link TwitterAccessToken}.
+ */
+class TwitterOAuth1Template extends OAuth1Template {
+
+	public TwitterOAuth1Template(String consumerKey, String consumerSecret) {
+		super(consumerKey, consumerSecret,
+			"https://api.twitter.com/oauth/request_token",
+			"https://api.twitter.com/oauth/authorize",
+			"https://api.twitter.com/oauth/authenticate",
+			"https://api.twitter.com/oauth/access_token");
+	}
+
+	@Override
+	protected OAuthToken createOAuthToken(String tokenValue, String tokenSecret, MultiValueMap<String, String> response) {
+		String userId = response.getFirst("user_id");
+		String screenName = response.getFirst("screen_name");
+		if (!StringUtils.hasText(userId) || !StringUtils.hasText(screenName)) {
+			return super.createOAuthToken(tokenValue, tokenSecret, response);
+		}
+		try {
+			return new TwitterAccessToken(tokenValue, tokenSecret, Long.parseLong(userId), screenName);
+		} catch (NumberFormatException e) {
+			return super.createOAuthToken(tokenValue, tokenSecret, response);
+		}
+	}
+
+}
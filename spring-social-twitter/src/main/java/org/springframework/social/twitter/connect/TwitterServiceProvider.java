@@ -16,27 +16,33 @@
 package org.springframework.social.twitter.connect;
 
 import org.springframework.social.oauth1.AbstractOAuth1ServiceProvider;
-import org.springframework.social.oauth1.OAuth1Template;
 import org.springframework.social.twitter.api.Twitter;
-import org.springframework.social.twitter.api.impl.TwitterTemplate;
+import org.springframework.social.twitter.api.impl.TwitterTemplateFactory;
 
 /**
  * Twitter ServiceProvider implementation.
+ * The API bindings of all connections share one {@link TwitterTemplateFactory}.
  * @author Keith Donald
  * @author Craig Walls
  */
 public class TwitterServiceProvider extends AbstractOAuth1ServiceProvider<Twitter> {
 
+	private final TwitterTemplateFactory templateFactory;
+
 	public TwitterServiceProvider(String consumerKey, String consumerSecret) {
-		super(consumerKey, consumerSecret, new OAuth1Template(consumerKey, consumerSecret,
-			"https://api.twitter.com/oauth/request_token",
-			"https://api.twitter.com/oauth/authorize",
-			"https://api.twitter.com/oauth/authenticate",			
-			"https://api.twitter.com/oauth/access_token"));
+		super(consumerKey, consumerSecret, new TwitterOAuth1Template(consumerKey, consumerSecret));
+		this.templateFactory = new TwitterTemplateFactory(consumerKey, consumerSecret);
+	}
+
+	/**
+	 * The factory that creates the API bindings, for configuring settings shared by all of them.
+	 */
+	public TwitterTemplateFactory getTemplateFactory() {
+		return templateFactory;
 	}
 
 	public Twitter getApi(String accessToken, String secret) {
-		return new TwitterTemplate(getConsumerKey(), getConsumerSecret(), accessToken, secret);
+		return templateFactory.createTemplate(accessToken, secret);
 	}
 
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Summarizes a backfill of many users' timelines by a {@link TimelineBackfiller}.
+ */
+public class BackfillReport {
+
+	private final int completedUserCount;
+
+	private final long tweetCount;
+
+	private final Map<Long, RuntimeException> failures;
+
+	public BackfillReport(int completedUserCount, long tweetCount, Map<Long, RuntimeException> failures) {
+		this.completedUserCount = completedUserCount;
+		this.tweetCount = tweetCount;
+		this.failures = Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * The number of users whose timelines were backfilled.
+	 */
+	public int getCompletedUserCount() {
+		return completedUserCount;
+	}
+
+	/**
+	 * The number of tweets delivered to the sink from the completed timelines.
+	 */
+	public long getTweetCount() {
+		return tweetCount;
+	}
+
+	/**
+	 * The IDs of the users whose timelines couldn't be backfilled (for example, because they are protected or suspended).
+	 */
+	public long[] getFailedUserIds() {
+		long[] userIds = new long[failures.size()];
+		int i = 0;
+		for (Long userId : failures.keySet()) {
+			userIds[i++] = userId;
+		}
+		return userIds;
+	}
+
+	/**
+	 * The exception that stopped the backfill of a user's timeline, or null if it didn't fail.
+	 */
+	public RuntimeException getFailure(long userId) {
+		return failures.get(userId);
+	}
+
+	/**
+	 * Returns true if every user's timeline was backfilled.
+	 */
+	public boolean isComplete() {
+		return failures.isEmpty();
+	}
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.social.OperationNotPermittedException;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.ServerException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.support.WriteCommand.Type;
+import org.springframework.social.twitter.support.WriteResult.Status;
+import org.springframework.util.Assert;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Applies large numbers of writes (follows, unfollows, blocks, favorites, retweets and deletes) to Twitter unattended,
+ * at the highest rate each kind of write allows.
+ * <p>
+ * Each {@link WriteCommand.Type type} of command is paced by its own {@link RateLimitPacer}, and up to
+ * {@link #setConcurrencyLimit(int) concurrencyLimit} commands are in flight at once if a {@link TaskExecutor} is set.
+ * Commands failing with a transient error (a server error, an I/O error or an exceeded rate limit) are retried, up to
+ * {@link #setMaxAttempts(int) maxAttempts} times. A command whose target no longer exists counts as done, and so does a command
+ * that Twitter reports as already applied (which happens when a retried request had in fact succeeded).
+ * </p>
+ * <p>
+ * The job's position in the sequence of commands is checkpointed under the job's name, along with the commands that failed,
+ * so a job that is interrupted or dies may simply be run again with the same commands in the same order: the commands before
+ * the checkpointed position are skipped, except for those that failed, which are attempted again. A few commands that were
+ * in flight when the job stopped may be sent twice. Every outcome is also given to the {@link #setJournal(WriteJournal) journal},
+ * if one is set.
+ * </p>
+ */
+public class BulkWritePipeline {
+
+	private final Twitter twitter;
+
+	private final CheckpointStore checkpointStore;
+
+	private final Map<Type, RateLimitPacer> pacers = new EnumMap<Type, RateLimitPacer>(Type.class);
+
+	private TaskExecutor taskExecutor;
+
+	private int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private WriteJournal journal;
+
+	/**
+	 * Creates a pipeline.
+	 * @param twitter the Twitter API binding for the user making the writes
+	 * @param checkpointStore the store in which completed commands are checkpointed
+	 */
+	public BulkWritePipeline(Twitter twitter, CheckpointStore checkpointStore) {
+		Assert.notNull(twitter, "Twitter must not be null");
+		Assert.notNull(checkpointStore, "CheckpointStore must not be null");
+		this.twitter = twitter;
+		this.checkpointStore = checkpointStore;
+		// Twitter's published daily limits, where there are any
+		pacers.put(Type.FOLLOW, new RateLimitPacer(1000, DAY_MILLIS));
+		pacers.put(Type.UNFOLLOW, new RateLimitPacer(1000, DAY_MILLIS));
+		pacers.put(Type.FAVORITE, new RateLimitPacer(1000, DAY_MILLIS));
+		pacers.put(Type.UNFAVORITE, new RateLimitPacer(1000, DAY_MILLIS));
+		pacers.put(Type.RETWEET, new RateLimitPacer(2400, DAY_MILLIS));
+		pacers.put(Type.BLOCK, RateLimitPacer.perRateLimitWindow(180));
+		pacers.put(Type.UNBLOCK, RateLimitPacer.perRateLimitWindow(180));
+		pacers.put(Type.DELETE_STATUS, RateLimitPacer.perRateLimitWindow(900));
+	}
+
+	/**
+	 * Sets the pacer for one type of command, replacing the default.
+	 * Pipelines writing on behalf of the same user should share pacers.
+	 */
+	public void setPacer(Type type, RateLimitPacer pacer) {
+		Assert.notNull(type, "The command type must not be null");
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		pacers.put(type, pacer);
+	}
+
+	/**
+	 * Sets the executor used to apply several commands at once. By default, commands are applied one at a time on the calling thread.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of commands in flight at once. Only applies if a task executor has been set. Defaults to 4.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "The concurrency limit must be greater than zero");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	/**
+	 * Sets the maximum number of requests made for a command failing with a transient error. Defaults to 3.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "The maximum number of attempts must be greater than zero");
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Sets the journal recording the outcome of every command.
+	 */
+	public void setJournal(WriteJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Applies a sequence of commands, skipping any that an earlier run of the same job has already applied.
+	 * @param jobName the name of the job, under which its progress is checkpointed. Each distinct job should have its own name.
+	 * @param commands the commands to apply; they are pulled from the iterator as they are needed, so they may be streamed from a file or database.
+	 * A resumed job must be given the same commands in the same order.
+	 * @return a summary of the run
+	 * @throws InterruptedException if the calling thread (or a worker thread) is interrupted. Commands already applied are checkpointed, so the job may be resumed.
+	 */
+	public WriteReport run(String jobName, Iterator<WriteCommand> commands) throws InterruptedException {
+		Assert.hasText(jobName, "The job name must not be empty");
+		Assert.notNull(commands, "The commands must not be null");
+		Run run = new Run(jobName, commands);
+		WorkerGroup.forEach(taskExecutor, concurrencyLimit, run.pending(), run, "Bulk write job '" + jobName + "'");
+		return new WriteReport(run.succeeded.get(), run.alreadyApplied.get(), run.notFound.get(), run.failed.get(), run.skipped.get());
+	}
+
+	/**
+	 * Applies a sequence of commands, skipping any that an earlier run of the same job has already applied.
+	 * @see #run(String, Iterator)
+	 */
+	public WriteReport run(String jobName, Iterable<WriteCommand> commands) throws InterruptedException {
+		return run(jobName, commands.iterator());
+	}
+
+	// private helpers
+
+	private WriteResult apply(WriteCommand command) throws InterruptedException {
+		RateLimitPacer pacer = pacers.get(command.getType());
+		RuntimeException lastException = null;
+		int attempts = 0;
+		while (attempts < maxAttempts) {
+			pacer.acquire();
+			attempts++;
+			try {
+				send(command);
+				return new WriteResult(command, Status.SUCCEEDED, attempts, null);
+			} catch (ResourceNotFoundException e) {
+				return new WriteResult(command, Status.NOT_FOUND, attempts, e);
+			} catch (OperationNotPermittedException e) {
+				// "You have already favorited this status." and the like
+				boolean alreadyApplied = e.getMessage() != null && e.getMessage().toLowerCase(Locale.ENGLISH).contains("already");
+				return new WriteResult(command, alreadyApplied ? Status.ALREADY_APPLIED : Status.FAILED, attempts, e);
+			} catch (RateLimitExceededException e) {
+				pacer.deferForWindow();
+				lastException = e;
+			} catch (ServerException e) {
+				lastException = e;
+			} catch (ResourceAccessException e) {
+				lastException = e;
+			} catch (RuntimeException e) {
+				return new WriteResult(command, Status.FAILED, attempts, e);
+			}
+		}
+		return new WriteResult(command, Status.FAILED, attempts, lastException);
+	}
+
+	private void send(WriteCommand command) {
+		long id = command.getTargetId();
+		switch (command.getType()) {
+			case FOLLOW:
+				twitter.friendOperations().follow(id);
+				break;
+			case UNFOLLOW:
+				twitter.friendOperations().unfollow(id);
+				break;
+			case BLOCK:
+				twitter.blockOperations().block(id);
+				break;
+			case UNBLOCK:
+				twitter.blockOperations().unblock(id);
+				break;
+			case FAVORITE:
+				twitter.timelineOperations().addToFavorites(id);
+				break;
+			case UNFAVORITE:
+				twitter.timelineOperations().removeFromFavorites(id);
+				break;
+			case RETWEET:
+				twitter.timelineOperations().retweet(id);
+				break;
+			case DELETE_STATUS:
+				twitter.timelineOperations().deleteStatus(id);
+				break;
+		}
+	}
+
+	private class Run implements WorkerGroup.ItemProcessor<Positioned> {
+
+		private final String jobName;
+
+		private final Iterator<WriteCommand> commands;
+
+		private final String positionKey;
+
+		private final long resumePosition;
+
+		private long nextPosition;
+
+		// the positions after the checkpointed one that are done, while an earlier command is still in flight
+		private final Set<Long> donePositions = new HashSet<Long>();
+
+		private long checkpointedPosition;
+
+		private final AtomicInteger succeeded = new AtomicInteger();
+
+		private final AtomicInteger alreadyApplied = new AtomicInteger();
+
+		private final AtomicInteger notFound = new AtomicInteger();
+
+		private final AtomicInteger failed = new AtomicInteger();
+
+		private final AtomicInteger skipped = new AtomicInteger();
+
+		public Run(String jobName, Iterator<WriteCommand> commands) {
+			this.jobName = jobName;
+			this.commands = commands;
+			this.positionKey = jobName + "/position";
+			this.resumePosition = checkpointStore.get(positionKey, 0);
+			this.checkpointedPosition = resumePosition;
+		}
+
+		/*
+		 * The commands to apply, skipping the commands before the resume position that didn't fail.
+		 */
+		public Iterator<Positioned> pending() {
+			return new Iterator<Positioned>() {
+				private Positioned next;
+
+				public boolean hasNext() {
+					while (next == null && commands.hasNext()) {
+						long position = nextPosition++;
+						WriteCommand command = commands.next();
+						if (position >= resumePosition || checkpointStore.get(failedKey(command), 0) != 0) {
+							next = new Positioned(position, command);
+						} else {
+							skipped.incrementAndGet();
+						}
+					}
+					return next != null;
+				}
+
+				public Positioned next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Positioned positioned = next;
+					next = null;
+					return positioned;
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		public void process(Positioned positioned) throws InterruptedException {
+			WriteCommand command = positioned.command;
+			WriteResult result = apply(command);
+			if (result.getStatus() == Status.SUCCEEDED) {
+				succeeded.incrementAndGet();
+			} else if (result.getStatus() == Status.ALREADY_APPLIED) {
+				alreadyApplied.incrementAndGet();
+			} else if (result.getStatus() == Status.NOT_FOUND) {
+				notFound.incrementAndGet();
+			} else {
+				failed.incrementAndGet();
+			}
+			// the failure is checkpointed before the position moves past the command
+			if (result.getStatus() == Status.FAILED) {
+				checkpointStore.put(failedKey(command), 1);
+			} else if (positioned.position < resumePosition) {
+				checkpointStore.remove(failedKey(command));
+			}
+			if (positioned.position >= resumePosition) {
+				done(positioned.position);
+			}
+			if (journal != null) {
+				journal.record(result);
+			}
+		}
+
+		/*
+		 * Moves the checkpointed position past every command that is done, up to the first one still in flight.
+		 */
+		private synchronized void done(long position) {
+			donePositions.add(position);
+			long checkpoint = checkpointedPosition;
+			while (donePositions.remove(checkpoint)) {
+				checkpoint++;
+			}
+			if (checkpoint != checkpointedPosition) {
+				checkpointedPosition = checkpoint;
+				checkpointStore.put(positionKey, checkpoint);
+			}
+		}
+
+		private String failedKey(WriteCommand command) {
+			return jobName + "/failed/" + command;
+		}
+
+	}
+
+	private static class Positioned {
+
+		private final long position;
+
+		private final WriteCommand command;
+
+		public Positioned(long position, WriteCommand command) {
+			this.position = position;
+			this.command = command;
+		}
+
+	}
+
+	private static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+	private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+}
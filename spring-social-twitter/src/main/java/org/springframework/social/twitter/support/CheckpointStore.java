@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * Strategy for persisting the progress of long-running jobs (such as a {@link SocialGraphCrawler crawl}) so that they
+ * can resume where they left off after a restart.
+ * Checkpoints are numeric values (typically cursors or IDs) stored under a key chosen by the job.
+ * Implementations must be safe for use by multiple threads.
+ */
+public interface CheckpointStore {
+
+	/**
+	 * Retrieves a checkpoint.
+	 * @param key the checkpoint key
+	 * @param defaultValue the value to return if no checkpoint is stored under the key
+	 * @return the checkpoint value, or defaultValue if there is none
+	 */
+	long get(String key, long defaultValue);
+
+	/**
+	 * Stores a checkpoint, replacing any previous value stored under the key.
+	 * @param key the checkpoint key
+	 * @param value the checkpoint value
+	 */
+	void put(String key, long value);
+
+	/**
+	 * Removes a checkpoint. Does nothing if no checkpoint is stored under the key.
+	 * @param key the checkpoint key
+	 */
+	void remove(String key);
+
+}
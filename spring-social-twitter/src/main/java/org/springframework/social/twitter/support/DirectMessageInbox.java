@@ -0,0 +1,321 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.DirectMessage;
+import org.springframework.social.twitter.api.DirectMessageOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps a local copy of one account's direct messages, ordered by ID, so that they can be read without going to Twitter.
+ * <p>
+ * The first {@link #sync()} walks back through the account's received messages (and, if enabled, its sent messages) with max_id
+ * until Twitter has no older ones, or until it has fetched as many as are kept. Every later sync only asks for messages newer than the newest one kept (since_id), walking back
+ * through full pages so that no message is skipped when many arrived at once. Fetched messages are only added once a sync has
+ * completed, so a sync that fails part way leaves no gaps; it is simply repeated.
+ * </p>
+ * <p>
+ * The ID of the newest message synced in each folder is kept in a {@link CheckpointStore}. The messages themselves are only kept
+ * in memory, so an inbox created after a restart starts empty and its first sync backfills the history like that of a new inbox;
+ * the stored ID is only a floor, so that the checkpoint never moves back (if the newest messages were deleted in the meantime, say).
+ * </p>
+ * <p>
+ * Reads are served from memory and never go to Twitter. Requests are paced by a {@link RateLimitPacer} per folder (by default,
+ * the 15 requests per 15 minute window Twitter allows for each). Once more than {@link #setMaxMessages(int) maxMessages} are kept
+ * in a folder, its oldest messages are dropped. Create one inbox per account.
+ * </p>
+ * <p>
+ * Each kept message holds its text along with the full profiles of its sender and recipient, a few kilobytes in all, so an inbox
+ * that keeps both folders at the default limit may take tens of megabytes. Applications holding inboxes for many accounts (a
+ * dashboard, say) should lower {@link #setMaxMessages(int) maxMessages} accordingly.
+ * </p>
+ */
+public class DirectMessageInbox {
+
+	private final DirectMessageOperations directMessageOperations;
+
+	private final CheckpointStore checkpointStore;
+
+	private final Folder received;
+
+	private final Folder sent;
+
+	private volatile int maxMessages = DEFAULT_MAX_MESSAGES;
+
+	/**
+	 * Creates an inbox that starts from the account's whole message history.
+	 * @param directMessageOperations the direct message operations of the account whose messages are kept
+	 * @param includeSent if true, the messages the account has sent are kept, too
+	 */
+	public DirectMessageInbox(DirectMessageOperations directMessageOperations, boolean includeSent) {
+		this(directMessageOperations, includeSent, new InMemoryCheckpointStore(), "inbox");
+	}
+
+	/**
+	 * Creates an inbox that resumes from the newest messages synced by an earlier inbox of the same account.
+	 * @param directMessageOperations the direct message operations of the account whose messages are kept
+	 * @param includeSent if true, the messages the account has sent are kept, too
+	 * @param checkpointStore the store keeping the ID of the newest message synced in each folder
+	 * @param account the name under which the account's checkpoints are kept
+	 */
+	public DirectMessageInbox(DirectMessageOperations directMessageOperations, boolean includeSent, CheckpointStore checkpointStore, String account) {
+		Assert.notNull(directMessageOperations, "DirectMessageOperations must not be null");
+		Assert.notNull(checkpointStore, "CheckpointStore must not be null");
+		Assert.hasText(account, "The account must not be empty");
+		this.directMessageOperations = directMessageOperations;
+		this.checkpointStore = checkpointStore;
+		this.received = new Folder(false, "dm/" + account + "/received", checkpointStore);
+		this.sent = includeSent ? new Folder(true, "dm/" + account + "/sent", checkpointStore) : null;
+	}
+
+	/**
+	 * Sets the pacer for requests to direct_messages.
+	 * Anything else fetching the account's received messages should share the pacer.
+	 */
+	public void setPacer(RateLimitPacer pacer) {
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		received.pacer = pacer;
+	}
+
+	/**
+	 * Sets the pacer for requests to direct_messages/sent.
+	 * Anything else fetching the account's sent messages should share the pacer.
+	 */
+	public void setSentPacer(RateLimitPacer pacer) {
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		Assert.state(sent != null, "Sent messages are not kept by this inbox");
+		sent.pacer = pacer;
+	}
+
+	/**
+	 * Sets the maximum number of messages kept per folder. Defaults to 10000.
+	 */
+	public void setMaxMessages(int maxMessages) {
+		Assert.isTrue(maxMessages > 0, "The maximum number of messages must be greater than zero");
+		this.maxMessages = maxMessages;
+	}
+
+	/**
+	 * Fetches the messages that have arrived since the last sync, waiting for the pacers as needed.
+	 * @return the number of messages added
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit; nothing is added
+	 */
+	public int sync() throws InterruptedException {
+		int added = sync(received);
+		if (sent != null) {
+			added += sync(sent);
+		}
+		return added;
+	}
+
+	/**
+	 * Returns true once the inbox has been synced at least once.
+	 */
+	public boolean isSynced() {
+		return received.isSynced() && (sent == null || sent.isSynced());
+	}
+
+	/**
+	 * The received messages kept, newest first.
+	 */
+	public List<DirectMessage> getDirectMessagesReceived() {
+		return received.get(Integer.MAX_VALUE, 0, 0);
+	}
+
+	/**
+	 * The received messages kept, newest first, limited as Twitter would limit them.
+	 * @param count the maximum number of messages to return
+	 * @param sinceId if greater than 0, only messages with a greater ID are returned
+	 * @param maxId if greater than 0, only messages with an ID less than or equal to it are returned
+	 */
+	public List<DirectMessage> getDirectMessagesReceived(int count, long sinceId, long maxId) {
+		return received.get(count, sinceId, maxId);
+	}
+
+	/**
+	 * The sent messages kept, newest first.
+	 */
+	public List<DirectMessage> getDirectMessagesSent() {
+		return getDirectMessagesSent(Integer.MAX_VALUE, 0, 0);
+	}
+
+	/**
+	 * The sent messages kept, newest first, limited as Twitter would limit them.
+	 * @param count the maximum number of messages to return
+	 * @param sinceId if greater than 0, only messages with a greater ID are returned
+	 * @param maxId if greater than 0, only messages with an ID less than or equal to it are returned
+	 */
+	public List<DirectMessage> getDirectMessagesSent(int count, long sinceId, long maxId) {
+		Assert.state(sent != null, "Sent messages are not kept by this inbox");
+		return sent.get(count, sinceId, maxId);
+	}
+
+	/**
+	 * A kept message, or null if there is none with the given ID.
+	 */
+	public DirectMessage getDirectMessage(long id) {
+		DirectMessage message = received.get(id);
+		return message == null && sent != null ? sent.get(id) : message;
+	}
+
+	/**
+	 * Removes a message from the local copy, for example after it has been deleted with {@link DirectMessageOperations#deleteDirectMessage(long)}.
+	 */
+	public void remove(long id) {
+		received.remove(id);
+		if (sent != null) {
+			sent.remove(id);
+		}
+	}
+
+	// private helpers
+
+	private int sync(Folder folder) throws InterruptedException {
+		// until this inbox has synced the folder, its local copy is empty however far the checkpoint has got, so the history is backfilled
+		long sinceId = folder.isSynced() ? folder.getNewestId() : 0;
+		long checkpoint = folder.getNewestId();
+		List<DirectMessage> fetched = new ArrayList<DirectMessage>();
+		long maxId = 0;
+		while (true) {
+			List<DirectMessage> page = fetch(folder, sinceId, maxId);
+			long lowestId = Long.MAX_VALUE;
+			for (DirectMessage message : page) {
+				if (message.getId() > sinceId) {
+					fetched.add(message);
+				}
+				lowestId = Math.min(lowestId, message.getId());
+			}
+			// on the first sync, walk back until there's nothing older; afterwards, until the gap is filled
+			if (page.isEmpty() || (sinceId > 0 && page.size() < PAGE_SIZE) || lowestId <= sinceId + 1 || fetched.size() >= maxMessages) {
+				break;
+			}
+			if (maxId > 0 && lowestId > maxId) {
+				// max_id was not honored, so walking further would fetch the same page again
+				break;
+			}
+			maxId = lowestId - 1;
+		}
+		int added = folder.add(fetched, maxMessages);
+		long newestId = folder.getNewestId();
+		if (newestId > checkpoint) {
+			checkpointStore.put(folder.checkpointKey, newestId);
+		}
+		return added;
+	}
+
+	private List<DirectMessage> fetch(Folder folder, long sinceId, long maxId) throws InterruptedException {
+		folder.pacer.acquire();
+		try {
+			if (folder.sent) {
+				return directMessageOperations.getDirectMessagesSent(1, PAGE_SIZE, sinceId, maxId);
+			}
+			return directMessageOperations.getDirectMessagesReceived(1, PAGE_SIZE, sinceId, maxId);
+		} catch (RateLimitExceededException e) {
+			folder.pacer.deferForWindow();
+			throw e;
+		}
+	}
+
+	private static class Folder {
+
+		private final boolean sent;
+
+		private final String checkpointKey;
+
+		// newest first
+		private final SortedMap<Long, DirectMessage> messages = new TreeMap<Long, DirectMessage>(Collections.<Long>reverseOrder());
+
+		private volatile RateLimitPacer pacer = RateLimitPacer.perRateLimitWindow(DIRECT_MESSAGE_REQUESTS_PER_WINDOW);
+
+		private boolean synced;
+
+		// the newest ID synced, which outlives the message if it is dropped or removed
+		private long newestId;
+
+		public Folder(boolean sent, String checkpointKey, CheckpointStore checkpointStore) {
+			this.sent = sent;
+			this.checkpointKey = checkpointKey;
+			this.newestId = checkpointStore.get(checkpointKey, 0);
+		}
+
+		public synchronized boolean isSynced() {
+			return synced;
+		}
+
+		public synchronized long getNewestId() {
+			return newestId;
+		}
+
+		public synchronized int add(List<DirectMessage> fetched, int maxMessages) {
+			int added = 0;
+			for (DirectMessage message : fetched) {
+				if (messages.put(message.getId(), message) == null) {
+					added++;
+				}
+				newestId = Math.max(newestId, message.getId());
+			}
+			while (messages.size() > maxMessages) {
+				messages.remove(messages.lastKey());
+			}
+			synced = true;
+			return added;
+		}
+
+		public synchronized DirectMessage get(long id) {
+			return messages.get(id);
+		}
+
+		public synchronized List<DirectMessage> get(int count, long sinceId, long maxId) {
+			if (sinceId > 0 && maxId > 0 && maxId <= sinceId) {
+				return Collections.emptyList();
+			}
+			SortedMap<Long, DirectMessage> range = messages;
+			if (maxId > 0) {
+				range = range.tailMap(maxId);
+			}
+			if (sinceId > 0) {
+				range = range.headMap(sinceId);
+			}
+			List<DirectMessage> result = new ArrayList<DirectMessage>(Math.min(count, range.size()));
+			Iterator<DirectMessage> iterator = range.values().iterator();
+			while (result.size() < count && iterator.hasNext()) {
+				result.add(iterator.next());
+			}
+			return Collections.unmodifiableList(result);
+		}
+
+		public synchronized void remove(long id) {
+			messages.remove(id);
+		}
+
+	}
+
+	private static final int PAGE_SIZE = 200;
+
+	private static final int DIRECT_MESSAGE_REQUESTS_PER_WINDOW = 15;
+
+	static final int DEFAULT_MAX_MESSAGES = 10000;
+
+}
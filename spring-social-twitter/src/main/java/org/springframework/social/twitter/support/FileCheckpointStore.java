@@ -0,0 +1,414 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link CheckpointStore} that keeps checkpoints in a local file, so that they survive a restart.
+ * <p>
+ * Every change is appended to the file as a small checksummed record, so saving a checkpoint costs one short write no matter how
+ * many checkpoints are stored. On startup, the file is read and replayed into an in-memory index, from which all reads are
+ * served; a record left incomplete by a crash is discarded. Once superseded records outnumber the live checkpoints (and there are at
+ * least {@link #setCompactionThreshold(int) compactionThreshold} of them), the file is compacted: the live checkpoints are written to a
+ * temporary file, which is forced to disk and then replaces the log. If a crash leaves the log missing but the temporary file in
+ * place, the store is reopened from the temporary file.
+ * <p>
+ * Writes go to the operating system as they are made, so checkpoints survive the process crashing. Unless
+ * {@link #setSyncOnWrite(boolean) syncOnWrite} is set, they may be lost if the machine itself fails before the operating system has
+ * flushed them to disk. Only one store (in any process) may use a file at a time; a lock file next to it guards against sharing.
+ * Stores must be {@link #close() closed} to release the file.
+ */
+public class FileCheckpointStore implements CheckpointStore, Closeable {
+
+	private final File file;
+
+	private final Map<String, Long> checkpoints = new ConcurrentHashMap<String, Long>();
+
+	private final RandomAccessFile lockFile;
+
+	private final FileLock lock;
+
+	private RandomAccessFile log;
+
+	private FileChannel channel;
+
+	private int recordCount;
+
+	private volatile boolean syncOnWrite;
+
+	private volatile int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+	/**
+	 * Opens the store kept in the given file, creating the file (and its directory) if it doesn't exist.
+	 * @param file the checkpoint file
+	 * @throws IllegalStateException if the file can't be read, or is in use by another store
+	 */
+	public FileCheckpointStore(File file) {
+		Assert.notNull(file, "The file must not be null");
+		this.file = file.getAbsoluteFile();
+		this.file.getParentFile().mkdirs();
+		File lockFileName = new File(this.file.getParentFile(), this.file.getName() + ".lock");
+		try {
+			this.lockFile = new RandomAccessFile(lockFileName, "rw");
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open '" + lockFileName + "'", e);
+		}
+		this.lock = tryLock(lockFile, lockFileName);
+		try {
+			open();
+			load();
+		} catch (RuntimeException e) {
+			closeQuietly();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sets whether every write is forced to disk before returning. Defaults to false.
+	 * Forcing makes checkpoints survive a machine failure at the cost of a disk sync per write.
+	 */
+	public void setSyncOnWrite(boolean syncOnWrite) {
+		this.syncOnWrite = syncOnWrite;
+	}
+
+	/**
+	 * Sets the number of superseded records the file must hold before it is compacted. Defaults to 1000.
+	 * The file is only compacted once superseded records also outnumber the live checkpoints.
+	 */
+	public void setCompactionThreshold(int compactionThreshold) {
+		Assert.isTrue(compactionThreshold > 0, "The compaction threshold must be greater than zero");
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	public long get(String key, long defaultValue) {
+		Long value = checkpoints.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	public synchronized void put(String key, long value) {
+		Assert.hasLength(key, "The key must not be empty");
+		Long previous = checkpoints.get(key);
+		if (previous != null && previous == value) {
+			return;
+		}
+		append(PUT, key, value);
+		checkpoints.put(key, value);
+		compactIfNeeded();
+	}
+
+	public synchronized void remove(String key) {
+		Assert.hasLength(key, "The key must not be empty");
+		if (!checkpoints.containsKey(key)) {
+			return;
+		}
+		append(REMOVE, key, 0);
+		checkpoints.remove(key);
+		compactIfNeeded();
+	}
+
+	/**
+	 * Rewrites the file so that it holds only the live checkpoints.
+	 */
+	public synchronized void compact() {
+		ensureOpen();
+		File tempFile = tempFile();
+		try {
+			RandomAccessFile temp = new RandomAccessFile(tempFile, "rw");
+			try {
+				temp.setLength(0);
+				FileChannel tempChannel = temp.getChannel();
+				for (Map.Entry<String, Long> checkpoint : checkpoints.entrySet()) {
+					write(tempChannel, PUT, checkpoint.getKey(), checkpoint.getValue());
+				}
+				tempChannel.force(true);
+			} finally {
+				temp.close();
+			}
+		} catch (IOException e) {
+			tempFile.delete();
+			throw new IllegalStateException("Unable to write checkpoints to '" + tempFile + "'", e);
+		}
+		closeLog();
+		try {
+			if (!tempFile.renameTo(file)) {
+				// some platforms won't rename over an existing file; open() recovers from the temporary file if the log is gone
+				file.delete();
+				if (!tempFile.renameTo(file)) {
+					throw new IllegalStateException("Unable to rename '" + tempFile + "' to '" + file + "'");
+				}
+			}
+			syncDirectory();
+			recordCount = checkpoints.size();
+		} finally {
+			// reopens the compacted log, or the old one if it couldn't be replaced
+			open();
+		}
+	}
+
+	/**
+	 * Closes the file and releases it for use by other stores. The store can't be used afterwards.
+	 */
+	public synchronized void close() {
+		closeQuietly();
+	}
+
+	// private helpers
+
+	private void open() {
+		File tempFile = tempFile();
+		if (!file.exists() && tempFile.exists()) {
+			// compaction was interrupted after the log was deleted, but the temporary file was already complete
+			if (!tempFile.renameTo(file)) {
+				throw new IllegalStateException("Unable to rename '" + tempFile + "' to '" + file + "'");
+			}
+		}
+		try {
+			log = new RandomAccessFile(file, "rw");
+			channel = log.getChannel();
+			channel.position(channel.size());
+		} catch (IOException e) {
+			closeLog();
+			throw new IllegalStateException("Unable to open '" + file + "'", e);
+		}
+	}
+
+	private void load() {
+		try {
+			long size = channel.size();
+			if (size == 0) {
+				return;
+			}
+			Assert.isTrue(size <= Integer.MAX_VALUE, "'" + file + "' is too large to be a checkpoint file");
+			// read rather than mapped, as a mapped file can't be truncated, renamed or deleted on some platforms until it is unmapped
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, buffer.position()) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+			int validLength = 0;
+			while (buffer.remaining() >= RECORD_OVERHEAD) {
+				byte op = buffer.get();
+				int keyLength = buffer.getShort() & 0xFFFF;
+				if ((op != PUT && op != REMOVE) || buffer.remaining() < keyLength + 12) {
+					break;
+				}
+				byte[] keyBytes = new byte[keyLength];
+				buffer.get(keyBytes);
+				long value = buffer.getLong();
+				int checksum = buffer.getInt();
+				if (checksum != checksum(op, keyBytes, value)) {
+					break;
+				}
+				String key = new String(keyBytes, "UTF-8");
+				if (op == PUT) {
+					checkpoints.put(key, value);
+				} else {
+					checkpoints.remove(key);
+				}
+				recordCount++;
+				validLength = buffer.position();
+			}
+			if (validLength < size) {
+				// the tail was left incomplete by a crash while appending
+				channel.truncate(validLength);
+			}
+			channel.position(validLength);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read checkpoints from '" + file + "'", e);
+		}
+	}
+
+	private void append(byte op, String key, long value) {
+		ensureOpen();
+		try {
+			write(channel, op, key, value);
+			if (syncOnWrite) {
+				channel.force(false);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write checkpoint to '" + file + "'", e);
+		}
+		recordCount++;
+	}
+
+	private File tempFile() {
+		return new File(file.getParentFile(), file.getName() + ".tmp");
+	}
+
+	/*
+	 * Forces the directory entry of the renamed log to disk, where the platform allows it. Only Java 7 and later can open a
+	 * directory as a channel (and only on some systems), so this is done reflectively; without it, a rename survives a process
+	 * crash but may be undone by a machine failure.
+	 */
+	private void syncDirectory() {
+		if (OPEN_CHANNEL == null) {
+			return;
+		}
+		try {
+			FileChannel directory = (FileChannel) OPEN_CHANNEL.invoke(null, TO_PATH.invoke(file.getParentFile()), READ_OPTIONS);
+			try {
+				directory.force(true);
+			} finally {
+				directory.close();
+			}
+		} catch (Exception e) {
+			// the platform can't sync directories
+		}
+	}
+
+	private void compactIfNeeded() {
+		int superseded = recordCount - checkpoints.size();
+		if (superseded >= compactionThreshold && superseded > checkpoints.size()) {
+			compact();
+		}
+	}
+
+	private void ensureOpen() {
+		if (channel == null) {
+			throw new IllegalStateException("The checkpoint store for '" + file + "' has been closed");
+		}
+	}
+
+	private void closeLog() {
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				// nothing left to lose
+			}
+			log = null;
+			channel = null;
+		}
+	}
+
+	private void closeQuietly() {
+		closeLog();
+		try {
+			if (lock != null) {
+				lock.release();
+			}
+			lockFile.close();
+		} catch (IOException e) {
+			// nothing left to lose
+		}
+	}
+
+	private static FileLock tryLock(RandomAccessFile lockFile, File lockFileName) {
+		FileLock lock;
+		try {
+			lock = lockFile.getChannel().tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null;
+		} catch (IOException e) {
+			lock = null;
+		}
+		if (lock == null) {
+			try {
+				lockFile.close();
+			} catch (IOException e) {
+				// the lock wasn't taken, so there is nothing to release
+			}
+			throw new IllegalStateException("'" + lockFileName + "' is locked by another checkpoint store");
+		}
+		return lock;
+	}
+
+	private static void write(FileChannel channel, byte op, String key, long value) throws IOException {
+		byte[] keyBytes = encode(key);
+		Assert.isTrue(keyBytes.length <= MAX_KEY_LENGTH, "The key must not be longer than " + MAX_KEY_LENGTH + " bytes");
+		ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + keyBytes.length);
+		record.put(op).putShort((short) keyBytes.length).put(keyBytes).putLong(value).putInt(checksum(op, keyBytes, value));
+		record.flip();
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+	private static int checksum(byte op, byte[] keyBytes, long value) {
+		CRC32 crc = new CRC32();
+		crc.update(op);
+		crc.update(keyBytes);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (value >>> shift));
+		}
+		return (int) crc.getValue();
+	}
+
+	private static byte[] encode(String key) {
+		try {
+			return key.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final byte PUT = 1;
+
+	private static final byte REMOVE = 2;
+
+	// op (1 byte), key length (2 bytes), value (8 bytes) and checksum (4 bytes)
+	private static final int RECORD_OVERHEAD = 15;
+
+	private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+	static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+	private static final Method TO_PATH;
+
+	private static final Method OPEN_CHANNEL;
+
+	private static final Object READ_OPTIONS;
+
+	static {
+		Method toPath = null;
+		Method openChannel = null;
+		Object readOptions = null;
+		try {
+			Class<?> pathClass = Class.forName("java.nio.file.Path");
+			Class<?> openOptionClass = Class.forName("java.nio.file.OpenOption");
+			Class<?> standardOpenOptionClass = Class.forName("java.nio.file.StandardOpenOption");
+			toPath = File.class.getMethod("toPath");
+			readOptions = Array.newInstance(openOptionClass, 1);
+			Array.set(readOptions, 0, standardOpenOptionClass.getField("READ").get(null));
+			openChannel = FileChannel.class.getMethod("open", pathClass, readOptions.getClass());
+		} catch (Exception e) {
+			// before Java 7
+			openChannel = null;
+		}
+		TO_PATH = toPath;
+		OPEN_CHANNEL = openChannel;
+		READ_OPTIONS = readOptions;
+	}
+
+}
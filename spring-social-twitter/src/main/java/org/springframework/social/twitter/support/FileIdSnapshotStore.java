@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link IdSnapshotStore} that keeps each snapshot in a file in a local directory.
+ * Since snapshots are sorted, each ID is stored as its (variable-length encoded) difference from the previous ID, and the
+ * result is compressed. A snapshot of a million follower IDs typically takes a few megabytes on disk.
+ * Snapshots are written to a temporary file, forced to disk and then renamed, so a crash (or a power failure) while saving leaves
+ * the previous snapshot intact. Each save has a temporary file of its own, so concurrent saves of the same key don't interfere;
+ * the last one to finish wins.
+ */
+public class FileIdSnapshotStore implements IdSnapshotStore {
+
+	private final File directory;
+
+	/**
+	 * Creates a store keeping snapshots in the given directory, which is created if it doesn't exist.
+	 */
+	public FileIdSnapshotStore(File directory) {
+		Assert.notNull(directory, "The directory must not be null");
+		directory.mkdirs();
+		Assert.isTrue(directory.isDirectory(), "'" + directory + "' is not a directory");
+		this.directory = directory;
+	}
+
+	public IdSnapshot load(String key) {
+		File file = fileFor(key);
+		InputStream in;
+		try {
+			in = new InflaterInputStream(new BufferedInputStream(new FileInputStream(file)));
+		} catch (FileNotFoundException e) {
+			// a save may have been interrupted while the previous snapshot was moved aside
+			file = previousFileFor(file);
+			try {
+				in = new InflaterInputStream(new BufferedInputStream(new FileInputStream(file)));
+			} catch (FileNotFoundException notFound) {
+				return null;
+			}
+		}
+		try {
+			try {
+				if (readVarLong(in) != MAGIC) {
+					throw new IllegalStateException("'" + file + "' is not an ID snapshot");
+				}
+				int count = (int) readVarLong(in);
+				long[] ids = new long[count];
+				long id = 0;
+				for (int i = 0; i < count; i++) {
+					id += readVarLong(in);
+					ids[i] = id;
+				}
+				return IdSnapshot.fromSorted(ids, count);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read ID snapshot from '" + file + "'", e);
+		}
+	}
+
+	public void save(String key, IdSnapshot snapshot) {
+		File file = fileFor(key);
+		File tempFile;
+		try {
+			tempFile = File.createTempFile(file.getName() + ".", ".tmp", directory);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create a temporary file in '" + directory + "'", e);
+		}
+		try {
+			FileOutputStream fileOut = new FileOutputStream(tempFile);
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			DeflaterOutputStream out = new DeflaterOutputStream(new BufferedOutputStream(fileOut), deflater);
+			try {
+				long[] ids = snapshot.ids();
+				writeVarLong(out, MAGIC);
+				writeVarLong(out, ids.length);
+				long previous = 0;
+				for (long id : ids) {
+					writeVarLong(out, id - previous);
+					previous = id;
+				}
+				out.finish();
+				out.flush();
+				// the snapshot must be on disk before it replaces the previous one
+				fileOut.getFD().sync();
+			} finally {
+				out.close();
+				deflater.end();
+			}
+		} catch (IOException e) {
+			tempFile.delete();
+			throw new IllegalStateException("Unable to write ID snapshot to '" + tempFile + "'", e);
+		}
+		replace(tempFile, file);
+	}
+
+	public void remove(String key) {
+		File file = fileFor(key);
+		synchronized (this) {
+			file.delete();
+			previousFileFor(file).delete();
+		}
+	}
+
+	// private helpers
+
+	/**
+	 * Moves a new snapshot into place. If the platform won't rename over an existing file, the previous snapshot is moved aside
+	 * (where {@link #load(String)} still finds it) until the new one is in place, so there is always a snapshot to load.
+	 */
+	private synchronized void replace(File tempFile, File file) {
+		if (tempFile.renameTo(file)) {
+			return;
+		}
+		File previousFile = previousFileFor(file);
+		previousFile.delete();
+		if (file.exists() && !file.renameTo(previousFile)) {
+			tempFile.delete();
+			throw new IllegalStateException("Unable to move '" + file + "' aside");
+		}
+		if (!tempFile.renameTo(file)) {
+			previousFile.renameTo(file);
+			tempFile.delete();
+			throw new IllegalStateException("Unable to rename '" + tempFile + "' to '" + file + "'");
+		}
+		previousFile.delete();
+	}
+
+	private File previousFileFor(File file) {
+		return new File(directory, file.getName() + ".previous");
+	}
+
+	private File fileFor(String key) {
+		Assert.hasLength(key, "The key must not be empty");
+		try {
+			return new File(directory, URLEncoder.encode(key, "UTF-8") + ".ids");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeVarLong(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarLong(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of ID snapshot");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed ID snapshot");
+	}
+
+	private static final long MAGIC = 0x54574944; // "TWID"
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * The difference between two {@link IdSnapshot}s: the IDs that were added and the IDs that were removed.
+ * Both are sorted primitive arrays that may be passed straight to {@link org.springframework.social.twitter.api.UserOperations#lookupUsers(long...)}.
+ */
+public class IdDiff {
+
+	private final long[] added;
+
+	private final long[] removed;
+
+	/**
+	 * Creates a diff.
+	 * @param added the IDs that were added, in ascending order
+	 * @param removed the IDs that were removed, in ascending order
+	 */
+	public IdDiff(long[] added, long[] removed) {
+		this.added = added;
+		this.removed = removed;
+	}
+
+	/**
+	 * The IDs in the later snapshot but not the earlier one (for example, new followers), in ascending order.
+	 * The array is not copied and should not be modified.
+	 */
+	public long[] getAdded() {
+		return added;
+	}
+
+	/**
+	 * The IDs in the earlier snapshot but not the later one (for example, lost followers), in ascending order.
+	 * The array is not copied and should not be modified.
+	 */
+	public long[] getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * Returns true if the two snapshots held the same IDs.
+	 */
+	public boolean isEmpty() {
+		return added.length == 0 && removed.length == 0;
+	}
+
+}
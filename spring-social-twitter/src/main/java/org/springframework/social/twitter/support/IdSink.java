@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * Callback receiving the IDs streamed by a {@link SocialGraphCrawler}, one page at a time.
+ */
+public interface IdSink {
+
+	/**
+	 * Receives a page of IDs.
+	 * The array may be reused or retained by the caller, so implementations should copy any IDs they need to keep.
+	 * @param ids an array holding the IDs
+	 * @param offset the index of the first ID in the array
+	 * @param length the number of IDs
+	 */
+	void accept(long[] ids, int offset, int length);
+
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable, sorted set of user IDs (such as a user's followers at a point in time), held in a primitive array.
+ * A snapshot of a million IDs takes 8MB of heap, compared to the tens of megabytes taken by a <code>Set&lt;Long&gt;</code>,
+ * and snapshots are compared by merging their sorted arrays rather than by hashing.
+ * Set operations such as {@link #intersect(IdSnapshot)} make it cheap to answer questions like "which of my followers do I follow back?":
+ * <pre>
+ * IdSnapshot friends = ...;
+ * IdSnapshot followers = ...;
+ * IdSnapshot mutuals = friends.intersect(followers);
+ * IdSnapshot fans = followers.minus(friends);
+ * IdSnapshot notFollowingBack = friends.minus(followers);
+ * </pre>
+ */
+public class IdSnapshot {
+
+	private static final long[] NO_IDS = new long[0];
+
+	/**
+	 * An empty snapshot.
+	 */
+	public static final IdSnapshot EMPTY = new IdSnapshot(NO_IDS);
+
+	private final long[] ids;
+
+	private IdSnapshot(long[] sortedIds) {
+		this.ids = sortedIds;
+	}
+
+	/**
+	 * Creates a snapshot of the given IDs, which may be in any order and may contain duplicates.
+	 * The array is copied.
+	 */
+	public static IdSnapshot of(long... ids) {
+		return of(ids, 0, ids.length);
+	}
+
+	/**
+	 * Creates a snapshot of a range of the given IDs, which may be in any order and may contain duplicates.
+	 * The array is copied.
+	 * @param ids an array holding the IDs
+	 * @param offset the index of the first ID in the array
+	 * @param length the number of IDs
+	 */
+	public static IdSnapshot of(long[] ids, int offset, int length) {
+		long[] sorted = new long[length];
+		System.arraycopy(ids, offset, sorted, 0, length);
+		Arrays.sort(sorted);
+		return fromSorted(sorted, dedupe(sorted));
+	}
+
+	/**
+	 * Creates a snapshot of the given IDs, such as those returned by {@link org.springframework.social.twitter.api.FriendOperations#getFollowerIds()}.
+	 */
+	public static IdSnapshot of(Collection<Long> ids) {
+		long[] sorted = new long[ids.size()];
+		int i = 0;
+		for (Long id : ids) {
+			sorted[i++] = id;
+		}
+		Arrays.sort(sorted);
+		return fromSorted(sorted, dedupe(sorted));
+	}
+
+	/*
+	 * Creates a snapshot backed by an array known to be sorted and free of duplicates (for example, one read from an IdSnapshotStore).
+	 */
+	static IdSnapshot fromSorted(long[] sortedIds, int length) {
+		if (length == 0) {
+			return EMPTY;
+		}
+		if (length == sortedIds.length) {
+			return new IdSnapshot(sortedIds);
+		}
+		long[] trimmed = new long[length];
+		System.arraycopy(sortedIds, 0, trimmed, 0, length);
+		return new IdSnapshot(trimmed);
+	}
+
+	/**
+	 * The number of IDs in this snapshot.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Returns true if this snapshot has no IDs.
+	 */
+	public boolean isEmpty() {
+		return ids.length == 0;
+	}
+
+	/**
+	 * Returns true if this snapshot contains the given ID.
+	 */
+	public boolean contains(long id) {
+		return Arrays.binarySearch(ids, id) >= 0;
+	}
+
+	/**
+	 * The ID at the given position in ascending order.
+	 */
+	public long get(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * A copy of the IDs in this snapshot, in ascending order.
+	 */
+	public long[] toArray() {
+		return ids.clone();
+	}
+
+	/**
+	 * Compares this snapshot with a later one, finding the IDs that were added and removed.
+	 * Runs in time proportional to the sizes of the two snapshots.
+	 * @param current the later snapshot
+	 * @return the difference between this snapshot and the later one
+	 */
+	public IdDiff diff(IdSnapshot current) {
+		long[] previousIds = this.ids;
+		long[] currentIds = current.ids;
+		long[] added = new long[currentIds.length];
+		long[] removed = new long[previousIds.length];
+		int addedCount = 0;
+		int removedCount = 0;
+		int i = 0;
+		int j = 0;
+		while (i < previousIds.length && j < currentIds.length) {
+			long previousId = previousIds[i];
+			long currentId = currentIds[j];
+			if (previousId == currentId) {
+				i++;
+				j++;
+			} else if (previousId < currentId) {
+				removed[removedCount++] = previousId;
+				i++;
+			} else {
+				added[addedCount++] = currentId;
+				j++;
+			}
+		}
+		while (i < previousIds.length) {
+			removed[removedCount++] = previousIds[i++];
+		}
+		while (j < currentIds.length) {
+			added[addedCount++] = currentIds[j++];
+		}
+		return new IdDiff(trim(added, addedCount), trim(removed, removedCount));
+	}
+
+	/**
+	 * The IDs in both this snapshot and the other one (for example, mutual follows when intersecting friends with followers).
+	 */
+	public IdSnapshot intersect(IdSnapshot other) {
+		IdArray result = new IdArray(Math.min(ids.length, other.ids.length));
+		intersect(ids, other.ids, result);
+		return result.toSnapshot();
+	}
+
+	/**
+	 * Streams the IDs in both this snapshot and the other one to a sink, in ascending order and in batches, without building
+	 * the intersection in memory.
+	 */
+	public void intersect(IdSnapshot other, IdSink sink) {
+		BatchingOutput output = new BatchingOutput(sink);
+		intersect(ids, other.ids, output);
+		output.flush();
+	}
+
+	/**
+	 * The IDs in this snapshot but not in the other one (for example, followers who aren't followed back when subtracting
+	 * friends from followers).
+	 */
+	public IdSnapshot minus(IdSnapshot other) {
+		IdArray result = new IdArray(ids.length);
+		minus(ids, other.ids, result);
+		return result.toSnapshot();
+	}
+
+	/**
+	 * Streams the IDs in this snapshot but not in the other one to a sink, in ascending order and in batches, without building
+	 * the difference in memory.
+	 */
+	public void minus(IdSnapshot other, IdSink sink) {
+		BatchingOutput output = new BatchingOutput(sink);
+		minus(ids, other.ids, output);
+		output.flush();
+	}
+
+	/*
+	 * The backing array, which must not be modified. Used by IdSnapshotStore implementations to avoid copying.
+	 */
+	long[] ids() {
+		return ids;
+	}
+
+	// private helpers
+
+	/*
+	 * When one array is this many times larger than the other, searching it for each ID of the smaller one
+	 * beats walking through all of it.
+	 */
+	private static final int SEARCH_RATIO = 32;
+
+	private static void intersect(long[] a, long[] b, IdOutput output) {
+		long[] small = a.length <= b.length ? a : b;
+		long[] large = small == a ? b : a;
+		if ((long) small.length * SEARCH_RATIO < large.length) {
+			int from = 0;
+			for (long id : small) {
+				int position = search(large, from, id);
+				if (position >= 0) {
+					output.add(id);
+					from = position + 1;
+				} else {
+					from = -position - 1;
+				}
+			}
+			return;
+		}
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] == b[j]) {
+				output.add(a[i]);
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+	}
+
+	private static void minus(long[] a, long[] b, IdOutput output) {
+		if ((long) a.length * SEARCH_RATIO < b.length) {
+			int from = 0;
+			for (long id : a) {
+				int position = search(b, from, id);
+				if (position < 0) {
+					output.add(id);
+					from = -position - 1;
+				} else {
+					from = position + 1;
+				}
+			}
+			return;
+		}
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] == b[j]) {
+				i++;
+				j++;
+			} else if (a[i] < b[j]) {
+				output.add(a[i++]);
+			} else {
+				j++;
+			}
+		}
+		while (i < a.length) {
+			output.add(a[i++]);
+		}
+	}
+
+	/*
+	 * Binary search of ids[from..], returning the ID's position or (-(insertion point) - 1).
+	 */
+	private static int search(long[] ids, int from, long id) {
+		int low = from;
+		int high = ids.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midId = ids[mid];
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private static int dedupe(long[] sorted) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int length = 1;
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i] != sorted[length - 1]) {
+				sorted[length++] = sorted[i];
+			}
+		}
+		return length;
+	}
+
+	private static long[] trim(long[] ids, int length) {
+		if (length == ids.length) {
+			return ids;
+		}
+		long[] trimmed = new long[length];
+		System.arraycopy(ids, 0, trimmed, 0, length);
+		return trimmed;
+	}
+
+	private interface IdOutput {
+
+		void add(long id);
+
+	}
+
+	private static class IdArray implements IdOutput {
+
+		private final long[] ids;
+
+		private int size;
+
+		public IdArray(int capacity) {
+			this.ids = new long[capacity];
+		}
+
+		public void add(long id) {
+			ids[size++] = id;
+		}
+
+		public IdSnapshot toSnapshot() {
+			return fromSorted(ids, size);
+		}
+
+	}
+
+	private static class BatchingOutput implements IdOutput {
+
+		private final IdSink sink;
+
+		private final long[] batch = new long[BATCH_SIZE];
+
+		private int size;
+
+		public BatchingOutput(IdSink sink) {
+			this.sink = sink;
+		}
+
+		public void add(long id) {
+			batch[size++] = id;
+			if (size == batch.length) {
+				flush();
+			}
+		}
+
+		public void flush() {
+			if (size > 0) {
+				sink.accept(batch, 0, size);
+				size = 0;
+			}
+		}
+
+		private static final int BATCH_SIZE = 1024;
+
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * Strategy for persisting {@link IdSnapshot}s between runs, so that a later snapshot can be compared with an earlier one.
+ * Implementations must be safe for use by multiple threads.
+ */
+public interface IdSnapshotStore {
+
+	/**
+	 * Retrieves a snapshot.
+	 * @param key the snapshot key
+	 * @return the snapshot, or null if no snapshot is stored under the key
+	 */
+	IdSnapshot load(String key);
+
+	/**
+	 * Stores a snapshot, replacing any previous snapshot stored under the key.
+	 * @param key the snapshot key
+	 * @param snapshot the snapshot
+	 */
+	void save(String key, IdSnapshot snapshot);
+
+	/**
+	 * Removes a snapshot. Does nothing if no snapshot is stored under the key.
+	 * @param key the snapshot key
+	 */
+	void remove(String key);
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CheckpointStore} that keeps checkpoints in memory.
+ * Checkpoints do not survive a restart, so this implementation is mainly useful for tests and short-lived jobs;
+ * long-running jobs should use a {@link FileCheckpointStore} or a store backed by a shared database.
+ */
+public class InMemoryCheckpointStore implements CheckpointStore {
+
+	private final ConcurrentMap<String, Long> checkpoints = new ConcurrentHashMap<String, Long>();
+
+	public long get(String key, long defaultValue) {
+		Long value = checkpoints.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	public void put(String key, long value) {
+		checkpoints.put(key, value);
+	}
+
+	public void remove(String key) {
+		checkpoints.remove(key);
+	}
+
+}
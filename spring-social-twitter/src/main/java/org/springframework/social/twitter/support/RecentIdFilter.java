@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the most recently seen IDs, up to a fixed capacity, so that repeats can be dropped.
+ * Once full, the ID seen longest ago is forgotten to make room for each new one.
+ */
+class RecentIdFilter {
+
+	private final Map<Long, Boolean> ids;
+
+	public RecentIdFilter(final int capacity) {
+		this.ids = new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Records an ID, returning true if it hasn't been seen recently.
+	 */
+	public synchronized boolean add(long id) {
+		return ids.put(id, Boolean.TRUE) == null;
+	}
+
+	/**
+	 * Forgets an ID, so that it is no longer considered a repeat.
+	 */
+	public synchronized void remove(long id) {
+		ids.remove(id);
+	}
+
+}
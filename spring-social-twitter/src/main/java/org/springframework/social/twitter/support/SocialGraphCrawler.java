@@ -0,0 +1,229 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Locale;
+
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.CursoredIdPage;
+import org.springframework.social.twitter.api.FriendOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.api.UserOperations;
+import org.springframework.util.Assert;
+
+/**
+ * Crawls a user's complete list of friend or follower IDs, one cursored page at a time, streaming the IDs to an {@link IdSink}.
+ * Requests are paced so that a crawl never exceeds the friends/ids and followers/ids rate limits (15 requests per 15 minutes by default),
+ * so crawling an account with millions of followers may take hours.
+ * After each page has been handed to the sink, the next cursor is saved in a {@link CheckpointStore}.
+ * If the crawl is interrupted or the process dies, crawling the same user again resumes from the last saved cursor instead of starting over.
+ * Because the checkpoint is saved after the sink receives a page, the page being processed when a crawl dies may be delivered twice.
+ * Checkpoints are kept by user ID (or screen name), including those of the authenticated user's own graph, so crawlers for different
+ * access tokens may share a store. Crawling the authenticated user's graph therefore needs a crawler created from a {@link Twitter},
+ * which looks up the user's ID once.
+ */
+public class SocialGraphCrawler {
+
+	/**
+	 * The social graph to crawl.
+	 */
+	public enum Graph {
+		/** The users that a user follows. */
+		FRIENDS,
+		/** The users that follow a user. */
+		FOLLOWERS
+	}
+
+	private final FriendOperations friendOperations;
+
+	private final CheckpointStore checkpointStore;
+
+	private final UserOperations userOperations;
+
+	private volatile Long authenticatedUserId;
+
+	private RateLimitPacer friendsPacer = RateLimitPacer.perRateLimitWindow(IDS_REQUESTS_PER_WINDOW);
+
+	private RateLimitPacer followersPacer = RateLimitPacer.perRateLimitWindow(IDS_REQUESTS_PER_WINDOW);
+
+	/**
+	 * Creates a crawler able to crawl the graph of any user, including the authenticated user.
+	 * @param twitter the binding used to fetch pages of IDs and to look up the authenticated user's ID
+	 * @param checkpointStore the store in which crawl progress is saved
+	 */
+	public SocialGraphCrawler(Twitter twitter, CheckpointStore checkpointStore) {
+		this(twitter.friendOperations(), twitter.userOperations(), checkpointStore);
+	}
+
+	/**
+	 * Creates a crawler able to crawl the graphs of users given by ID or screen name, but not the authenticated user's own graph.
+	 * @param friendOperations the friend operations used to fetch pages of IDs
+	 * @param checkpointStore the store in which crawl progress is saved
+	 */
+	public SocialGraphCrawler(FriendOperations friendOperations, CheckpointStore checkpointStore) {
+		this(friendOperations, null, checkpointStore);
+	}
+
+	private SocialGraphCrawler(FriendOperations friendOperations, UserOperations userOperations, CheckpointStore checkpointStore) {
+		Assert.notNull(friendOperations, "FriendOperations must not be null");
+		Assert.notNull(checkpointStore, "CheckpointStore must not be null");
+		this.friendOperations = friendOperations;
+		this.userOperations = userOperations;
+		this.checkpointStore = checkpointStore;
+	}
+
+	/**
+	 * Sets the pacer for requests to friends/ids.
+	 * Crawlers sharing an access token should share pacers, too.
+	 */
+	public void setFriendsPacer(RateLimitPacer friendsPacer) {
+		Assert.notNull(friendsPacer, "RateLimitPacer must not be null");
+		this.friendsPacer = friendsPacer;
+	}
+
+	/**
+	 * Sets the pacer for requests to followers/ids.
+	 * Crawlers sharing an access token should share pacers, too.
+	 */
+	public void setFollowersPacer(RateLimitPacer followersPacer) {
+		Assert.notNull(followersPacer, "RateLimitPacer must not be null");
+		this.followersPacer = followersPacer;
+	}
+
+	/**
+	 * Crawls the authenticated user's friend or follower IDs, resuming from the last checkpoint if a previous crawl didn't finish.
+	 * The crawl shares its checkpoint with crawls of the same user by ID.
+	 * @param graph the graph to crawl
+	 * @param sink the sink receiving the IDs
+	 * @return the number of IDs delivered to the sink by this call
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit. Progress is kept and the crawl may be resumed later.
+	 * @throws IllegalStateException if the crawler wasn't created from a {@link Twitter}
+	 */
+	public long crawl(Graph graph, IdSink sink) throws InterruptedException {
+		return crawl(graph, null, null, sink);
+	}
+
+	/**
+	 * Crawls a user's friend or follower IDs, resuming from the last checkpoint if a previous crawl didn't finish.
+	 * @param graph the graph to crawl
+	 * @param userId the ID of the user whose graph is crawled
+	 * @param sink the sink receiving the IDs
+	 * @return the number of IDs delivered to the sink by this call
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit. Progress is kept and the crawl may be resumed later.
+	 */
+	public long crawl(Graph graph, long userId, IdSink sink) throws InterruptedException {
+		return crawl(graph, userId, null, sink);
+	}
+
+	/**
+	 * Crawls a user's friend or follower IDs, resuming from the last checkpoint if a previous crawl didn't finish.
+	 * @param graph the graph to crawl
+	 * @param screenName the screen name of the user whose graph is crawled
+	 * @param sink the sink receiving the IDs
+	 * @return the number of IDs delivered to the sink by this call
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit. Progress is kept and the crawl may be resumed later.
+	 */
+	public long crawl(Graph graph, String screenName, IdSink sink) throws InterruptedException {
+		Assert.notNull(screenName, "The screen name must not be null");
+		return crawl(graph, null, screenName, sink);
+	}
+
+	/**
+	 * Tells whether a crawl of a user's graph was interrupted and will be resumed from a checkpoint by the next crawl.
+	 */
+	public boolean isUnfinished(Graph graph, long userId) {
+		return checkpointStore.get(checkpointKey(graph, userId, null), -1) != -1;
+	}
+
+	/**
+	 * Discards the checkpoint of an unfinished crawl, so that the next crawl of the user's graph starts over.
+	 */
+	public void reset(Graph graph, long userId) {
+		checkpointStore.remove(checkpointKey(graph, userId, null));
+	}
+
+	/**
+	 * Discards the checkpoint of an unfinished crawl, so that the next crawl of the user's graph starts over.
+	 */
+	public void reset(Graph graph, String screenName) {
+		checkpointStore.remove(checkpointKey(graph, null, screenName));
+	}
+
+	// private helpers
+
+	private long crawl(Graph graph, Long userId, String screenName, IdSink sink) throws InterruptedException {
+		Assert.notNull(graph, "The graph must not be null");
+		Assert.notNull(sink, "IdSink must not be null");
+		String key = checkpointKey(graph, userId, screenName);
+		RateLimitPacer pacer = graph == Graph.FRIENDS ? friendsPacer : followersPacer;
+		long cursor = checkpointStore.get(key, -1);
+		long count = 0;
+		while (true) {
+			pacer.acquire();
+			CursoredIdPage page;
+			try {
+				page = fetchPage(graph, userId, screenName, cursor);
+			} catch (RateLimitExceededException e) {
+				pacer.deferForWindow();
+				continue;
+			}
+			sink.accept(page.getIds(), 0, page.size());
+			count += page.size();
+			if (!page.hasNext()) {
+				checkpointStore.remove(key);
+				return count;
+			}
+			cursor = page.getNextCursor();
+			checkpointStore.put(key, cursor);
+		}
+	}
+
+	private CursoredIdPage fetchPage(Graph graph, Long userId, String screenName, long cursor) {
+		if (graph == Graph.FRIENDS) {
+			if (userId != null) {
+				return friendOperations.getFriendIdPage(userId, cursor);
+			}
+			return screenName != null ? friendOperations.getFriendIdPage(screenName, cursor) : friendOperations.getFriendIdPage(cursor);
+		}
+		if (userId != null) {
+			return friendOperations.getFollowerIdPage(userId, cursor);
+		}
+		return screenName != null ? friendOperations.getFollowerIdPage(screenName, cursor) : friendOperations.getFollowerIdPage(cursor);
+	}
+
+	private String checkpointKey(Graph graph, Long userId, String screenName) {
+		if (userId == null && screenName == null) {
+			userId = getAuthenticatedUserId();
+		}
+		String user = userId != null ? userId.toString() : "@" + screenName.toLowerCase(Locale.ENGLISH);
+		return "crawl/" + graph.name().toLowerCase(Locale.ENGLISH) + "/" + user;
+	}
+
+	private long getAuthenticatedUserId() {
+		Assert.state(userOperations != null, "The authenticated user's graph can only be crawled by a crawler created from a Twitter binding");
+		Long userId = authenticatedUserId;
+		if (userId == null) {
+			// looked up once, as it never changes for an access token
+			userId = userOperations.getProfileId();
+			authenticatedUserId = userId;
+		}
+		return userId;
+	}
+
+	private static final int IDS_REQUESTS_PER_WINDOW = 15;
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Locale;
+
+import org.springframework.social.twitter.support.SocialGraphCrawler.Graph;
+import org.springframework.util.Assert;
+
+/**
+ * Tracks changes to users' friends or followers over time.
+ * Each call to {@link #update(Graph, long)} crawls the user's complete list of friend or follower IDs, compares it with the
+ * snapshot saved by the previous call, and saves the new snapshot in its place.
+ * The resulting {@link IdDiff} holds the new and lost friends or followers as primitive arrays ready to be hydrated with
+ * {@link org.springframework.social.twitter.api.UserOperations#lookupUsers(long...)}.
+ * Each page of IDs collected by a crawl is saved in the snapshot store as a snapshot of its own, so an update that is interrupted
+ * (or dies with the process) resumes where the crawl left off instead of starting over. Saving a page costs the same however far the
+ * crawl has got; the pages are only merged and sorted once the crawl has finished.
+ */
+public class SocialGraphDiffer {
+
+	private final SocialGraphCrawler crawler;
+
+	private final IdSnapshotStore snapshotStore;
+
+	/**
+	 * Creates a differ.
+	 * @param crawler the crawler used to fetch complete lists of IDs
+	 * @param snapshotStore the store in which the latest snapshot for each user is kept
+	 */
+	public SocialGraphDiffer(SocialGraphCrawler crawler, IdSnapshotStore snapshotStore) {
+		Assert.notNull(crawler, "SocialGraphCrawler must not be null");
+		Assert.notNull(snapshotStore, "IdSnapshotStore must not be null");
+		this.crawler = crawler;
+		this.snapshotStore = snapshotStore;
+	}
+
+	/**
+	 * Takes a new snapshot of a user's friends or followers and compares it with the previous one.
+	 * @param graph the graph to snapshot
+	 * @param userId the ID of the user
+	 * @return the changes since the previous snapshot, or null if there was no previous snapshot
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit, in which case the previous snapshot is kept
+	 * and the next update resumes the crawl
+	 */
+	public IdDiff update(Graph graph, long userId) throws InterruptedException {
+		String key = snapshotKey(graph, userId);
+		IdCollector collector = new IdCollector(key + PARTIAL_SUFFIX);
+		if (!crawler.isUnfinished(graph, userId) || !collector.resume()) {
+			collector.removePages();
+			crawler.reset(graph, userId);
+		}
+		crawler.crawl(graph, userId, collector);
+		IdDiff diff = update(key, collector.toSnapshot());
+		collector.removePages();
+		return diff;
+	}
+
+	/**
+	 * Retrieves the latest snapshot of a user's friends or followers.
+	 * @param graph the graph
+	 * @param userId the ID of the user
+	 * @return the latest snapshot, or null if none has been taken
+	 */
+	public IdSnapshot getSnapshot(Graph graph, long userId) {
+		return snapshotStore.load(snapshotKey(graph, userId));
+	}
+
+	/**
+	 * Compares a snapshot with the previous one saved under the same key, and saves it in the previous one's place.
+	 * @param key the snapshot key
+	 * @param snapshot the new snapshot
+	 * @return the changes since the previous snapshot, or null if there was no previous snapshot
+	 */
+	public IdDiff update(String key, IdSnapshot snapshot) {
+		IdSnapshot previous = snapshotStore.load(key);
+		snapshotStore.save(key, snapshot);
+		return previous != null ? previous.diff(snapshot) : null;
+	}
+
+	// private helpers
+
+	private String snapshotKey(Graph graph, long userId) {
+		return graph.name().toLowerCase(Locale.ENGLISH) + "-" + userId;
+	}
+
+	private static final String PARTIAL_SUFFIX = "-partial";
+
+	private static final int INITIAL_CAPACITY = 5000;
+
+	/*
+	 * Collects the IDs of a crawl, saving each page under a numbered key so that an interrupted crawl can be resumed.
+	 * The crawler checkpoints its cursor after the page is saved, so the saved pages never fall behind the checkpoint; a page
+	 * saved just before a crash may be fetched and saved again, which only duplicates IDs that the final snapshot drops.
+	 */
+	private class IdCollector implements IdSink {
+
+		private final String partialKey;
+
+		private long[] ids = new long[INITIAL_CAPACITY];
+
+		private int size;
+
+		private int pageCount;
+
+		public IdCollector(String partialKey) {
+			this.partialKey = partialKey;
+		}
+
+		/*
+		 * Reads back the pages saved by an interrupted crawl, returning false if there are none.
+		 */
+		public boolean resume() {
+			IdSnapshot page;
+			while ((page = snapshotStore.load(pageKey(pageCount))) != null) {
+				add(page.ids(), 0, page.size());
+				pageCount++;
+			}
+			return pageCount > 0;
+		}
+
+		public void accept(long[] ids, int offset, int length) {
+			add(ids, offset, length);
+			snapshotStore.save(pageKey(pageCount), IdSnapshot.of(ids, offset, length));
+			pageCount++;
+		}
+
+		public void removePages() {
+			for (int page = 0; page < pageCount; page++) {
+				snapshotStore.remove(pageKey(page));
+			}
+			// pages left behind by an earlier crawl that was given up on
+			for (int page = pageCount; snapshotStore.load(pageKey(page)) != null; page++) {
+				snapshotStore.remove(pageKey(page));
+			}
+			pageCount = 0;
+		}
+
+		public IdSnapshot toSnapshot() {
+			return IdSnapshot.of(ids, 0, size);
+		}
+
+		private void add(long[] ids, int offset, int length) {
+			if (size + length > this.ids.length) {
+				long[] grown = new long[Math.max(this.ids.length * 2, size + length)];
+				System.arraycopy(this.ids, 0, grown, 0, size);
+				this.ids = grown;
+			}
+			System.arraycopy(ids, offset, this.ids, size, length);
+			size += length;
+		}
+
+		private String pageKey(int page) {
+			return partialKey + "-" + page;
+		}
+
+	}
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.SavedSearch;
+import org.springframework.social.twitter.api.SearchOperations;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.social.twitter.api.impl.SearchParameters;
+import org.springframework.util.Assert;
+
+/**
+ * Runs many standing search queries over and over, delivering the new tweets matching them to {@link StandingQueryListener}s.
+ * <p>
+ * Each query keeps a since_id watermark in a {@link CheckpointStore}, so only tweets newer than the last ones delivered are
+ * fetched, even across restarts. When a query returns a full page, older pages are fetched with max_id until the watermark
+ * is reached, so that busy queries don't lose tweets between refreshes.
+ * Queries with overlapping results are merged into a single stream: a tweet matching several queries is delivered once,
+ * for whichever query finds it first. If a listener throws an exception, the query's tweets are delivered again by the next
+ * refresh, so listeners may see a tweet more than once.
+ * </p>
+ * <p>
+ * All requests share one {@link RateLimitPacer} (by default, search/tweets' 180 requests per 15 minute window), so a
+ * {@link #refresh()} spreads the queries evenly across the rate limit window, running up to
+ * {@link #setConcurrencyLimit(int) concurrencyLimit} of them at once if a {@link TaskExecutor} is set.
+ * Queries should use {@link SearchParameters.ResultType#RECENT recent} results; popular results aren't ordered by ID.
+ * </p>
+ */
+public class StandingQueryEngine {
+
+	private final SearchOperations searchOperations;
+
+	private final CheckpointStore checkpointStore;
+
+	private final ConcurrentMap<String, SearchParameters> queries = new ConcurrentHashMap<String, SearchParameters>();
+
+	private final List<StandingQueryListener> listeners = new CopyOnWriteArrayList<StandingQueryListener>();
+
+	private volatile RateLimitPacer pacer = RateLimitPacer.perRateLimitWindow(SEARCH_REQUESTS_PER_WINDOW);
+
+	private volatile TaskExecutor taskExecutor;
+
+	private volatile int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	private volatile RecentIdFilter deliveredIds = new RecentIdFilter(DEFAULT_DEDUPLICATION_CAPACITY);
+
+	/**
+	 * Creates an engine.
+	 * @param searchOperations the search operations used to run the queries
+	 * @param checkpointStore the store in which the since_id watermarks are kept
+	 */
+	public StandingQueryEngine(SearchOperations searchOperations, CheckpointStore checkpointStore) {
+		Assert.notNull(searchOperations, "SearchOperations must not be null");
+		Assert.notNull(checkpointStore, "CheckpointStore must not be null");
+		this.searchOperations = searchOperations;
+		this.checkpointStore = checkpointStore;
+	}
+
+	/**
+	 * Adds a listener receiving the new tweets matching every query.
+	 */
+	public void addListener(StandingQueryListener listener) {
+		Assert.notNull(listener, "StandingQueryListener must not be null");
+		listeners.add(listener);
+	}
+
+	/**
+	 * Sets the pacer for requests to search/tweets.
+	 * Anything else searching with the same access token should share the pacer.
+	 */
+	public void setPacer(RateLimitPacer pacer) {
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		this.pacer = pacer;
+	}
+
+	/**
+	 * Sets the executor used to run several queries at once.
+	 * If no executor is set, queries are run one after another on the thread calling {@link #refresh()}.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of queries run at once. Defaults to 4.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "The concurrency limit must be greater than zero");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	/**
+	 * Sets how many recently delivered tweet IDs are remembered to drop repeats. Defaults to 100,000.
+	 * Setting it forgets the IDs remembered so far.
+	 */
+	public void setDeduplicationCapacity(int deduplicationCapacity) {
+		Assert.isTrue(deduplicationCapacity > 0, "The deduplication capacity must be greater than zero");
+		this.deliveredIds = new RecentIdFilter(deduplicationCapacity);
+	}
+
+	/**
+	 * Registers a standing query, replacing any query already registered under the same name.
+	 * The parameters are copied; the since_id and max_id set on them, if any, are ignored.
+	 * @param name the query's name, which is part of its watermark's key
+	 * @param searchParameters the query
+	 */
+	public void register(String name, SearchParameters searchParameters) {
+		Assert.hasText(name, "The query name must not be empty");
+		Assert.notNull(searchParameters, "SearchParameters must not be null");
+		queries.put(name, copy(searchParameters, 0, 0));
+	}
+
+	/**
+	 * Registers each of the authenticated user's saved searches as a standing query of recent results,
+	 * named <code>saved/</code> followed by the saved search's ID.
+	 * @return the number of saved searches registered
+	 */
+	public int registerSavedSearches() {
+		List<SavedSearch> savedSearches = searchOperations.getSavedSearches();
+		for (SavedSearch savedSearch : savedSearches) {
+			SearchParameters searchParameters = new SearchParameters(savedSearch.getQuery());
+			searchParameters.setResultType(SearchParameters.ResultType.RECENT);
+			register("saved/" + savedSearch.getId(), searchParameters);
+		}
+		return savedSearches.size();
+	}
+
+	/**
+	 * Unregisters a standing query. Its watermark is kept, so registering it again later resumes where it left off.
+	 */
+	public void unregister(String name) {
+		queries.remove(name);
+	}
+
+	/**
+	 * Runs every registered query once, paced across the rate limit window.
+	 * @return the number of new tweets delivered
+	 * @throws InterruptedException if the calling thread (or a worker thread) is interrupted while waiting for the rate limit
+	 */
+	public long refresh() throws InterruptedException {
+		List<String> names = new ArrayList<String>(queries.keySet());
+		final AtomicLong delivered = new AtomicLong();
+		WorkerGroup.forEach(taskExecutor, Math.min(concurrencyLimit, names.size()), names.iterator(), new WorkerGroup.ItemProcessor<String>() {
+			public void process(String name) throws InterruptedException {
+				delivered.addAndGet(runQuery(name));
+			}
+		}, "Standing query refresh");
+		return delivered.get();
+	}
+
+	/**
+	 * Refreshes the queries over and over, until the calling thread is interrupted.
+	 * @throws InterruptedException when the calling thread is interrupted
+	 */
+	public void run() throws InterruptedException {
+		while (true) {
+			if (queries.isEmpty()) {
+				Thread.sleep(IDLE_SLEEP_MILLIS);
+			}
+			refresh();
+		}
+	}
+
+	// private helpers
+
+	private int runQuery(final String name) throws InterruptedException {
+		final SearchParameters query = queries.get(name);
+		if (query == null) {
+			return 0;
+		}
+		try {
+			return new WatermarkWalker() {
+				protected List<Tweet> fetchPage(long sinceId, long maxId) throws InterruptedException {
+					return search(query, sinceId, maxId);
+				}
+				protected int deliver(List<Tweet> tweets) {
+					return StandingQueryEngine.this.deliver(name, tweets);
+				}
+			}.walk(checkpointStore, "search/" + name, query.getCount());
+		} catch (RateLimitExceededException e) {
+			pacer.deferForWindow();
+			fireError(name, e);
+		} catch (RuntimeException e) {
+			fireError(name, e);
+		}
+		return 0;
+	}
+
+	private List<Tweet> search(SearchParameters query, long sinceId, long maxId) throws InterruptedException {
+		pacer.acquire();
+		return searchOperations.search(copy(query, sinceId, maxId)).getTweets();
+	}
+
+	private int deliver(String name, List<Tweet> tweets) {
+		RecentIdFilter deliveredIds = this.deliveredIds;
+		List<Tweet> newTweets = new ArrayList<Tweet>(tweets.size());
+		for (Tweet tweet : tweets) {
+			if (deliveredIds.add(tweet.getId())) {
+				newTweets.add(tweet);
+			}
+		}
+		if (newTweets.isEmpty()) {
+			return 0;
+		}
+		boolean delivered = false;
+		try {
+			for (StandingQueryListener listener : listeners) {
+				listener.onTweets(name, newTweets);
+			}
+			delivered = true;
+		} finally {
+			if (!delivered) {
+				// the watermark isn't moved, so the tweets are fetched and delivered again by the next refresh
+				for (Tweet tweet : newTweets) {
+					deliveredIds.remove(tweet.getId());
+				}
+			}
+		}
+		return newTweets.size();
+	}
+
+	private void fireError(String name, RuntimeException e) {
+		for (StandingQueryListener listener : listeners) {
+			listener.onError(name, e);
+		}
+	}
+
+	private static SearchParameters copy(SearchParameters searchParameters, long sinceId, long maxId) {
+		SearchParameters copy = new SearchParameters(searchParameters.getQuery());
+		copy.setGeoCode(searchParameters.getGeoCode());
+		copy.setLang(searchParameters.getLang());
+		copy.setLocale(searchParameters.getLocale());
+		copy.setResultType(searchParameters.getResultType());
+		copy.setCount(searchParameters.getCount() != null ? searchParameters.getCount() : MAX_RESULTS_PER_PAGE);
+		copy.setUntil(searchParameters.getUntil());
+		copy.setIncludeEntities(searchParameters.isIncludeEntities());
+		if (sinceId > 0) {
+			copy.setSinceId(sinceId);
+		}
+		if (maxId > 0) {
+			copy.setMaxId(maxId);
+		}
+		return copy;
+	}
+
+	private static final int SEARCH_REQUESTS_PER_WINDOW = 180;
+
+	private static final int MAX_RESULTS_PER_PAGE = 100;
+
+	private static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+	private static final int DEFAULT_DEDUPLICATION_CAPACITY = 100000;
+
+	private static final long IDLE_SLEEP_MILLIS = 60 * 1000;
+
+}
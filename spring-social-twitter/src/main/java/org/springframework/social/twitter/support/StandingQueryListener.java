@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.List;
+
+import org.springframework.social.twitter.api.Tweet;
+
+/**
+ * Callback receiving the new tweets found by a {@link StandingQueryEngine}.
+ * Listeners may be called from several threads at once if the engine has a task executor.
+ */
+public interface StandingQueryListener {
+
+	/**
+	 * Receives the new tweets matching a query, newest first.
+	 * Tweets that were already delivered for another query are left out, so each tweet is delivered once.
+	 * @param queryName the name the query was registered under
+	 * @param tweets the new tweets
+	 */
+	void onTweets(String queryName, List<Tweet> tweets);
+
+	/**
+	 * Called when running a query fails. The query is run again in the next refresh.
+	 * @param queryName the name the query was registered under
+	 * @param e the exception
+	 */
+	void onError(String queryName, RuntimeException e);
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TimelineOperations;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.util.Assert;
+
+/**
+ * Fetches the history of users' timelines, as far back as Twitter allows (about 3,200 tweets per user).
+ * <p>
+ * Each timeline is walked backwards a page at a time using max_id, from the newest tweet until Twitter returns no more tweets,
+ * or until a given since_id or date is reached. Pages are streamed into a {@link TweetSink} as they arrive.
+ * Requests are paced to statuses/user_timeline's rate limit (180 requests per 15 minute window by default), and when many
+ * users are backfilled at once, up to {@link #setConcurrencyLimit(int) concurrencyLimit} timelines are walked concurrently if a
+ * {@link TaskExecutor} is set.
+ * </p>
+ */
+public class TimelineBackfiller {
+
+	private final TimelineOperations timelineOperations;
+
+	private RateLimitPacer pacer = RateLimitPacer.perRateLimitWindow(USER_TIMELINE_REQUESTS_PER_WINDOW);
+
+	private TaskExecutor taskExecutor;
+
+	private int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	private int pageSize = MAX_PAGE_SIZE;
+
+	/**
+	 * Creates a backfiller.
+	 * @param timelineOperations the timeline operations used to fetch pages of tweets
+	 */
+	public TimelineBackfiller(TimelineOperations timelineOperations) {
+		Assert.notNull(timelineOperations, "TimelineOperations must not be null");
+		this.timelineOperations = timelineOperations;
+	}
+
+	/**
+	 * Sets the pacer for requests to statuses/user_timeline.
+	 * Backfillers sharing an access token should share pacers, too.
+	 */
+	public void setPacer(RateLimitPacer pacer) {
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		this.pacer = pacer;
+	}
+
+	/**
+	 * Sets the executor used to backfill several timelines at once.
+	 * If no executor is set, timelines are backfilled one after another on the calling thread.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of timelines backfilled at once. Defaults to 4.
+	 * Concurrency shortens the backfill of many small timelines, but all requests still share the same pacer.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "The concurrency limit must be greater than zero");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	/**
+	 * Sets the number of tweets requested per page. Defaults to 200, the most Twitter allows.
+	 */
+	public void setPageSize(int pageSize) {
+		Assert.isTrue(pageSize > 0 && pageSize <= MAX_PAGE_SIZE, "The page size must be between 1 and " + MAX_PAGE_SIZE);
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Backfills a user's timeline.
+	 * @param userId the ID of the user whose timeline is backfilled
+	 * @param sinceId if greater than zero, only tweets with IDs greater than this one are fetched
+	 * @param notBefore if not null, only tweets created at or after this time are fetched
+	 * @param sink the sink receiving the tweets, newest first
+	 * @return the number of tweets delivered to the sink
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit
+	 */
+	public long backfill(long userId, long sinceId, Date notBefore, TweetSink sink) throws InterruptedException {
+		Assert.notNull(sink, "TweetSink must not be null");
+		long count = 0;
+		long maxId = 0;
+		while (true) {
+			List<Tweet> tweets = fetchPage(userId, sinceId, maxId);
+			if (tweets.isEmpty()) {
+				return count;
+			}
+			int end = notBefore != null ? countNotBefore(tweets, notBefore) : tweets.size();
+			if (end > 0) {
+				sink.accept(userId, end < tweets.size() ? tweets.subList(0, end) : tweets);
+				count += end;
+			}
+			if (end < tweets.size()) {
+				return count;
+			}
+			maxId = tweets.get(tweets.size() - 1).getId() - 1;
+		}
+	}
+
+	/**
+	 * Backfills many users' timelines, concurrently if a {@link TaskExecutor} is set.
+	 * A timeline that can't be fetched (for example, because the user is protected) is reported as failed, and doesn't stop the others.
+	 * @param userIds the IDs of the users whose timelines are backfilled
+	 * @param sinceId if greater than zero, only tweets with IDs greater than this one are fetched
+	 * @param notBefore if not null, only tweets created at or after this time are fetched
+	 * @param sink the sink receiving the tweets; it must be thread-safe if a {@link TaskExecutor} is set
+	 * @return a summary of the backfill
+	 * @throws InterruptedException if the calling thread (or a worker thread) is interrupted
+	 */
+	public BackfillReport backfill(long[] userIds, long sinceId, Date notBefore, TweetSink sink) throws InterruptedException {
+		Assert.notNull(userIds, "The user IDs must not be null");
+		Assert.notNull(sink, "TweetSink must not be null");
+		List<Long> users = new ArrayList<Long>(userIds.length);
+		for (long userId : userIds) {
+			users.add(userId);
+		}
+		Run run = new Run(sinceId, notBefore, sink);
+		WorkerGroup.forEach(taskExecutor, Math.min(concurrencyLimit, userIds.length), users.iterator(), run, "Timeline backfill");
+		return new BackfillReport(run.completed.get(), run.tweetCount.get(), run.userFailures);
+	}
+
+	// private helpers
+
+	private List<Tweet> fetchPage(long userId, long sinceId, long maxId) throws InterruptedException {
+		while (true) {
+			pacer.acquire();
+			try {
+				return timelineOperations.getUserTimeline(userId, pageSize, sinceId, maxId);
+			} catch (RateLimitExceededException e) {
+				pacer.deferForWindow();
+			}
+		}
+	}
+
+	private static int countNotBefore(List<Tweet> tweets, Date notBefore) {
+		// tweets are newest first, so stop at the first one that's too old
+		for (int i = 0; i < tweets.size(); i++) {
+			Date createdAt = tweets.get(i).getCreatedAt();
+			if (createdAt != null && createdAt.before(notBefore)) {
+				return i;
+			}
+		}
+		return tweets.size();
+	}
+
+	private class Run implements WorkerGroup.ItemProcessor<Long> {
+
+		private final long sinceId;
+
+		private final Date notBefore;
+
+		private final TweetSink sink;
+
+		private final AtomicInteger completed = new AtomicInteger();
+
+		private final AtomicLong tweetCount = new AtomicLong();
+
+		private final Map<Long, RuntimeException> userFailures = new ConcurrentHashMap<Long, RuntimeException>();
+
+		public Run(long sinceId, Date notBefore, TweetSink sink) {
+			this.sinceId = sinceId;
+			this.notBefore = notBefore;
+			this.sink = sink;
+		}
+
+		public void process(Long userId) throws InterruptedException {
+			try {
+				tweetCount.addAndGet(backfill(userId, sinceId, notBefore, sink));
+				completed.incrementAndGet();
+			} catch (RuntimeException e) {
+				userFailures.put(userId, e);
+			}
+		}
+
+	}
+
+	private static final int USER_TIMELINE_REQUESTS_PER_WINDOW = 180;
+
+	private static final int MAX_PAGE_SIZE = 200;
+
+	private static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.List;
+
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.social.twitter.support.TimelinePoller.Timeline;
+
+/**
+ * Callback receiving the new tweets found by a {@link TimelinePoller}.
+ * Listeners may be called from several threads at once if the poller has a task executor.
+ */
+public interface TimelineListener {
+
+	/**
+	 * Receives a batch of new tweets from a timeline, newest first.
+	 * A single poll may deliver several batches when a gap is filled; every batch is older than the one before it.
+	 * @param account the account the timeline is watched for
+	 * @param timeline the timeline
+	 * @param tweets the new tweets
+	 */
+	void onTweets(String account, Timeline timeline, List<Tweet> tweets);
+
+	/**
+	 * Called when polling a timeline fails. The timeline is polled again later.
+	 * @param account the account the timeline is watched for
+	 * @param timeline the timeline
+	 * @param e the exception
+	 */
+	void onError(String account, Timeline timeline, RuntimeException e);
+
+}
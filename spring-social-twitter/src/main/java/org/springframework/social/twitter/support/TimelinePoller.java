@@ -0,0 +1,347 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TimelineOperations;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.util.Assert;
+
+/**
+ * Polls many accounts' timelines for new tweets, delivering them to {@link TimelineListener}s.
+ * <p>
+ * Each watched timeline keeps a since_id watermark in a {@link CheckpointStore}, so only tweets newer than the last ones
+ * delivered are fetched, even across restarts. When a poll returns a full page, the tweets between that page and the
+ * watermark are fetched, too, by walking backwards with max_id, so that busy timelines don't lose tweets between polls.
+ * The watermark only moves once all new tweets have been delivered.
+ * </p>
+ * <p>
+ * Each timeline is polled at its own interval, adapted to its observed tweet rate: quiet timelines are polled rarely (up to
+ * every {@link #setMaxIntervalMillis(long) maxIntervalMillis}) and busy ones as often as their rate limit allows, aiming for
+ * {@link #setTargetTweetsPerPoll(int) targetTweetsPerPoll} new tweets per poll.
+ * </p>
+ * <p>
+ * The poller has no threads of its own. Either call {@link #poll()} periodically (it says when it next needs to be called)
+ * or dedicate a thread to {@link #run()}.
+ * </p>
+ */
+public class TimelinePoller {
+
+	/**
+	 * A timeline that can be polled.
+	 */
+	public enum Timeline {
+		/** The account's home timeline (statuses/home_timeline, 15 requests per window). */
+		HOME(15),
+		/** The tweets mentioning the account (statuses/mentions_timeline, 15 requests per window). */
+		MENTIONS(15),
+		/** The account's own tweets (statuses/user_timeline, 180 requests per window). */
+		USER(180);
+
+		private final int requestsPerWindow;
+
+		private Timeline(int requestsPerWindow) {
+			this.requestsPerWindow = requestsPerWindow;
+		}
+
+		private List<Tweet> fetch(TimelineOperations timelineOperations, int pageSize, long sinceId, long maxId) {
+			switch (this) {
+				case HOME:
+					return timelineOperations.getHomeTimeline(pageSize, sinceId, maxId);
+				case MENTIONS:
+					return timelineOperations.getMentions(pageSize, sinceId, maxId);
+				default:
+					return timelineOperations.getUserTimeline(pageSize, sinceId, maxId);
+			}
+		}
+	}
+
+	private final CheckpointStore checkpointStore;
+
+	private final ConcurrentMap<String, PolledTimeline> timelines = new ConcurrentHashMap<String, PolledTimeline>();
+
+	private final List<TimelineListener> listeners = new CopyOnWriteArrayList<TimelineListener>();
+
+	private volatile TaskExecutor taskExecutor;
+
+	private volatile int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	private volatile long maxIntervalMillis = DEFAULT_MAX_INTERVAL_MILLIS;
+
+	private volatile int targetTweetsPerPoll = DEFAULT_TARGET_TWEETS_PER_POLL;
+
+	/**
+	 * Creates a poller.
+	 * @param checkpointStore the store in which the since_id watermarks are kept
+	 */
+	public TimelinePoller(CheckpointStore checkpointStore) {
+		Assert.notNull(checkpointStore, "CheckpointStore must not be null");
+		this.checkpointStore = checkpointStore;
+	}
+
+	/**
+	 * Adds a listener receiving the new tweets from every watched timeline.
+	 */
+	public void addListener(TimelineListener listener) {
+		Assert.notNull(listener, "TimelineListener must not be null");
+		listeners.add(listener);
+	}
+
+	/**
+	 * Sets the executor used to poll several timelines at once.
+	 * If no executor is set, due timelines are polled one after another on the thread calling {@link #poll()}.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Sets the maximum number of timelines polled at once. Defaults to 4.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "The concurrency limit must be greater than zero");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	/**
+	 * Sets the longest time between polls of a quiet timeline. Defaults to 15 minutes.
+	 */
+	public void setMaxIntervalMillis(long maxIntervalMillis) {
+		Assert.isTrue(maxIntervalMillis >= 0, "The maximum interval must not be negative");
+		this.maxIntervalMillis = maxIntervalMillis;
+	}
+
+	/**
+	 * Sets the number of new tweets each poll aims to find. Defaults to 50.
+	 * Smaller numbers mean fresher tweets at the cost of more requests.
+	 * Numbers close to the page size (200) mean more gaps to fill.
+	 */
+	public void setTargetTweetsPerPoll(int targetTweetsPerPoll) {
+		Assert.isTrue(targetTweetsPerPoll > 0, "The target number of tweets per poll must be greater than zero");
+		this.targetTweetsPerPoll = targetTweetsPerPoll;
+	}
+
+	/**
+	 * Starts watching a timeline, paced to the timeline's own rate limit.
+	 * @param account a key identifying the account (for example, its user ID or access token); it is part of the watermark's key
+	 * @param timelineOperations the timeline operations for the account
+	 * @param timeline the timeline to watch
+	 */
+	public void watch(String account, TimelineOperations timelineOperations, Timeline timeline) {
+		watch(account, timelineOperations, timeline, RateLimitPacer.perRateLimitWindow(timeline.requestsPerWindow));
+	}
+
+	/**
+	 * Starts watching a timeline.
+	 * The timeline is polled no more often than the pacer allows. Anything else reading the same timeline with the same
+	 * access token should share the pacer.
+	 * @param account a key identifying the account (for example, its user ID or access token); it is part of the watermark's key
+	 * @param timelineOperations the timeline operations for the account
+	 * @param timeline the timeline to watch
+	 * @param pacer the pacer for requests to the timeline
+	 */
+	public void watch(String account, TimelineOperations timelineOperations, Timeline timeline, RateLimitPacer pacer) {
+		Assert.hasText(account, "The account must not be empty");
+		Assert.notNull(timelineOperations, "TimelineOperations must not be null");
+		Assert.notNull(timeline, "The timeline must not be null");
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		timelines.put(key(account, timeline), new PolledTimeline(account, timeline, timelineOperations, pacer));
+	}
+
+	/**
+	 * Stops watching a timeline. Its watermark is kept, so watching it again later resumes where it left off.
+	 */
+	public void unwatch(String account, Timeline timeline) {
+		timelines.remove(key(account, timeline));
+	}
+
+	/**
+	 * The current polling interval of a watched timeline, or -1 if the timeline isn't watched.
+	 */
+	public long getIntervalMillis(String account, Timeline timeline) {
+		PolledTimeline polledTimeline = timelines.get(key(account, timeline));
+		return polledTimeline != null ? polledTimeline.intervalMillis : -1;
+	}
+
+	/**
+	 * Polls every timeline that is due.
+	 * @return the time, in milliseconds, until the next timeline is due
+	 * @throws InterruptedException if the calling thread (or a worker thread) is interrupted while waiting for a rate limit
+	 */
+	public long poll() throws InterruptedException {
+		return poll(System.currentTimeMillis());
+	}
+
+	/**
+	 * Polls timelines as they fall due, until the calling thread is interrupted.
+	 * @throws InterruptedException when the calling thread is interrupted
+	 */
+	public void run() throws InterruptedException {
+		while (true) {
+			long delay = poll();
+			// wake up at least once a minute to notice newly watched timelines
+			Thread.sleep(Math.max(Math.min(delay, IDLE_SLEEP_MILLIS), 1));
+		}
+	}
+
+	// package-private for testing with a controlled clock
+
+	long poll(long now) throws InterruptedException {
+		List<PolledTimeline> due = new ArrayList<PolledTimeline>();
+		for (PolledTimeline timeline : timelines.values()) {
+			if (timeline.nextPollTime <= now) {
+				due.add(timeline);
+			}
+		}
+		if (!due.isEmpty()) {
+			final long pollTime = now;
+			WorkerGroup.forEach(taskExecutor, Math.min(concurrencyLimit, due.size()), due.iterator(), new WorkerGroup.ItemProcessor<PolledTimeline>() {
+				public void process(PolledTimeline timeline) throws InterruptedException {
+					pollTimeline(timeline, pollTime);
+				}
+			}, "Timeline polling");
+		}
+		long nextPollTime = Long.MAX_VALUE;
+		for (PolledTimeline timeline : timelines.values()) {
+			nextPollTime = Math.min(nextPollTime, timeline.nextPollTime);
+		}
+		return nextPollTime == Long.MAX_VALUE ? maxIntervalMillis : Math.max(nextPollTime - now, 0);
+	}
+
+	// private helpers
+
+	private void pollTimeline(PolledTimeline timeline, long now) throws InterruptedException {
+		if (!timeline.polling.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			int count = fetchNewTweets(timeline);
+			timeline.scheduleAfter(now, count, maxIntervalMillis, targetTweetsPerPoll);
+		} catch (RateLimitExceededException e) {
+			timeline.pacer.deferForWindow();
+			timeline.nextPollTime = now + RATE_LIMIT_WINDOW_MILLIS;
+			fireError(timeline, e);
+		} catch (RuntimeException e) {
+			timeline.nextPollTime = now + Math.max(timeline.intervalMillis, maxIntervalMillis);
+			fireError(timeline, e);
+		} finally {
+			timeline.polling.set(false);
+		}
+	}
+
+	private int fetchNewTweets(final PolledTimeline timeline) throws InterruptedException {
+		return new WatermarkWalker() {
+			protected List<Tweet> fetchPage(long sinceId, long maxId) throws InterruptedException {
+				return timeline.fetch(sinceId, maxId);
+			}
+			protected int deliver(List<Tweet> tweets) {
+				fireTweets(timeline, tweets);
+				return tweets.size();
+			}
+		}.walk(checkpointStore, key(timeline.account, timeline.timeline), PAGE_SIZE);
+	}
+
+	private void fireTweets(PolledTimeline timeline, List<Tweet> tweets) {
+		for (TimelineListener listener : listeners) {
+			listener.onTweets(timeline.account, timeline.timeline, tweets);
+		}
+	}
+
+	private void fireError(PolledTimeline timeline, RuntimeException e) {
+		for (TimelineListener listener : listeners) {
+			listener.onError(timeline.account, timeline.timeline, e);
+		}
+	}
+
+	private static String key(String account, Timeline timeline) {
+		return "poll/" + account + "/" + timeline.name().toLowerCase(Locale.ENGLISH);
+	}
+
+	private static class PolledTimeline {
+
+		private final String account;
+
+		private final Timeline timeline;
+
+		private final TimelineOperations timelineOperations;
+
+		private final RateLimitPacer pacer;
+
+		private final AtomicBoolean polling = new AtomicBoolean();
+
+		private volatile long nextPollTime;
+
+		private volatile long intervalMillis;
+
+		private long lastPollTime = -1;
+
+		private double tweetsPerMilli = -1;
+
+		public PolledTimeline(String account, Timeline timeline, TimelineOperations timelineOperations, RateLimitPacer pacer) {
+			this.account = account;
+			this.timeline = timeline;
+			this.timelineOperations = timelineOperations;
+			this.pacer = pacer;
+			this.intervalMillis = pacer.getIntervalMillis();
+		}
+
+		public List<Tweet> fetch(long sinceId, long maxId) throws InterruptedException {
+			pacer.acquire();
+			return timeline.fetch(timelineOperations, PAGE_SIZE, sinceId, maxId);
+		}
+
+		/**
+		 * Schedules the next poll from the rate at which tweets arrived since the last one.
+		 * The rate is smoothed, so one unusually busy or quiet period doesn't swing the interval too far.
+		 */
+		public void scheduleAfter(long now, int count, long maxIntervalMillis, int targetTweetsPerPoll) {
+			if (lastPollTime >= 0) {
+				double rate = (double) count / Math.max(now - lastPollTime, 1);
+				tweetsPerMilli = tweetsPerMilli < 0 ? rate : tweetsPerMilli * (1 - RATE_SMOOTHING) + rate * RATE_SMOOTHING;
+				long interval = tweetsPerMilli > 0 ? (long) Math.min(targetTweetsPerPoll / tweetsPerMilli, Long.MAX_VALUE) : maxIntervalMillis;
+				intervalMillis = Math.max(pacer.getIntervalMillis(), Math.min(interval, maxIntervalMillis));
+			}
+			lastPollTime = now;
+			nextPollTime = now + intervalMillis;
+		}
+
+	}
+
+	private static final int PAGE_SIZE = 200;
+
+	private static final double RATE_SMOOTHING = 0.5;
+
+	private static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+
+	private static final long RATE_LIMIT_WINDOW_MILLIS = 15 * 60 * 1000;
+
+	private static final long DEFAULT_MAX_INTERVAL_MILLIS = RATE_LIMIT_WINDOW_MILLIS;
+
+	private static final int DEFAULT_TARGET_TWEETS_PER_POLL = 50;
+
+	private static final long IDLE_SLEEP_MILLIS = 60 * 1000;
+
+}
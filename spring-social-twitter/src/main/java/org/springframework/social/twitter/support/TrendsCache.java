@@ -0,0 +1,266 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.UncategorizedApiException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.SearchOperations;
+import org.springframework.social.twitter.api.Trend;
+import org.springframework.social.twitter.api.Trends;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps the trends for a set of locations in memory, refreshing them in the background before they go stale.
+ * <p>
+ * Reads are served from memory without locking, so they are cheap enough for every page view. Only the first read of a
+ * location that hasn't been loaded yet goes to Twitter; concurrent first reads of the same location share a single request. The trends for each location are kept in the order Twitter
+ * ranked them and can't be modified.
+ * </p>
+ * <p>
+ * Refreshes are paced by a {@link RateLimitPacer} (by default, trends/place's 15 requests per 15 minute window).
+ * Each refresh updates the location whose trends were fetched longest ago, so the refreshes are spread evenly across the
+ * rate limit window and every location is refreshed in turn. Either call {@link #refreshNext()} periodically or dedicate
+ * a thread to {@link #run()}.
+ * </p>
+ */
+public class TrendsCache {
+
+	private final SearchOperations searchOperations;
+
+	private final boolean excludeHashtags;
+
+	private final List<Long> locations = new CopyOnWriteArrayList<Long>();
+
+	private final ConcurrentMap<Long, CachedTrends> trends = new ConcurrentHashMap<Long, CachedTrends>();
+
+	private final ConcurrentMap<Long, FutureTask<CachedTrends>> firstLoads = new ConcurrentHashMap<Long, FutureTask<CachedTrends>>();
+
+	private volatile RateLimitPacer pacer = RateLimitPacer.perRateLimitWindow(TRENDS_REQUESTS_PER_WINDOW);
+
+	/**
+	 * Creates a cache.
+	 * @param searchOperations the search operations used to fetch trends
+	 * @param excludeHashtags if true, hashtags are left out of the trends
+	 */
+	public TrendsCache(SearchOperations searchOperations, boolean excludeHashtags) {
+		Assert.notNull(searchOperations, "SearchOperations must not be null");
+		this.searchOperations = searchOperations;
+		this.excludeHashtags = excludeHashtags;
+	}
+
+	/**
+	 * Sets the pacer for requests to trends/place.
+	 * Anything else fetching trends with the same access token should share the pacer.
+	 */
+	public void setPacer(RateLimitPacer pacer) {
+		Assert.notNull(pacer, "RateLimitPacer must not be null");
+		this.pacer = pacer;
+	}
+
+	/**
+	 * Adds a location whose trends are kept. Its trends are fetched by the next refresh, or when they're first read.
+	 * @param whereOnEarthId the location's Where on Earth ID
+	 */
+	public void addLocation(long whereOnEarthId) {
+		synchronized (locations) {
+			if (!locations.contains(whereOnEarthId)) {
+				locations.add(whereOnEarthId);
+			}
+		}
+	}
+
+	/**
+	 * Stops keeping a location's trends.
+	 */
+	public void removeLocation(long whereOnEarthId) {
+		synchronized (locations) {
+			locations.remove(whereOnEarthId);
+			trends.remove(whereOnEarthId);
+		}
+	}
+
+	/**
+	 * The locations whose trends are kept, in the order they were added.
+	 */
+	public List<Long> getLocations() {
+		return Collections.unmodifiableList(new ArrayList<Long>(locations));
+	}
+
+	/**
+	 * The trends for a location.
+	 * If the location isn't kept yet, it's added, and its trends are fetched from Twitter. The request doesn't wait for the pacer,
+	 * but counts against it, so the background refreshes slow down to make up for it.
+	 * @param whereOnEarthId the location's Where on Earth ID
+	 * @return the location's trends as of their last refresh
+	 */
+	public Trends getTrends(long whereOnEarthId) {
+		CachedTrends cached = trends.get(whereOnEarthId);
+		if (cached != null) {
+			return cached.trends;
+		}
+		addLocation(whereOnEarthId);
+		return firstLoad(whereOnEarthId).trends;
+	}
+
+	/**
+	 * The time, in milliseconds since the epoch, when a location's trends were last fetched, or -1 if they haven't been.
+	 */
+	public long getFetchTime(long whereOnEarthId) {
+		CachedTrends cached = trends.get(whereOnEarthId);
+		return cached != null ? cached.fetchTime : -1;
+	}
+
+	/**
+	 * Waits for the pacer, then refreshes the location whose trends were fetched longest ago (or never).
+	 * @return the Where on Earth ID of the refreshed location, or -1 if there are no locations
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the rate limit
+	 */
+	public long refreshNext() throws InterruptedException {
+		Long stalest = null;
+		long stalestFetchTime = Long.MAX_VALUE;
+		for (Long location : locations) {
+			long fetchTime = getFetchTime(location);
+			if (fetchTime < stalestFetchTime) {
+				stalest = location;
+				stalestFetchTime = fetchTime;
+			}
+		}
+		if (stalest == null) {
+			return -1;
+		}
+		pacer.acquire();
+		try {
+			load(stalest);
+		} catch (RateLimitExceededException e) {
+			pacer.deferForWindow();
+			throw e;
+		}
+		return stalest;
+	}
+
+	/**
+	 * Refreshes the locations in turn, until the calling thread is interrupted.
+	 * A failed refresh leaves the location's last trends in place; the location is tried again on its next turn.
+	 * @throws InterruptedException when the calling thread is interrupted
+	 */
+	public void run() throws InterruptedException {
+		while (true) {
+			try {
+				if (refreshNext() == -1) {
+					Thread.sleep(IDLE_SLEEP_MILLIS);
+				}
+			} catch (RuntimeException e) {
+				// keep serving the last trends
+			}
+		}
+	}
+
+	// private helpers
+
+	private CachedTrends firstLoad(final long whereOnEarthId) {
+		FutureTask<CachedTrends> task = new FutureTask<CachedTrends>(new Callable<CachedTrends>() {
+			public CachedTrends call() {
+				pacer.record();
+				try {
+					return load(whereOnEarthId);
+				} catch (RateLimitExceededException e) {
+					pacer.deferForWindow();
+					throw e;
+				}
+			}
+		});
+		FutureTask<CachedTrends> loading = firstLoads.putIfAbsent(whereOnEarthId, task);
+		if (loading == null) {
+			loading = task;
+			try {
+				CachedTrends cached = trends.get(whereOnEarthId);
+				if (cached != null) {
+					// another first read finished in the meantime
+					return cached;
+				}
+				task.run();
+			} finally {
+				firstLoads.remove(whereOnEarthId, task);
+			}
+		}
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return loading.get();
+				} catch (InterruptedException e) {
+					// the load is already under way on another thread, so there's no point giving up on it
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new UncategorizedApiException("twitter", "Error fetching trends", cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private CachedTrends load(long whereOnEarthId) {
+		Trends fetched = searchOperations.getLocalTrends(whereOnEarthId, excludeHashtags);
+		List<Trend> ranked = Collections.unmodifiableList(new ArrayList<Trend>(fetched.getTrends()));
+		CachedTrends cached = new CachedTrends(new Trends(fetched.getTime(), ranked), System.currentTimeMillis());
+		synchronized (locations) {
+			// don't resurrect a location removed while it was being fetched
+			if (locations.contains(whereOnEarthId)) {
+				trends.put(whereOnEarthId, cached);
+			}
+		}
+		return cached;
+	}
+
+	private static class CachedTrends {
+
+		private final Trends trends;
+
+		private final long fetchTime;
+
+		public CachedTrends(Trends trends, long fetchTime) {
+			this.trends = trends;
+			this.fetchTime = fetchTime;
+		}
+
+	}
+
+	private static final int TRENDS_REQUESTS_PER_WINDOW = 15;
+
+	private static final long IDLE_SLEEP_MILLIS = 60 * 1000;
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.List;
+
+import org.springframework.social.twitter.api.Tweet;
+
+/**
+ * Callback receiving the tweets streamed by a {@link TimelineBackfiller}, one page at a time.
+ */
+public interface TweetSink {
+
+	/**
+	 * Receives a page of tweets from a user's timeline, newest first.
+	 * When several timelines are backfilled concurrently, this method may be called from several threads at once.
+	 * @param userId the ID of the user whose timeline the tweets are from
+	 * @param tweets the tweets
+	 */
+	void accept(long userId, List<Tweet> tweets);
+
+}
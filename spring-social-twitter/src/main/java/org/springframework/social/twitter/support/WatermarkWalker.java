@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.List;
+
+import org.springframework.social.twitter.api.Tweet;
+
+/**
+ * Fetches the tweets newer than a since_id watermark kept in a {@link CheckpointStore}, and moves the watermark past them.
+ * Twitter returns the newest tweets first, so a full page means there may be more new tweets between it and the watermark;
+ * older pages are then fetched with max_id until the watermark is reached. The first walk has no watermark to reach, so it
+ * only delivers the first page.
+ * The watermark is only moved once every page has been delivered, so if fetching or delivering a page fails, the next walk
+ * starts over from the same watermark.
+ */
+abstract class WatermarkWalker {
+
+	/**
+	 * Fetches and delivers the tweets newer than the watermark.
+	 * @param checkpointStore the store in which the watermark is kept
+	 * @param key the watermark's key
+	 * @param pageSize the number of tweets in a full page
+	 * @return the total returned by {@link #deliver(List)}
+	 * @throws InterruptedException if the calling thread is interrupted while fetching a page
+	 */
+	public int walk(CheckpointStore checkpointStore, String key, int pageSize) throws InterruptedException {
+		long sinceId = checkpointStore.get(key, 0);
+		List<Tweet> page = fetchPage(sinceId, 0);
+		if (page.isEmpty()) {
+			return 0;
+		}
+		long newestId = page.get(0).getId();
+		int count = deliver(page);
+		while (sinceId > 0 && page.size() >= pageSize) {
+			page = fetchPage(sinceId, page.get(page.size() - 1).getId() - 1);
+			if (page.isEmpty()) {
+				break;
+			}
+			count += deliver(page);
+		}
+		checkpointStore.put(key, newestId);
+		return count;
+	}
+
+	/**
+	 * Fetches a page of tweets, newest first.
+	 * @param sinceId the watermark, or 0 if there is none yet
+	 * @param maxId the ID of the newest tweet to fetch, or 0 for the newest page
+	 */
+	protected abstract List<Tweet> fetchPage(long sinceId, long maxId) throws InterruptedException;
+
+	/**
+	 * Delivers a page of tweets.
+	 * @return the number of tweets counted as delivered
+	 */
+	protected abstract int deliver(List<Tweet> tweets);
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Processes a sequence of items with a group of workers running on a {@link TaskExecutor} and on the calling thread,
+ * waiting for all of them to finish. The workers pull items from the shared sequence until it runs dry, until one of them
+ * fails, or until they're interrupted.
+ */
+final class WorkerGroup {
+
+	private WorkerGroup() {
+	}
+
+	/**
+	 * Callback processing one item. Implementations must be safe for use by multiple threads.
+	 */
+	interface ItemProcessor<T> {
+
+		void process(T item) throws InterruptedException;
+
+	}
+
+	/**
+	 * Processes every item with up to <code>workerCount</code> workers: up to <code>workerCount - 1</code> on executor threads,
+	 * and one on the calling thread. The items are pulled from the iterator by one worker at a time.
+	 * If a worker fails, the others stop after their current item and the failure is rethrown.
+	 * If a worker (or the calling thread, while waiting) is interrupted, the others stop after their current item and
+	 * an {@link InterruptedException} is thrown once they all have.
+	 * @param taskExecutor the executor, or null to process every item on the calling thread
+	 * @param workerCount the number of workers
+	 * @param items the items to process
+	 * @param processor the callback processing each item
+	 * @param description what the workers are doing, for the message of the InterruptedException
+	 * @throws InterruptedException if a worker or the calling thread was interrupted
+	 */
+	public static <T> void forEach(TaskExecutor taskExecutor, int workerCount, Iterator<T> items, ItemProcessor<T> processor, String description)
+			throws InterruptedException {
+		final Worker<T> worker = new Worker<T>(items, processor);
+		boolean interrupted = run(taskExecutor, workerCount, worker, new Runnable() {
+			public void run() {
+				// stop the workers, but wait for the items in flight to be processed
+				worker.stopped = true;
+			}
+		});
+		Throwable failure = worker.failure.get();
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (interrupted || worker.interrupted) {
+			throw new InterruptedException(description + " was interrupted");
+		}
+	}
+
+	// private helpers
+
+	/*
+	 * Runs the worker on up to workerCount - 1 executor threads and on the calling thread, and waits for them all to finish.
+	 * If the calling thread is interrupted while waiting, onInterrupt is run (so the workers can be told to stop), and waiting continues.
+	 * Returns true if the calling thread was interrupted while waiting.
+	 */
+	private static boolean run(TaskExecutor taskExecutor, int workerCount, final Runnable worker, Runnable onInterrupt) {
+		int backgroundWorkerCount = taskExecutor != null ? Math.max(workerCount - 1, 0) : 0;
+		final CountDownLatch done = new CountDownLatch(backgroundWorkerCount);
+		Runnable backgroundWorker = new Runnable() {
+			public void run() {
+				try {
+					worker.run();
+				} finally {
+					done.countDown();
+				}
+			}
+		};
+		for (int i = 0; i < backgroundWorkerCount; i++) {
+			try {
+				taskExecutor.execute(backgroundWorker);
+			} catch (TaskRejectedException e) {
+				// the calling thread picks up the slack
+				done.countDown();
+			}
+		}
+		worker.run();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				done.await();
+				return interrupted;
+			} catch (InterruptedException e) {
+				onInterrupt.run();
+				interrupted = true;
+			}
+		}
+	}
+
+	private static class Worker<T> implements Runnable {
+
+		private final Iterator<T> items;
+
+		private final ItemProcessor<T> processor;
+
+		private volatile boolean stopped;
+
+		private volatile boolean interrupted;
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		public Worker(Iterator<T> items, ItemProcessor<T> processor) {
+			this.items = items;
+			this.processor = processor;
+		}
+
+		public void run() {
+			try {
+				T item;
+				while ((item = next()) != null) {
+					processor.process(item);
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+				stopped = true;
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+				stopped = true;
+			}
+		}
+
+		private T next() {
+			synchronized (items) {
+				return !stopped && items.hasNext() ? items.next() : null;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import java.util.Locale;
+
+import org.springframework.util.Assert;
+
+/**
+ * A single write to Twitter, such as following a user or deleting a tweet, to be applied by a {@link BulkWritePipeline}.
+ * Commands are identified by their type and target ID, so applying the same command twice has the same effect as applying it once.
+ */
+public final class WriteCommand {
+
+	/**
+	 * The kinds of write a pipeline can apply.
+	 */
+	public enum Type {
+		/** Follow the target user. */
+		FOLLOW,
+		/** Unfollow the target user. */
+		UNFOLLOW,
+		/** Block the target user. */
+		BLOCK,
+		/** Unblock the target user. */
+		UNBLOCK,
+		/** Add the target tweet to the authenticated user's favorites. */
+		FAVORITE,
+		/** Remove the target tweet from the authenticated user's favorites. */
+		UNFAVORITE,
+		/** Retweet the target tweet. */
+		RETWEET,
+		/** Delete the target tweet. */
+		DELETE_STATUS
+	}
+
+	private final Type type;
+
+	private final long targetId;
+
+	public WriteCommand(Type type, long targetId) {
+		Assert.notNull(type, "The command type must not be null");
+		this.type = type;
+		this.targetId = targetId;
+	}
+
+	public static WriteCommand follow(long userId) {
+		return new WriteCommand(Type.FOLLOW, userId);
+	}
+
+	public static WriteCommand unfollow(long userId) {
+		return new WriteCommand(Type.UNFOLLOW, userId);
+	}
+
+	public static WriteCommand block(long userId) {
+		return new WriteCommand(Type.BLOCK, userId);
+	}
+
+	public static WriteCommand unblock(long userId) {
+		return new WriteCommand(Type.UNBLOCK, userId);
+	}
+
+	public static WriteCommand favorite(long tweetId) {
+		return new WriteCommand(Type.FAVORITE, tweetId);
+	}
+
+	public static WriteCommand unfavorite(long tweetId) {
+		return new WriteCommand(Type.UNFAVORITE, tweetId);
+	}
+
+	public static WriteCommand retweet(long tweetId) {
+		return new WriteCommand(Type.RETWEET, tweetId);
+	}
+
+	public static WriteCommand deleteStatus(long tweetId) {
+		return new WriteCommand(Type.DELETE_STATUS, tweetId);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * The ID of the user or tweet the command applies to.
+	 */
+	public long getTargetId() {
+		return targetId;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof WriteCommand)) {
+			return false;
+		}
+		WriteCommand command = (WriteCommand) other;
+		return type == command.type && targetId == command.targetId;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * type.hashCode() + (int) (targetId ^ (targetId >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return type.name().toLowerCase(Locale.ENGLISH) + "/" + targetId;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * Summarizes a run of a {@link BulkWritePipeline}.
+ * The outcome of each individual command is given to the pipeline's {@link WriteJournal}.
+ */
+public class WriteReport {
+
+	private final int succeeded;
+
+	private final int alreadyApplied;
+
+	private final int notFound;
+
+	private final int failed;
+
+	private final int skipped;
+
+	public WriteReport(int succeeded, int alreadyApplied, int notFound, int failed, int skipped) {
+		this.succeeded = succeeded;
+		this.alreadyApplied = alreadyApplied;
+		this.notFound = notFound;
+		this.failed = failed;
+		this.skipped = skipped;
+	}
+
+	/**
+	 * The number of commands that Twitter applied.
+	 */
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	/**
+	 * The number of commands that Twitter reported as already applied, typically by an earlier attempt whose response was lost.
+	 */
+	public int getAlreadyApplied() {
+		return alreadyApplied;
+	}
+
+	/**
+	 * The number of commands whose target user or tweet didn't exist.
+	 */
+	public int getNotFound() {
+		return notFound;
+	}
+
+	/**
+	 * The number of commands that couldn't be applied.
+	 */
+	public int getFailed() {
+		return failed;
+	}
+
+	/**
+	 * The number of commands skipped because an earlier run had already applied them.
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+/**
+ * The outcome of applying a {@link WriteCommand}.
+ */
+public class WriteResult {
+
+	/**
+	 * The outcome of a command.
+	 */
+	public enum Status {
+		/** Twitter applied the command. */
+		SUCCEEDED,
+		/**
+		 * Twitter reported that the command had already been applied (for example, a tweet that was already favorited),
+		 * most likely by an earlier attempt whose response was lost. There was nothing left to do.
+		 */
+		ALREADY_APPLIED,
+		/** The target user or tweet doesn't exist (for example, a tweet that was already deleted), so there was nothing to do. */
+		NOT_FOUND,
+		/** The command couldn't be applied, even after retrying. It will be attempted again if the pipeline is rerun. */
+		FAILED
+	}
+
+	private final WriteCommand command;
+
+	private final Status status;
+
+	private final int attempts;
+
+	private final RuntimeException exception;
+
+	public WriteResult(WriteCommand command, Status status, int attempts, RuntimeException exception) {
+		this.command = command;
+		this.status = status;
+		this.attempts = attempts;
+		this.exception = exception;
+	}
+
+	public WriteCommand getCommand() {
+		return command;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * The number of requests made to apply the command.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * The exception from the last attempt, or null if the command succeeded.
+	 */
+	public RuntimeException getException() {
+		return exception;
+	}
+
+}
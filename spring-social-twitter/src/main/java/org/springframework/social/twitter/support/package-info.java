@@ -0,0 +1,4 @@
+/**
+ * Long-running jobs built on Spring Social's Service API for Twitter
+ */
+package org.springframework.social.twitter.support;
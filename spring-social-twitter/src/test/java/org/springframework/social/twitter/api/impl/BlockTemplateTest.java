@@ -23,6 +23,7 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
 
 import org.junit.Test;
 import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.twitter.api.CursoredIdPage;
 import org.springframework.social.twitter.api.CursoredList;
 import org.springframework.social.twitter.api.TwitterProfile;
 
@@ -154,6 +155,25 @@ public class BlockTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.blockOperations().getBlockedUsersInCursor(332211);
 	}
 
+	@Test
+	public void getBlockedUserIdPage() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/blocks/ids.json?cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("blocked-user-ids"), APPLICATION_JSON));
+		CursoredIdPage blockedUsers = twitter.blockOperations().getBlockedUserIdPage(332211);
+		assertEquals(2, blockedUsers.size());
+		assertEquals(14846645L, blockedUsers.get(0));
+		assertEquals(14718006L, blockedUsers.get(1));
+		assertEquals(112233, blockedUsers.getPreviousCursor());
+		assertEquals(332211, blockedUsers.getNextCursor());
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getBlockedUserIdPage_unauthorized() {
+		unauthorizedTwitter.blockOperations().getBlockedUserIdPage(332211);
+	}
+
 	// private helpers
 	
 	private void assertTwitterProfile(TwitterProfile blockedUser) {
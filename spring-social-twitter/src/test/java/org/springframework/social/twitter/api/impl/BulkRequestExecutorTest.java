@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.social.ResourceNotFoundException;
+
+public class BulkRequestExecutorTest {
+
+	@Test
+	public void execute_concurrently_keepsRequestOrder() {
+		BulkRequestExecutor executor = new BulkRequestExecutor();
+		executor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		executor.setConcurrencyLimit(4);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		// the first four requests only complete once all four are running at the same time
+		final CyclicBarrier allRunning = new CyclicBarrier(4);
+		List<Callable<Integer>> requests = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 20; i++) {
+			final int value = i;
+			requests.add(new Callable<Integer>() {
+				public Integer call() throws Exception {
+					int nowRunning = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+					}
+					if (value < 4) {
+						allRunning.await(10, TimeUnit.SECONDS);
+					}
+					running.decrementAndGet();
+					return value;
+				}
+			});
+		}
+		List<Integer> results = executor.execute(requests);
+		assertEquals(20, results.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i, results.get(i).intValue());
+		}
+		assertEquals(4, maxRunning.get());
+	}
+
+	@Test
+	public void execute_concurrently_fromSaturatedExecutor() throws Exception {
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try {
+			final BulkRequestExecutor executor = new BulkRequestExecutor();
+			executor.setTaskExecutor(new ConcurrentTaskExecutor(singleThread));
+			final List<Callable<Integer>> requests = new ArrayList<Callable<Integer>>();
+			for (int i = 0; i < 5; i++) {
+				final int value = i;
+				requests.add(new Callable<Integer>() {
+					public Integer call() {
+						return value;
+					}
+				});
+			}
+			// the bulk operation runs on the executor's only thread, so the workers it queues can't start until it returns
+			Future<List<Integer>> results = singleThread.submit(new Callable<List<Integer>>() {
+				public List<Integer> call() {
+					return executor.execute(requests);
+				}
+			});
+			assertEquals(Arrays.asList(0, 1, 2, 3, 4), results.get(10, TimeUnit.SECONDS));
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	@Test(expected = ResourceNotFoundException.class)
+	public void execute_concurrently_propagatesFailure() {
+		BulkRequestExecutor executor = new BulkRequestExecutor();
+		executor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		List<Callable<Integer>> requests = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 5; i++) {
+			final int value = i;
+			requests.add(new Callable<Integer>() {
+				public Integer call() {
+					if (value == 3) {
+						throw new ResourceNotFoundException("twitter", "Not found");
+					}
+					return value;
+				}
+			});
+		}
+		executor.execute(requests);
+	}
+
+}
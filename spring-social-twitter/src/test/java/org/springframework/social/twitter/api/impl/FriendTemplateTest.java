@@ -25,7 +25,9 @@ import java.util.List;
 
 import org.junit.Test;
 import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.twitter.api.CursoredIdPage;
 import org.springframework.social.twitter.api.CursoredList;
+import org.springframework.social.twitter.api.Relationships;
 import org.springframework.social.twitter.api.TwitterProfile;
 
 
@@ -609,7 +611,149 @@ public class FriendTemplateTest extends AbstractTwitterApiTest {
 	public void getOutgoingFriendships_unauthorized() {
 		unauthorizedTwitter.friendOperations().getOutgoingFriendships();
 	}
+
+	@Test
+	public void getFriendIdPage_currentUser() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friends/ids.json?cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage friendIds = twitter.friendOperations().getFriendIdPage(-1);
+		assertFriendFollowerIdPage(friendIds);
+	}
+
+	@Test
+	public void getFriendIdPage_byUserId() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friends/ids.json?cursor=987654321&user_id=98765"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage friendIds = twitter.friendOperations().getFriendIdPage(98765L, 987654321);
+		assertFriendFollowerIdPage(friendIds);
+	}
+
+	@Test
+	public void getFriendIdPage_byScreenName() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friends/ids.json?cursor=-1&screen_name=habuma"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage friendIds = twitter.friendOperations().getFriendIdPage("habuma", -1);
+		assertFriendFollowerIdPage(friendIds);
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getFriendIdPage_unauthorized() {
+		unauthorizedTwitter.friendOperations().getFriendIdPage(-1);
+	}
+
+	@Test
+	public void getFollowerIdPage_currentUser_manyFollowers() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/followers/ids.json?cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("many-friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage followerIds = twitter.friendOperations().getFollowerIdPage(-1);
+		assertEquals(242, followerIds.size());
+		for (int i = 0; i < 242; i++) {
+			assertEquals(i + 1, followerIds.get(i));
+		}
+		assertFalse(followerIds.hasNext());
+		assertFalse(followerIds.hasPrevious());
+	}
+
+	@Test
+	public void getFollowerIdPage_byUserId() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/followers/ids.json?cursor=987654321&user_id=98765"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage followerIds = twitter.friendOperations().getFollowerIdPage(98765L, 987654321);
+		assertFriendFollowerIdPage(followerIds);
+	}
+
+	@Test
+	public void getFollowerIdPage_byScreenName() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/followers/ids.json?cursor=-1&screen_name=habuma"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage followerIds = twitter.friendOperations().getFollowerIdPage("habuma", -1);
+		assertFriendFollowerIdPage(followerIds);
+	}
+
+	@Test
+	public void getFollowerIdPage_noFollowers() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/followers/ids.json?cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("no-friend-or-follower-ids"), APPLICATION_JSON));
+		CursoredIdPage followerIds = twitter.friendOperations().getFollowerIdPage(-1);
+		assertTrue(followerIds.isEmpty());
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getFollowerIdPage_unauthorized() {
+		unauthorizedTwitter.friendOperations().getFollowerIdPage(-1);
+	}
+
+	@Test
+	public void getIncomingFriendshipIdPage() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friendships/incoming.json?cursor=1234567"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("incoming-or-outgoing-friendships"), APPLICATION_JSON));
+		CursoredIdPage friendships = twitter.friendOperations().getIncomingFriendshipIdPage(1234567);
+		assertIncomingOutgoingFriendshipIdPage(friendships);
+	}
+
+	@Test
+	public void getOutgoingFriendshipIdPage() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friendships/outgoing.json?cursor=9876543"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("incoming-or-outgoing-friendships"), APPLICATION_JSON));
+		CursoredIdPage friendships = twitter.friendOperations().getOutgoingFriendshipIdPage(9876543);
+		assertIncomingOutgoingFriendshipIdPage(friendships);
+	}
 	
+	@Test
+	public void lookupRelationships() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friendships/lookup.json?user_id=14718006%2C14846645%2C12345%2C14324%2C99"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friendship-lookup"), APPLICATION_JSON));
+		Relationships relationships = twitter.friendOperations().lookupRelationships(14718006, 14846645, 12345, 14324, 99);
+		assertTrue(relationships.isFollowing(14718006));
+		assertTrue(relationships.isFollowedBy(14718006));
+		assertFalse(relationships.isFollowing(14846645));
+		assertTrue(relationships.isFollowedBy(14846645));
+		assertTrue(relationships.isBlocking(12345));
+		assertTrue(relationships.isMuting(12345));
+		assertEquals(0, relationships.getConnections(14324));
+		assertTrue(relationships.isMissing(99));
+		assertFalse(relationships.isMissing(14324));
+		assertArrayEquals(new long[] {14718006, 14846645}, relationships.getUserIdsWith(Relationships.FOLLOWED_BY));
+		assertArrayEquals(new long[] {14846645, 14324}, relationships.getUserIdsWithout(Relationships.FOLLOWING | Relationships.BLOCKING | Relationships.MUTING));
+	}
+
+	@Test
+	public void lookupRelationships_moreThan100() {
+		long[] userIds = new long[101];
+		StringBuilder firstChunk = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			userIds[i] = i + 1;
+			firstChunk.append(i > 0 ? "%2C" : "").append(i + 1);
+		}
+		userIds[100] = 14718006;
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friendships/lookup.json?user_id=" + firstChunk))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("[]", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/friendships/lookup.json?user_id=14718006"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("friendship-lookup"), APPLICATION_JSON));
+		Relationships relationships = twitter.friendOperations().lookupRelationships(userIds);
+		assertTrue(relationships.has(14718006, Relationships.FOLLOWING | Relationships.FOLLOWED_BY));
+		assertTrue(relationships.isMissing(1));
+		assertEquals(0, relationships.getConnections(14846645));
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void lookupRelationships_unauthorized() {
+		unauthorizedTwitter.friendOperations().lookupRelationships(14718006, 14846645);
+	}
+
 	private void assertFriendFollowerIdsList(CursoredList<Long> friendIds) {
 		assertEquals(2, friendIds.size());
 		assertEquals(14846645L, (long) friendIds.get(0));
@@ -618,6 +762,14 @@ public class FriendTemplateTest extends AbstractTwitterApiTest {
 		assertEquals(332211, friendIds.getNextCursor());
 	}
 
+	private void assertFriendFollowerIdPage(CursoredIdPage friendIds) {
+		assertEquals(2, friendIds.size());
+		assertEquals(14846645L, friendIds.get(0));
+		assertEquals(14718006L, friendIds.get(1));
+		assertEquals(112233, friendIds.getPreviousCursor());
+		assertEquals(332211, friendIds.getNextCursor());
+	}
+
 	private void assertFriendsFollowers(CursoredList<TwitterProfile> friends) {
 		assertEquals(2, friends.size());
 		assertEquals("royclarkson", friends.get(0).getScreenName());
@@ -626,6 +778,15 @@ public class FriendTemplateTest extends AbstractTwitterApiTest {
 		assertEquals(332211, friends.getNextCursor());
 	}
 
+	private void assertIncomingOutgoingFriendshipIdPage(CursoredIdPage friendships) {
+		assertEquals(3, friendships.size());
+		assertEquals(12345, friendships.get(0));
+		assertEquals(23456, friendships.get(1));
+		assertEquals(34567, friendships.get(2));
+		assertEquals(1234567890, friendships.getPreviousCursor());
+		assertEquals(1357924680, friendships.getNextCursor());
+	}
+
 	private void assertIncomingOutgoingFriendships(CursoredList<Long> friendships) {
 		assertEquals(3, friendships.size());
 		assertEquals(12345, (long) friendships.get(0));
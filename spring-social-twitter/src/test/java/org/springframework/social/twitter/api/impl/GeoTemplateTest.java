@@ -206,6 +206,47 @@ public class GeoTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.geoOperations().createPlace(placePrototype);
 	}
 
+	@Test
+	public void getPlace_cached() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/geo/id/0bba15b36bd9e8cc.json"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("geo-place"), APPLICATION_JSON));
+		twitter.setGeoCacheTimeout(60000);
+		Place place = twitter.geoOperations().getPlace("0bba15b36bd9e8cc");
+		assertSame(place, twitter.geoOperations().getPlace("0bba15b36bd9e8cc"));
+		mockServer.verify();
+	}
+
+	@Test
+	public void reverseGeoCode_cached() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/geo/reverse_geocode.json?lat=33.050278&long=-96.745833&granularity=city"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("places-list"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/geo/reverse_geocode.json?lat=33.050278&long=-96.745833&granularity=neighborhood"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("places-list"), APPLICATION_JSON));
+		twitter.setGeoCacheTimeout(60000);
+		List<Place> places = twitter.geoOperations().reverseGeoCode(33.050278, -96.745833, PlaceType.CITY, null);
+		// same grid cell
+		assertSame(places, twitter.geoOperations().reverseGeoCode(33.050001, -96.745001, PlaceType.CITY, null));
+		// another cell, but still within Plano's bounding box
+		assertSame(places, twitter.geoOperations().reverseGeoCode(33.12, -96.62, PlaceType.CITY, null));
+		// a different granularity is looked up separately
+		twitter.geoOperations().reverseGeoCode(33.050278, -96.745833, PlaceType.NEIGHBORHOOD, null);
+		// places found by a lookup are cached by ID, too
+		assertEquals("Plano", twitter.geoOperations().getPlace("488da0de4c92ac8e").getName());
+		mockServer.verify();
+	}
+
+	@Test
+	public void cellSize() {
+		assertEquals(0.1, GeoCache.cellSize(PlaceType.CITY, null), 0);
+		assertEquals(0.01, GeoCache.cellSize(null, null), 0);
+		assertEquals(0.01, GeoCache.cellSize(PlaceType.CITY, "1113.2m"), 0.000001);
+		assertEquals(0.001, GeoCache.cellSize(PlaceType.POINT_OF_INTEREST, "5000ft"), 0);
+		assertEquals(0.1, GeoCache.cellSize(PlaceType.CITY, "nearby"), 0);
+	}
+
 	private void assertPlace(Place place) {
 		assertEquals("0bba15b36bd9e8cc", place.getId());
 		assertEquals("Restaurant Mexico", place.getName());
@@ -225,6 +266,10 @@ public class GeoTemplateTest extends AbstractTwitterApiTest {
 		assertEquals("United States", places.get(0).getCountry());
 		assertEquals("US", places.get(0).getCountryCode());
 		assertEquals(PlaceType.CITY, places.get(0).getPlaceType());
+		assertEquals(32.997258, places.get(0).getBoundingBox().getMinLatitude(), 0.000001);
+		assertEquals(-96.860229, places.get(0).getBoundingBox().getMinLongitude(), 0.000001);
+		assertEquals(33.124152, places.get(0).getBoundingBox().getMaxLatitude(), 0.000001);
+		assertEquals(-96.612699, places.get(0).getBoundingBox().getMaxLongitude(), 0.000001);
 		assertEquals("e0060cda70f5f341", places.get(1).getId());
 		assertEquals("Texas", places.get(1).getName());
 		assertNull(places.get(1).getStreetAddress());
@@ -22,13 +22,26 @@ import static org.springframework.http.MediaType.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.social.InternalServerErrorException;
 import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.twitter.api.CursoredList;
+import org.springframework.social.twitter.api.ListMembershipReport;
+import org.springframework.social.twitter.api.ListMembershipReport.Chunk;
+import org.springframework.social.twitter.api.RateLimitPacer;
 import org.springframework.social.twitter.api.Tweet;
 import org.springframework.social.twitter.api.TwitterProfile;
+import org.springframework.social.twitter.api.UserIdSet;
 import org.springframework.social.twitter.api.UserList;
+import org.springframework.test.web.client.ResponseCreator;
 
 /**
  * @author Craig Walls
@@ -174,6 +187,68 @@ public class ListsTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.listOperations().getListMembers("habuma", "forfun");
 	}
 	
+	@Test
+	public void getListMembersInCursor_byListId() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&cursor=112233"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		CursoredList<TwitterProfile> members = twitter.listOperations().getListMembersInCursor(40841803, 112233);
+		assertListMembers(members);
+		assertEquals(112233, members.getPreviousCursor());
+		assertEquals(332211, members.getNextCursor());
+	}
+
+	@Test
+	public void getListMembersInCursor_byListId_skipStatus() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		assertListMembers(twitter.listOperations().getListMembersInCursor(40841803, -1, true));
+	}
+
+	@Test
+	public void getListMembersInCursor_byScreenNameAndListSlug() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?owner_screen_name=habuma&slug=forfun&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		assertListMembers(twitter.listOperations().getListMembersInCursor("habuma", "forfun", -1));
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getListMembersInCursor_unauthorized() {
+		unauthorizedTwitter.listOperations().getListMembersInCursor(40841803, -1);
+	}
+
+	@Test
+	public void iterateListMembers() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":112233,\"next_cursor\":0}", APPLICATION_JSON));
+		assertListMembers(toList(twitter.listOperations().iterateListMembers(40841803, true)));
+		mockServer.verify();
+	}
+
+	@Test
+	public void iterateListMembers_prefetchedInBackground() {
+		twitter.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":112233,\"next_cursor\":0}", APPLICATION_JSON));
+		assertListMembers(toList(twitter.listOperations().iterateListMembers(40841803, false)));
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void iterateListMembers_unauthorized() {
+		unauthorizedTwitter.listOperations().iterateListMembers(40841803, true);
+	}
+
 	@Test
 	public void addToList_forUserIdListIdSingle() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/create_all.json"))
@@ -244,6 +319,215 @@ public class ListsTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.listOperations().removeFromList(40841803, "habuma");
 	}
 
+	@Test
+	public void addMembers_byUserId_chunked() {
+		twitter.setListMembershipPacer(new RateLimitPacer(1, 0));
+		long[] userIds = new long[150];
+		for (int i = 0; i < userIds.length; i++) {
+			userIds[i] = i + 1;
+		}
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/create_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("user_id=" + join(1, 100) + "&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/create_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("user_id=" + join(101, 150) + "&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		ListMembershipReport report = twitter.listOperations().addMembers(40841803, userIds);
+		assertTrue(report.isComplete());
+		assertEquals(2, report.getChunks().size());
+		assertEquals(100, report.getChunks().get(0).size());
+		assertEquals(50, report.getChunks().get(1).size());
+		assertEquals(0, report.getUnappliedUserIds().length);
+		assertSingleList(report.getList());
+		mockServer.verify();
+	}
+
+	@Test
+	public void addMembers_byScreenName() {
+		twitter.setListMembershipPacer(new RateLimitPacer(1, 0));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/create_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("screen_name=habuma%2Croyclarkson&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		ListMembershipReport report = twitter.listOperations().addMembers(40841803, "habuma", "royclarkson");
+		assertTrue(report.isComplete());
+		assertSingleList(report.getList());
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void addMembers_unauthorized() {
+		unauthorizedTwitter.listOperations().addMembers(40841803, 123456, 234567);
+	}
+
+	@Test
+	public void removeMembers_byUserId_failedChunkReported() {
+		twitter.setListMembershipPacer(new RateLimitPacer(1, 0));
+		long[] userIds = new long[201];
+		for (int i = 0; i < userIds.length; i++) {
+			userIds[i] = i + 1;
+		}
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("user_id=" + join(1, 100) + "&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("user_id=" + join(101, 200) + "&list_id=40841803"))
+			.andRespond(withServerError());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("user_id=201&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		ListMembershipReport report = twitter.listOperations().removeMembers(40841803, userIds);
+		assertFalse(report.isComplete());
+		List<Chunk> chunks = report.getChunks();
+		assertEquals(3, chunks.size());
+		assertEquals(Chunk.Status.SUCCEEDED, chunks.get(0).getStatus());
+		assertEquals(Chunk.Status.FAILED, chunks.get(1).getStatus());
+		assertNotNull(chunks.get(1).getException());
+		assertNull(chunks.get(1).getList());
+		assertEquals(Chunk.Status.SUCCEEDED, chunks.get(2).getStatus());
+		long[] unapplied = report.getUnappliedUserIds();
+		assertEquals(100, unapplied.length);
+		assertEquals(101, unapplied[0]);
+		assertEquals(200, unapplied[99]);
+		mockServer.verify();
+	}
+
+	@Test
+	public void removeMembers_byScreenName() {
+		twitter.setListMembershipPacer(new RateLimitPacer(1, 0));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy_all.json"))
+			.andExpect(method(POST))
+			.andExpect(content().string("screen_name=habuma%2Croyclarkson&list_id=40841803"))
+			.andRespond(withSuccess(jsonResource("single-list"), APPLICATION_JSON));
+		ListMembershipReport report = twitter.listOperations().removeMembers(40841803, "habuma", "royclarkson");
+		assertTrue(report.isComplete());
+		assertEquals(0, report.getUnappliedScreenNames().size());
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void removeMembers_unauthorized() {
+		unauthorizedTwitter.listOperations().removeMembers(40841803, "habuma");
+	}
+
+	@Test
+	public void getMemberIdSet() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":112233,\"next_cursor\":0}", APPLICATION_JSON));
+		UserIdSet members = twitter.listOperations().getMemberIdSet(40841803);
+		assertEquals(2, members.size());
+		assertTrue(members.contains(14846645));
+		assertTrue(members.contains(14718006));
+		assertFalse(members.contains(12345));
+		boolean[] contained = members.contains(12345, 14718006);
+		assertFalse(contained[0]);
+		assertTrue(contained[1]);
+		// cached, so no further requests are made
+		assertSame(members, twitter.listOperations().getMemberIdSet(40841803));
+		mockServer.verify();
+	}
+
+	@Test
+	public void getMemberIdSet_evictedWhenMembersChange() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy.json"))
+			.andExpect(method(POST))
+			.andRespond(withSuccess("{}", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		assertTrue(twitter.listOperations().getMemberIdSet(40841803).isEmpty());
+		twitter.listOperations().removeFromList(40841803, 12345);
+		assertTrue(twitter.listOperations().getMemberIdSet(40841803).isEmpty());
+		mockServer.verify();
+	}
+
+	@Test
+	public void getMemberIdSet_notCachedIfMembersChangeWhileFetching() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(new ResponseCreator() {
+				public ClientHttpResponse createResponse(ClientHttpRequest request) throws IOException {
+					// another thread removes a member while the set is being fetched
+					twitter.listOperations().removeFromList(40841803, 12345);
+					return withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON).createResponse(request);
+				}
+			});
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/destroy.json"))
+			.andExpect(method(POST))
+			.andRespond(withSuccess("{}", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		twitter.listOperations().getMemberIdSet(40841803);
+		twitter.listOperations().getMemberIdSet(40841803);
+		mockServer.verify();
+	}
+
+	@Test
+	public void addMembers_evictsMemberIdSetAfterEachChunk() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members/create_all.json"))
+			.andExpect(method(POST))
+			.andRespond(new ResponseCreator() {
+				public ClientHttpResponse createResponse(ClientHttpRequest request) throws IOException {
+					// the set fetched while the chunk is being applied must not outlive it
+					twitter.listOperations().getMemberIdSet(40841803);
+					return withSuccess(jsonResource("single-list"), APPLICATION_JSON).createResponse(request);
+				}
+			});
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		twitter.listOperations().addMembers(40841803, 12345);
+		twitter.listOperations().getMemberIdSet(40841803);
+		mockServer.verify();
+	}
+
+	@Test
+	public void getMemberIdSet_expired() {
+		twitter.setListMembershipCacheTimeout(0);
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		twitter.listOperations().getMemberIdSet(40841803);
+		twitter.listOperations().getMemberIdSet(40841803);
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getMemberIdSet_unauthorized() {
+		unauthorizedTwitter.listOperations().getMemberIdSet(40841803);
+	}
+
+	@Test
+	public void getSubscriberIdSet() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		assertEquals(0, twitter.listOperations().getSubscriberIdSet(40841803).size());
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getSubscriberIdSet_unauthorized() {
+		unauthorizedTwitter.listOperations().getSubscriberIdSet(40841803);
+	}
+
 	@Test
 	public void getListSubscribers_byUserIdAndListId() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?list_id=40841803"))
@@ -390,6 +674,51 @@ public class ListsTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.listOperations().isSubscriber("habuma", "forfun", "royclarkson");
 	}
 	
+	@Test
+	public void getListSubscribersInCursor_byListId() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?list_id=40841803&skip_status=true&cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		assertListMembers(twitter.listOperations().getListSubscribersInCursor(40841803, 332211, true));
+	}
+
+	@Test
+	public void getListSubscribersInCursor_byScreenNameAndListSlug() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?owner_screen_name=habuma&slug=forfun&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		assertListMembers(twitter.listOperations().getListSubscribersInCursor("habuma", "forfun", -1));
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getListSubscribersInCursor_unauthorized() {
+		unauthorizedTwitter.listOperations().getListSubscribersInCursor(40841803, -1);
+	}
+
+	@Test
+	public void iterateListSubscribers() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-members"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers.json?list_id=40841803&count=5000&skip_status=true&cursor=332211"))
+			.andExpect(method(GET))
+			.andRespond(withServerError());
+		Iterator<TwitterProfile> subscribers = twitter.listOperations().iterateListSubscribers(40841803, true);
+		assertEquals(14846645, subscribers.next().getId());
+		assertEquals(14718006, subscribers.next().getId());
+		try {
+			subscribers.hasNext();
+			fail("Expected the failed page request to be reported");
+		} catch (InternalServerErrorException e) {
+			assertFalse(subscribers.hasNext());
+		}
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void iterateListSubscribers_unauthorized() {
+		unauthorizedTwitter.listOperations().iterateListSubscribers(40841803, true);
+	}
+
 	@Test
 	public void subscribe() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/subscribers/create.json"))
@@ -508,6 +837,22 @@ public class ListsTemplateTest extends AbstractTwitterApiTest {
 	}
 	// private helpers
 	
+	private <T> List<T> toList(Iterator<T> iterator) {
+		List<T> list = new ArrayList<T>();
+		while (iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		return list;
+	}
+
+	private String join(long first, long last) {
+		StringBuilder joined = new StringBuilder();
+		for (long id = first; id <= last; id++) {
+			joined.append(id == first ? "" : "%2C").append(id);
+		}
+		return joined.toString();
+	}
+
 	private void assertSingleList(UserList list) {
 		assertEquals(40841803, list.getId());
 		assertEquals("forFun", list.getName());
@@ -21,6 +21,7 @@ import static org.springframework.http.MediaType.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
@@ -88,6 +89,64 @@ public class SearchTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.searchOperations().search("#spring", 10, 123, 54321);
 	}
 	
+	@Test
+	public void search_64bitMetadata() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=50"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page1"), APPLICATION_JSON));
+		SearchResults searchResults = twitter.searchOperations().search("#spring");
+		assertEquals(410135962417864704L, searchResults.getSearchMetadata().getMax_id());
+	}
+
+	@Test
+	public void iterateSearch() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=2"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page1"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=2&max_id=410135962417864702"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page2"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=2&max_id=410135962417864700"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page3"), APPLICATION_JSON));
+		SearchParameters parameters = new SearchParameters("#spring");
+		parameters.setCount(2);
+		Iterator<Tweet> tweets = twitter.searchOperations().iterateSearch(parameters);
+		// the tweet repeated on the second page is only returned once
+		assertEquals(410135962417864704L, tweets.next().getId());
+		assertEquals(410135962417864703L, tweets.next().getId());
+		assertEquals(410135962417864701L, tweets.next().getId());
+		assertFalse(tweets.hasNext());
+		mockServer.verify();
+	}
+
+	@Test
+	public void iterateSearch_maxResults() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=2&since_id=10&max_id=410135962417864704"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page1"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/search/tweets.json?q=%23spring&count=1&since_id=10&max_id=410135962417864702"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("search-page2"), APPLICATION_JSON));
+		SearchParameters parameters = new SearchParameters("#spring");
+		parameters.setCount(2);
+		parameters.setSinceId(10);
+		parameters.setMaxId(410135962417864704L);
+		Iterator<Tweet> tweets = twitter.searchOperations().iterateSearch(parameters, 3);
+		int count = 0;
+		while (tweets.hasNext()) {
+			tweets.next();
+			count++;
+		}
+		assertEquals(3, count);
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void iterateSearch_unauthorized() {
+		unauthorizedTwitter.searchOperations().iterateSearch(new SearchParameters("#spring"));
+	}
+
 	@Test
 	public void getSavedSearches() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/saved_searches/list.json"))
@@ -168,6 +227,7 @@ public class SearchTemplateTest extends AbstractTwitterApiTest {
 			.andExpect(method(GET))
 			.andRespond(withSuccess(jsonResource("local-trends"), APPLICATION_JSON));
 		Trends localTrends = twitter.searchOperations().getLocalTrends(2442047);
+		assertEquals(1300466733000L, localTrends.getTime().getTime());
 		List<Trend> trends = localTrends.getTrends();
 		assertEquals(2, trends.size());
 		Trend trend1 = trends.get(0);
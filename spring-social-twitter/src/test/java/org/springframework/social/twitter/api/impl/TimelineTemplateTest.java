@@ -31,6 +31,7 @@ import org.springframework.social.DuplicateStatusException;
 import org.springframework.social.NotAuthorizedException;
 import org.springframework.social.OperationNotPermittedException;
 import org.springframework.social.twitter.api.Entities;
+import org.springframework.social.twitter.api.LookupResult;
 import org.springframework.social.twitter.api.MessageTooLongException;
 import org.springframework.social.twitter.api.StatusDetails;
 import org.springframework.social.twitter.api.TickerSymbolEntity;
@@ -239,6 +240,48 @@ public class TimelineTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.timelineOperations().getStatus(12345);
 	}
 		
+	@Test
+	public void getStatuses() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/statuses/lookup.json?id=54321%2C99%2C12345&include_entities=true"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("timeline"), APPLICATION_JSON));
+		LookupResult<Tweet> result = twitter.timelineOperations().getStatuses(54321, 99, 12345);
+		assertEquals(2, result.getResults().size());
+		assertEquals(54321, result.getResults().get(0).getId());
+		assertSingleTweet(result.getResults().get(1));
+		assertSingleTweet(result.get(12345));
+		assertTrue(result.isMissing(99));
+		assertArrayEquals(new long[] {99}, result.getMissingIds());
+	}
+
+	@Test
+	public void getStatuses_moreThan100() {
+		long[] tweetIds = new long[150];
+		StringBuilder firstChunk = new StringBuilder();
+		StringBuilder secondChunk = new StringBuilder();
+		for (int i = 0; i < tweetIds.length; i++) {
+			tweetIds[i] = i == 100 ? 12345 : i + 1;
+			StringBuilder chunk = i < 100 ? firstChunk : secondChunk;
+			chunk.append(chunk.length() > 0 ? "%2C" : "").append(tweetIds[i]);
+		}
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/statuses/lookup.json?id=" + firstChunk + "&include_entities=true"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("[]", APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/statuses/lookup.json?id=" + secondChunk + "&include_entities=true"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("timeline"), APPLICATION_JSON));
+		LookupResult<Tweet> result = twitter.timelineOperations().getStatuses(tweetIds);
+		assertEquals(1, result.getResults().size());
+		assertSingleTweet(result.get(12345));
+		assertEquals(149, result.getMissingIds().length);
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void getStatuses_unauthorized() {
+		unauthorizedTwitter.timelineOperations().getStatuses(12345, 54321);
+	}
+
 	@Test
 	public void getStatus_withTickerSymbolEntity() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/statuses/show/12345.json?include_entities=true"))
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.api.impl;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.http.MediaType.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.twitter.api.Place;
+import org.springframework.social.twitter.api.PlaceType;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TwitterProfile;
+import org.springframework.social.twitter.api.UserIdSet;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+public class TwitterTemplateFactoryTest {
+
+	private TwitterTemplateFactory factory = new TwitterTemplateFactory("API_KEY", "API_SECRET");
+
+	@Test
+	public void createTemplate() {
+		TwitterTemplate twitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		assertTrue(twitter.isAuthorized());
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(twitter.getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("twitter-profile.json", getClass()), APPLICATION_JSON));
+		TwitterProfile profile = twitter.userOperations().getUserProfile();
+		assertEquals(161064614L, profile.getId());
+		assertEquals("artnames", profile.getScreenName());
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void createTemplate_unauthorized() {
+		TwitterTemplate twitter = factory.createTemplate();
+		assertFalse(twitter.isAuthorized());
+		twitter.userOperations().getUserProfile();
+	}
+
+	@Test
+	public void createTemplate_sharesConvertersAndErrorHandler() {
+		TwitterTemplate twitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		TwitterTemplate otherTwitter = factory.createTemplate("OTHER_TOKEN", "OTHER_TOKEN_SECRET");
+		assertNotSame(twitter.getRestTemplate(), otherTwitter.getRestTemplate());
+		assertSame(twitter.getRestTemplate().getErrorHandler(), otherTwitter.getRestTemplate().getErrorHandler());
+		for (int i = 0; i < factory.getMessageConverters().size(); i++) {
+			HttpMessageConverter<?> converter = factory.getMessageConverters().get(i);
+			assertSame(converter, twitter.getRestTemplate().getMessageConverters().get(i));
+			assertSame(converter, otherTwitter.getRestTemplate().getMessageConverters().get(i));
+		}
+		// templates created the usual way are unaffected
+		TwitterTemplate standalone = new TwitterTemplate("API_KEY", "API_SECRET", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		assertNotSame(twitter.getRestTemplate().getErrorHandler(), standalone.getRestTemplate().getErrorHandler());
+		assertFalse(standalone.getRestTemplate().getMessageConverters().contains(factory.getMessageConverters().get(2)));
+	}
+
+	@Test
+	public void createTemplate_buildsNoMessageConverters() {
+		final AtomicInteger jsonConvertersBuilt = new AtomicInteger();
+		TwitterTemplate template = new TwitterTemplate(factory, "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET") {
+			@Override
+			protected MappingJacksonHttpMessageConverter getJsonMessageConverter() {
+				jsonConvertersBuilt.incrementAndGet();
+				return super.getJsonMessageConverter();
+			}
+		};
+		assertEquals(0, jsonConvertersBuilt.get());
+		assertEquals(factory.getMessageConverters(), template.getRestTemplate().getMessageConverters());
+	}
+
+	@Test
+	public void createTemplate_createsSubApisOnFirstUse() throws Exception {
+		TwitterTemplate template = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		assertTrue(createdSubApis(template).isEmpty());
+		template.timelineOperations();
+		assertEquals(Collections.singletonList("timelineOperations"), createdSubApis(template));
+	}
+
+	@Test
+	public void constructor_buildsOwnMessageConvertersOnce() {
+		final AtomicInteger jsonConvertersBuilt = new AtomicInteger();
+		new TwitterTemplate("API_KEY", "API_SECRET", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET") {
+			@Override
+			protected MappingJacksonHttpMessageConverter getJsonMessageConverter() {
+				jsonConvertersBuilt.incrementAndGet();
+				return super.getJsonMessageConverter();
+			}
+		};
+		assertEquals(1, jsonConvertersBuilt.get());
+	}
+
+	@Test
+	public void createTemplate_sharesRequestFactory() {
+		// unauthorized templates don't wrap the request factory with the OAuth interceptor
+		ClientHttpRequestFactory requestFactory = factory.createTemplate().getRestTemplate().getRequestFactory();
+		assertNotNull(requestFactory);
+		assertSame(requestFactory, factory.createTemplate().getRestTemplate().getRequestFactory());
+		SimpleClientHttpRequestFactory otherRequestFactory = new SimpleClientHttpRequestFactory();
+		factory.setRequestFactory(otherRequestFactory);
+		assertSame(otherRequestFactory, factory.createTemplate().getRestTemplate().getRequestFactory());
+	}
+
+	@Test
+	public void createTemplate_sharesScreenNameCache() {
+		TwitterTemplate twitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(twitter.getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/show.json?screen_name=artnames"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("twitter-profile.json", getClass()), APPLICATION_JSON));
+		twitter.userOperations().getUserProfile("artnames");
+		mockServer.verify();
+		// a screen name seen on behalf of one user is known to the templates of every other user
+		TwitterTemplate otherTwitter = factory.createTemplate("OTHER_TOKEN", "OTHER_TOKEN_SECRET");
+		MockRestServiceServer otherMockServer = MockRestServiceServer.createServer(otherTwitter.getRestTemplate());
+		Map<String, Long> userIds = otherTwitter.userOperations().resolveUserIds("artnames");
+		assertEquals(161064614L, userIds.get("artnames").longValue());
+		otherMockServer.verify();
+	}
+
+	@Test
+	public void createTemplate_sharesListMembershipPacerPerAccessToken() {
+		factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET").listOperations();
+		RateLimitPacer pacer = factory.getListMembershipPacer("ACCESS_TOKEN");
+		assertSame(pacer, factory.getListMembershipPacer("ACCESS_TOKEN"));
+		assertNotSame(pacer, factory.getListMembershipPacer("OTHER_TOKEN"));
+	}
+
+	@Test
+	public void createTemplate_sharesGeoCache() {
+		factory.setGeoCacheTimeout(60000);
+		TwitterTemplate twitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(twitter.getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/geo/reverse_geocode.json?lat=33.050278&long=-96.745833&granularity=city"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("places-list.json", getClass()), APPLICATION_JSON));
+		List<Place> places = twitter.geoOperations().reverseGeoCode(33.050278, -96.745833, PlaceType.CITY, null);
+		mockServer.verify();
+		// a place looked up on behalf of one user is known to the templates of every other user
+		TwitterTemplate otherTwitter = factory.createTemplate("OTHER_TOKEN", "OTHER_TOKEN_SECRET");
+		MockRestServiceServer otherMockServer = MockRestServiceServer.createServer(otherTwitter.getRestTemplate());
+		assertSame(places, otherTwitter.geoOperations().reverseGeoCode(33.12, -96.62, PlaceType.CITY, null));
+		otherMockServer.verify();
+	}
+
+	@Test
+	public void createTemplate_sharesListMembershipCachePerAccessToken() {
+		TwitterTemplate twitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(twitter.getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		UserIdSet members = twitter.listOperations().getMemberIdSet(40841803);
+		mockServer.verify();
+		// the next request for the same user reuses the set
+		TwitterTemplate sameUserTwitter = factory.createTemplate("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		MockRestServiceServer sameUserMockServer = MockRestServiceServer.createServer(sameUserTwitter.getRestTemplate());
+		assertSame(members, sameUserTwitter.listOperations().getMemberIdSet(40841803));
+		sameUserMockServer.verify();
+		// but another user fetches their own
+		TwitterTemplate otherTwitter = factory.createTemplate("OTHER_TOKEN", "OTHER_TOKEN_SECRET");
+		MockRestServiceServer otherMockServer = MockRestServiceServer.createServer(otherTwitter.getRestTemplate());
+		otherMockServer.expect(requestTo("https://api.twitter.com/1.1/lists/members.json?list_id=40841803&count=5000&skip_status=true&cursor=-1"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess("{\"users\":[],\"previous_cursor\":0,\"next_cursor\":0}", APPLICATION_JSON));
+		assertNotSame(members, otherTwitter.listOperations().getMemberIdSet(40841803));
+		otherMockServer.verify();
+	}
+
+	private List<String> createdSubApis(TwitterTemplate template) throws IllegalAccessException {
+		List<String> created = new ArrayList<String>();
+		for (Field field : TwitterTemplate.class.getDeclaredFields()) {
+			if (field.getName().endsWith("Operations")) {
+				field.setAccessible(true);
+				if (field.get(template) != null) {
+					created.add(field.getName());
+				}
+			}
+		}
+		return created;
+	}
+
+}
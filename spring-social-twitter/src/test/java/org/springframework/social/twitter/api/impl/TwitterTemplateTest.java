@@ -17,7 +17,11 @@ package org.springframework.social.twitter.api.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.Test;
+import org.springframework.social.twitter.api.TimelineOperations;
 
 public class TwitterTemplateTest {
 	
@@ -33,4 +37,48 @@ public class TwitterTemplateTest {
 		assertFalse(twitter.isAuthorized());
 	}
 
+	@Test
+	public void subApisCreatedOnFirstUse() {
+		TwitterTemplate twitter = new TwitterTemplate("API_KEY", "API_SECRET", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		assertSame(twitter.timelineOperations(), twitter.timelineOperations());
+		assertSame(twitter.userOperations(), twitter.userOperations());
+		assertSame(twitter.friendOperations(), twitter.friendOperations());
+		assertSame(twitter.listOperations(), twitter.listOperations());
+		assertSame(twitter.searchOperations(), twitter.searchOperations());
+		assertSame(twitter.directMessageOperations(), twitter.directMessageOperations());
+		assertSame(twitter.blockOperations(), twitter.blockOperations());
+		assertSame(twitter.geoOperations(), twitter.geoOperations());
+	}
+
+	@Test
+	public void subApisCreatedOnce() throws Exception {
+		final TwitterTemplate twitter = new TwitterTemplate("API_KEY", "API_SECRET", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		final CountDownLatch start = new CountDownLatch(1);
+		final TimelineOperations[] seen = new TimelineOperations[8];
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[seen.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+						seen[index] = twitter.timelineOperations();
+					} catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get());
+		for (TimelineOperations operations : seen) {
+			assertSame(twitter.timelineOperations(), operations);
+		}
+	}
+
 }
@@ -21,11 +21,14 @@ import static org.springframework.http.MediaType.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
 import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.twitter.api.LookupResult;
 import org.springframework.social.twitter.api.RateLimitStatus;
 import org.springframework.social.twitter.api.ResourceFamily;
 import org.springframework.social.twitter.api.SuggestionCategory;
@@ -62,6 +65,24 @@ public class UserTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.userOperations().getScreenName();
 	}
 
+	@Test
+	public void getUserProfile_memoized() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("twitter-profile"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+				.andExpect(method(GET))
+				.andRespond(withSuccess(jsonResource("twitter-profile"), APPLICATION_JSON));
+		TwitterProfile profile = twitter.userOperations().getUserProfile();
+		assertEquals(161064614, twitter.userOperations().getProfileId());
+		assertEquals("artnames", twitter.userOperations().getScreenName());
+		assertSame(profile, twitter.userOperations().getUserProfile());
+		// eviction forces the next request
+		twitter.evictUserProfile();
+		assertNotSame(profile, twitter.userOperations().getUserProfile());
+		mockServer.verify();
+	}
+
 	@Test
 	public void getUserProfile() throws Exception {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
@@ -140,6 +161,63 @@ public class UserTemplateTest extends AbstractTwitterApiTest {
 		unauthorizedTwitter.userOperations().getUsers(14846645, 14718006);
 	}
 	
+	@Test
+	public void getUsers_byUserId_inRequestedOrder() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14718006%2C14846645"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		List<TwitterProfile> users = twitter.userOperations().getUsers(14718006, 14846645);
+		assertEquals(2, users.size());
+		assertEquals("kdonald", users.get(0).getScreenName());
+		assertEquals("royclarkson", users.get(1).getScreenName());
+	}
+
+	@Test
+	public void getUsers_byUserId_moreThan100() {
+		long[] userIds = new long[101];
+		StringBuilder firstChunk = new StringBuilder();
+		for (int i = 0; i < 99; i++) {
+			userIds[i] = i + 1;
+			firstChunk.append(i + 1).append("%2C");
+		}
+		userIds[99] = 14718006;
+		userIds[100] = 14846645;
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=" + firstChunk + "14718006"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14846645"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		List<TwitterProfile> users = twitter.userOperations().getUsers(userIds);
+		assertEquals(2, users.size());
+		assertEquals("kdonald", users.get(0).getScreenName());
+		assertEquals("royclarkson", users.get(1).getScreenName());
+	}
+
+	@Test
+	public void lookupUsers() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14718006%2C99%2C14846645"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		LookupResult<TwitterProfile> result = twitter.userOperations().lookupUsers(14718006, 99, 14846645);
+		assertEquals(2, result.getResults().size());
+		assertEquals("kdonald", result.getResults().get(0).getScreenName());
+		assertEquals("royclarkson", result.getResults().get(1).getScreenName());
+		assertEquals("royclarkson", result.get(14846645).getScreenName());
+		assertTrue(result.isFound(14718006));
+		assertTrue(result.isMissing(99));
+		assertFalse(result.isMissing(14846645));
+		assertFalse(result.isMissing(12345));
+		assertNull(result.get(12345));
+		assertEquals(1, result.getMissingIds().length);
+		assertEquals(99, result.getMissingIds()[0]);
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void lookupUsers_unauthorized() {
+		unauthorizedTwitter.userOperations().lookupUsers(14846645, 14718006);
+	}
+
 	@Test
 	public void getUsers_byScreenName() {
 		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?screen_name=royclarkson%2Ckdonald"))
@@ -155,6 +233,62 @@ public class UserTemplateTest extends AbstractTwitterApiTest {
 	public void getUsers_byScreenName_unauthorized() {
 		unauthorizedTwitter.userOperations().getUsers("royclarkson", "kdonald");
 	}
+
+	@Test
+	public void resolveUserIds() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/show.json?screen_name=artnames"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("twitter-profile"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?screen_name=royclarkson%2CKDonald%2Cnobody"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		twitter.userOperations().getUserProfile("artnames");
+		// only the users not seen before are looked up
+		Map<String, Long> userIds = twitter.userOperations().resolveUserIds("ArtNames", "royclarkson", "KDonald", "nobody");
+		assertEquals(Arrays.asList("ArtNames", "royclarkson", "KDonald"), new ArrayList<String>(userIds.keySet()));
+		assertEquals(161064614L, userIds.get("ArtNames").longValue());
+		assertEquals(14846645L, userIds.get("royclarkson").longValue());
+		assertEquals(14718006L, userIds.get("KDonald").longValue());
+		// and everyone seen is remembered the other way around, too
+		Map<Long, String> screenNames = twitter.userOperations().resolveScreenNames(14718006, 161064614);
+		assertEquals("kdonald", screenNames.get(14718006L));
+		assertEquals("artnames", screenNames.get(161064614L));
+		mockServer.verify();
+	}
+
+	@Test
+	public void resolveScreenNames() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14846645%2C99"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		Map<Long, String> screenNames = twitter.userOperations().resolveScreenNames(14846645, 99);
+		assertEquals(1, screenNames.size());
+		assertEquals("royclarkson", screenNames.get(14846645L));
+	}
+
+	@Test
+	public void resolveScreenNames_cacheDisabled() {
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14846645"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/users/lookup.json?user_id=14846645"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(jsonResource("list-of-profiles"), APPLICATION_JSON));
+		twitter.setScreenNameCacheTimeout(0);
+		twitter.userOperations().resolveScreenNames(14846645);
+		assertEquals("royclarkson", twitter.userOperations().resolveScreenNames(14846645).get(14846645L));
+		mockServer.verify();
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void resolveUserIds_unauthorized() {
+		unauthorizedTwitter.userOperations().resolveUserIds("royclarkson");
+	}
+
+	@Test(expected = NotAuthorizedException.class)
+	public void resolveScreenNames_unauthorized() {
+		unauthorizedTwitter.userOperations().resolveScreenNames(14846645);
+	}
 	
 	@Test
 	public void searchForUsers() {
@@ -16,16 +16,24 @@
 package org.springframework.social.twitter.connect;
 
 import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.http.MediaType.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
 import java.util.Date;
 
 import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.social.connect.ConnectionValues;
 import org.springframework.social.connect.UserProfile;
 import org.springframework.social.twitter.api.Twitter;
 import org.springframework.social.twitter.api.TwitterProfile;
 import org.springframework.social.twitter.api.UserOperations;
+import org.springframework.social.twitter.api.impl.TwitterTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.ResourceAccessException;
 
 public class TwitterAdapterTest {
@@ -86,6 +94,21 @@ public class TwitterAdapterTest {
 		assertEquals("kdonald", profile.getUsername());
 	}
 	
+	@Test
+	public void connectFlow_singleRequest() {
+		TwitterTemplate twitter = new TwitterTemplate("API_KEY", "API_SECRET", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET");
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(twitter.getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("/org/springframework/social/twitter/api/impl/twitter-profile.json"), APPLICATION_JSON));
+		assertTrue(apiAdapter.test(twitter));
+		ConnectionValues values = Mockito.mock(ConnectionValues.class);
+		apiAdapter.setConnectionValues(twitter, values);
+		Mockito.verify(values).setProviderUserId("161064614");
+		assertEquals("artnames", apiAdapter.fetchUserProfile(twitter).getUsername());
+		mockServer.verify();
+	}
+
 	@Test
 	@Ignore
 	public void fetchProfile_IOError() {
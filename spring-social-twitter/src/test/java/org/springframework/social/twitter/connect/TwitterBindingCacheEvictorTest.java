@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionKey;
+import org.springframework.social.connect.ConnectionRepository;
+import org.springframework.social.connect.UsersConnectionRepository;
+
+public class TwitterBindingCacheEvictorTest {
+
+	private UsersConnectionRepository usersConnectionRepository = mock(UsersConnectionRepository.class);
+
+	private ConnectionRepository connectionRepository = mock(ConnectionRepository.class);
+
+	private TwitterBindingCache bindingCache = mock(TwitterBindingCache.class);
+
+	private ConnectionRepository decorated;
+
+	@Before
+	public void setup() {
+		when(usersConnectionRepository.createConnectionRepository("habuma")).thenReturn(connectionRepository);
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("twitterBindingCache", bindingCache);
+		TwitterBindingCacheEvictor evictor = new TwitterBindingCacheEvictor("usersConnectionRepository", "twitterBindingCache");
+		evictor.setBeanFactory(beanFactory);
+		UsersConnectionRepository repository = (UsersConnectionRepository) evictor.postProcessAfterInitialization(usersConnectionRepository, "usersConnectionRepository");
+		decorated = repository.createConnectionRepository("habuma");
+	}
+
+	@Test
+	public void addConnection() {
+		Connection<?> connection = connection("twitter");
+		decorated.addConnection(connection);
+		verify(connectionRepository).addConnection(connection);
+		verify(bindingCache).evict("habuma");
+	}
+
+	@Test
+	public void updateConnection() {
+		Connection<?> connection = connection("twitter");
+		decorated.updateConnection(connection);
+		verify(connectionRepository).updateConnection(connection);
+		verify(bindingCache).evict("habuma");
+	}
+
+	@Test
+	public void removeConnections() {
+		decorated.removeConnections("twitter");
+		verify(connectionRepository).removeConnections("twitter");
+		verify(bindingCache).evict("habuma");
+	}
+
+	@Test
+	public void removeConnection() {
+		decorated.removeConnection(new ConnectionKey("twitter", "12345"));
+		verify(bindingCache).evict("habuma");
+	}
+
+	@Test
+	public void otherProvider() {
+		decorated.addConnection(connection("facebook"));
+		decorated.removeConnections("facebook");
+		verify(bindingCache, never()).evict(anyString());
+	}
+
+	@Test
+	public void failedChangeStillEvicts() {
+		Connection<?> connection = connection("twitter");
+		doThrow(new IllegalStateException()).when(connectionRepository).updateConnection(connection);
+		try {
+			decorated.updateConnection(connection);
+			fail();
+		} catch (IllegalStateException e) {
+			verify(bindingCache).evict("habuma");
+		}
+	}
+
+	@Test
+	public void otherBeansNotDecorated() {
+		TwitterBindingCacheEvictor evictor = new TwitterBindingCacheEvictor("usersConnectionRepository", "twitterBindingCache");
+		assertSame(usersConnectionRepository, evictor.postProcessAfterInitialization(usersConnectionRepository, "otherRepository"));
+	}
+
+	private Connection<?> connection(String providerId) {
+		Connection<?> connection = mock(Connection.class);
+		when(connection.getKey()).thenReturn(new ConnectionKey(providerId, "12345"));
+		return connection;
+	}
+
+}
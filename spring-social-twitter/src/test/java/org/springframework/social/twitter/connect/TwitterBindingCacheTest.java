@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionData;
+import org.springframework.social.connect.ConnectionRepository;
+import org.springframework.social.connect.UsersConnectionRepository;
+import org.springframework.social.twitter.api.Twitter;
+
+public class TwitterBindingCacheTest {
+
+	private UsersConnectionRepository usersConnectionRepository = mock(UsersConnectionRepository.class);
+
+	private ConnectionRepository connectionRepository = mock(ConnectionRepository.class);
+
+	private Twitter twitter = mock(Twitter.class);
+
+	private Connection<Twitter> connection;
+
+	private TwitterBindingCache cache = new TwitterBindingCache(usersConnectionRepository);
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		connection = mock(Connection.class);
+		when(connection.createData()).thenReturn(connectionData("http://a1.twimg.com/habuma.png"));
+		when(connection.getApi()).thenReturn(twitter);
+		when(usersConnectionRepository.createConnectionRepository("habuma")).thenReturn(connectionRepository);
+		when(connectionRepository.findPrimaryConnection(Twitter.class)).thenReturn(connection);
+	}
+
+	@Test
+	public void getApi() {
+		assertSame(twitter, cache.getApi("habuma"));
+		assertTrue(cache.isCached("habuma"));
+		assertSame(twitter, cache.getApi("habuma"));
+		verify(connectionRepository, times(1)).findPrimaryConnection(Twitter.class);
+	}
+
+	@Test
+	public void getApi_savesMissingImageUrl() {
+		when(connection.createData()).thenReturn(connectionData(null), connectionData("http://a1.twimg.com/habuma.png"));
+		cache.setImageUrlExecutor(new SyncTaskExecutor());
+		assertSame(twitter, cache.getApi("habuma"));
+		verify(connection).sync();
+		verify(connectionRepository).updateConnection(connection);
+	}
+
+	@Test
+	public void getApi_imageUrlPresent() {
+		cache.setImageUrlExecutor(new SyncTaskExecutor());
+		cache.getApi("habuma");
+		verify(connection, never()).sync();
+		verify(connectionRepository, never()).updateConnection(connection);
+	}
+
+	@Test
+	public void getApi_noConnection() {
+		ConnectionRepository otherRepository = mock(ConnectionRepository.class);
+		when(usersConnectionRepository.createConnectionRepository("kdonald")).thenReturn(otherRepository);
+		Twitter unauthorized = cache.getApi("kdonald");
+		assertNotNull(unauthorized);
+		assertFalse(unauthorized.isAuthorized());
+		assertSame(unauthorized, cache.getApi("kdonald"));
+		verify(otherRepository, times(1)).findPrimaryConnection(Twitter.class);
+	}
+
+	@Test
+	public void evict() {
+		cache.getApi("habuma");
+		cache.evict("habuma");
+		assertFalse(cache.isCached("habuma"));
+		cache.getApi("habuma");
+		verify(connectionRepository, times(2)).findPrimaryConnection(Twitter.class);
+	}
+
+	@Test
+	public void evict_duringLookup() {
+		final Connection<Twitter> connection = this.connection;
+		when(connectionRepository.findPrimaryConnection(Twitter.class)).thenAnswer(new Answer<Connection<Twitter>>() {
+			public Connection<Twitter> answer(InvocationOnMock invocation) {
+				// the connection changes while the old one is being read
+				cache.evict("habuma");
+				return connection;
+			}
+		});
+		assertSame(twitter, cache.getApi("habuma"));
+		assertFalse(cache.isCached("habuma"));
+		cache.getApi("habuma");
+		verify(connectionRepository, times(2)).findPrimaryConnection(Twitter.class);
+	}
+
+	@Test
+	public void maxSize() {
+		ConnectionRepository otherRepository = mock(ConnectionRepository.class);
+		when(usersConnectionRepository.createConnectionRepository("kdonald")).thenReturn(otherRepository);
+		cache.setMaxSize(1);
+		cache.getApi("habuma");
+		cache.getApi("kdonald");
+		assertFalse(cache.isCached("habuma"));
+		assertTrue(cache.isCached("kdonald"));
+	}
+
+	@Test
+	public void cachingDisabled() {
+		cache.setTimeout(0);
+		cache.getApi("habuma");
+		cache.getApi("habuma");
+		assertFalse(cache.isCached("habuma"));
+		verify(connectionRepository, times(2)).findPrimaryConnection(Twitter.class);
+	}
+
+	private ConnectionData connectionData(String imageUrl) {
+		return new ConnectionData("twitter", "14718006", "@habuma", "http://twitter.com/habuma", imageUrl, "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", null, null);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.connect;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpMethod.*;
+import static org.springframework.http.MediaType.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.social.connect.Connection;
+import org.springframework.social.connect.ConnectionData;
+import org.springframework.social.oauth1.OAuthToken;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.api.impl.TwitterTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+public class TwitterConnectionFactoryTest {
+
+	private TwitterConnectionFactory connectionFactory = new TwitterConnectionFactory("API_KEY", "API_SECRET");
+
+	@Test
+	public void createOAuthToken() {
+		TwitterOAuth1Template oauthTemplate = new TwitterOAuth1Template("API_KEY", "API_SECRET");
+		MultiValueMap<String, String> response = new LinkedMultiValueMap<String, String>();
+		response.add("oauth_token", "ACCESS_TOKEN");
+		response.add("oauth_token_secret", "ACCESS_TOKEN_SECRET");
+		response.add("user_id", "161064614");
+		response.add("screen_name", "artnames");
+		OAuthToken accessToken = oauthTemplate.createOAuthToken("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", response);
+		assertTrue(accessToken instanceof TwitterAccessToken);
+		assertEquals("ACCESS_TOKEN", accessToken.getValue());
+		assertEquals("ACCESS_TOKEN_SECRET", accessToken.getSecret());
+		assertEquals(161064614L, ((TwitterAccessToken) accessToken).getUserId());
+		assertEquals("artnames", ((TwitterAccessToken) accessToken).getScreenName());
+	}
+
+	@Test
+	public void createOAuthToken_requestToken() {
+		TwitterOAuth1Template oauthTemplate = new TwitterOAuth1Template("API_KEY", "API_SECRET");
+		MultiValueMap<String, String> response = new LinkedMultiValueMap<String, String>();
+		response.add("oauth_token", "REQUEST_TOKEN");
+		response.add("oauth_token_secret", "REQUEST_TOKEN_SECRET");
+		response.add("oauth_callback_confirmed", "true");
+		OAuthToken requestToken = oauthTemplate.createOAuthToken("REQUEST_TOKEN", "REQUEST_TOKEN_SECRET", response);
+		assertFalse(requestToken instanceof TwitterAccessToken);
+		assertEquals("REQUEST_TOKEN", requestToken.getValue());
+	}
+
+	@Test
+	public void createConnection_fromAccessToken() {
+		Connection<Twitter> connection = connectionFactory.createConnection(new TwitterAccessToken("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", 161064614L, "artnames"));
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(((TwitterTemplate) connection.getApi()).getRestTemplate());
+		assertEquals("twitter", connection.getKey().getProviderId());
+		assertEquals("161064614", connection.getKey().getProviderUserId());
+		assertEquals("@artnames", connection.getDisplayName());
+		assertEquals("http://twitter.com/artnames", connection.getProfileUrl());
+		ConnectionData data = connection.createData();
+		assertEquals("161064614", data.getProviderUserId());
+		assertEquals("@artnames", data.getDisplayName());
+		assertNull(data.getImageUrl());
+		assertEquals("ACCESS_TOKEN", data.getAccessToken());
+		assertEquals("ACCESS_TOKEN_SECRET", data.getSecret());
+		mockServer.verify();
+	}
+
+	@Test
+	public void createConnection_imageUrlFetchedLazily() {
+		Connection<Twitter> connection = connectionFactory.createConnection(new TwitterAccessToken("ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", 161064614L, "artnames"));
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(((TwitterTemplate) connection.getApi()).getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("/org/springframework/social/twitter/api/impl/twitter-profile.json"), APPLICATION_JSON));
+		assertEquals("http://a1.twimg.com/sticky/default_profile_images/default_profile_4_normal.png", connection.getImageUrl());
+		assertEquals("http://a1.twimg.com/sticky/default_profile_images/default_profile_4_normal.png", connection.getImageUrl());
+		assertEquals("http://a1.twimg.com/sticky/default_profile_images/default_profile_4_normal.png", connection.createData().getImageUrl());
+		mockServer.verify();
+	}
+
+	@Test
+	public void createConnection_fromData() {
+		ConnectionData data = new ConnectionData("twitter", "161064614", "@artnames", "http://twitter.com/artnames", "http://a1.twimg.com/artnames.png", "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", null, null);
+		Connection<Twitter> connection = connectionFactory.createConnection(data);
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(((TwitterTemplate) connection.getApi()).getRestTemplate());
+		assertEquals("161064614", connection.getKey().getProviderUserId());
+		assertEquals("http://a1.twimg.com/artnames.png", connection.getImageUrl());
+		mockServer.verify();
+	}
+
+	@Test
+	public void createConnection_fromDataWithoutImageUrl() {
+		ConnectionData data = new ConnectionData("twitter", "161064614", "@artnames", "http://twitter.com/artnames", null, "ACCESS_TOKEN", "ACCESS_TOKEN_SECRET", null, null);
+		Connection<Twitter> connection = connectionFactory.createConnection(data);
+		MockRestServiceServer mockServer = MockRestServiceServer.createServer(((TwitterTemplate) connection.getApi()).getRestTemplate());
+		mockServer.expect(requestTo("https://api.twitter.com/1.1/account/verify_credentials.json"))
+			.andExpect(method(GET))
+			.andRespond(withSuccess(new ClassPathResource("/org/springframework/social/twitter/api/impl/twitter-profile.json"), APPLICATION_JSON));
+		assertNull(connection.createData().getImageUrl());
+		assertEquals("http://a1.twimg.com/sticky/default_profile_images/default_profile_4_normal.png", connection.getImageUrl());
+		mockServer.verify();
+		// once saved, a connection restored from its data has the image URL without asking Twitter
+		Connection<Twitter> restored = connectionFactory.createConnection(connection.createData());
+		MockRestServiceServer restoredMockServer = MockRestServiceServer.createServer(((TwitterTemplate) restored.getApi()).getRestTemplate());
+		assertEquals("http://a1.twimg.com/sticky/default_profile_images/default_profile_4_normal.png", restored.getImageUrl());
+		restoredMockServer.verify();
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.social.InternalServerErrorException;
+import org.springframework.social.OperationNotPermittedException;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.ResourceNotFoundException;
+import org.springframework.social.twitter.api.BlockOperations;
+import org.springframework.social.twitter.api.FriendOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TimelineOperations;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.support.WriteCommand.Type;
+import org.springframework.social.twitter.support.WriteResult.Status;
+
+public class BulkWritePipelineTest {
+
+	private Twitter twitter = mock(Twitter.class);
+
+	private FriendOperations friendOperations = mock(FriendOperations.class);
+
+	private BlockOperations blockOperations = mock(BlockOperations.class);
+
+	private TimelineOperations timelineOperations = mock(TimelineOperations.class);
+
+	private CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+
+	private BulkWritePipeline pipeline = new BulkWritePipeline(twitter, checkpointStore);
+
+	private List<WriteResult> journal = Collections.synchronizedList(new ArrayList<WriteResult>());
+
+	@Before
+	public void setup() {
+		when(twitter.friendOperations()).thenReturn(friendOperations);
+		when(twitter.blockOperations()).thenReturn(blockOperations);
+		when(twitter.timelineOperations()).thenReturn(timelineOperations);
+		for (Type type : Type.values()) {
+			pipeline.setPacer(type, new RateLimitPacer(1, 0));
+		}
+		pipeline.setJournal(new WriteJournal() {
+			public void record(WriteResult result) {
+				journal.add(result);
+			}
+		});
+	}
+
+	@Test
+	public void run() throws Exception {
+		List<WriteCommand> commands = Arrays.asList(WriteCommand.follow(1), WriteCommand.unfollow(2), WriteCommand.block(3),
+				WriteCommand.unblock(4), WriteCommand.favorite(5), WriteCommand.unfavorite(6), WriteCommand.retweet(7), WriteCommand.deleteStatus(8));
+		WriteReport report = pipeline.run("cleanup", commands);
+		assertEquals(8, report.getSucceeded());
+		assertEquals(0, report.getFailed());
+		verify(friendOperations).follow(1L);
+		verify(friendOperations).unfollow(2L);
+		verify(blockOperations).block(3L);
+		verify(blockOperations).unblock(4L);
+		verify(timelineOperations).addToFavorites(5L);
+		verify(timelineOperations).removeFromFavorites(6L);
+		verify(timelineOperations).retweet(7L);
+		verify(timelineOperations).deleteStatus(8L);
+		assertEquals(8, journal.size());
+		assertEquals(WriteCommand.follow(1), journal.get(0).getCommand());
+		assertEquals(Status.SUCCEEDED, journal.get(0).getStatus());
+	}
+
+	@Test
+	public void run_retriesTransientFailuresAndResumes() throws Exception {
+		doThrow(new ResourceNotFoundException("twitter", "Not found")).when(timelineOperations).deleteStatus(1L);
+		doThrow(new InternalServerErrorException("twitter", "Broken"))
+			.doThrow(new RateLimitExceededException("twitter"))
+			.doNothing()
+			.when(timelineOperations).deleteStatus(2L);
+		doThrow(new InternalServerErrorException("twitter", "Broken")).when(timelineOperations).deleteStatus(3L);
+		doThrow(new OperationNotPermittedException("twitter", "Not yours")).when(timelineOperations).deleteStatus(4L);
+		List<WriteCommand> commands = Arrays.asList(WriteCommand.deleteStatus(1), WriteCommand.deleteStatus(2),
+				WriteCommand.deleteStatus(3), WriteCommand.deleteStatus(4));
+		WriteReport report = pipeline.run("cleanup", commands);
+		assertEquals(1, report.getSucceeded());
+		assertEquals(1, report.getNotFound());
+		assertEquals(2, report.getFailed());
+		assertEquals(3, journal.get(1).getAttempts());
+		assertEquals(Status.FAILED, journal.get(2).getStatus());
+		assertEquals(3, journal.get(2).getAttempts());
+		assertEquals(1, journal.get(3).getAttempts());
+
+		// a second run only retries the commands that failed
+		reset(timelineOperations);
+		report = pipeline.run("cleanup", commands);
+		assertEquals(2, report.getSkipped());
+		assertEquals(2, report.getSucceeded());
+		verify(timelineOperations, never()).deleteStatus(1L);
+		verify(timelineOperations, never()).deleteStatus(2L);
+		verify(timelineOperations).deleteStatus(3L);
+		verify(timelineOperations).deleteStatus(4L);
+		// only the job's position is left checkpointed
+		assertEquals(4, checkpointStore.get("cleanup/position", 0));
+		assertEquals(0, checkpointStore.get("cleanup/failed/delete_status/3", 0));
+		assertEquals(0, checkpointStore.get("cleanup/failed/delete_status/4", 0));
+	}
+
+	@Test
+	public void run_rateLimitExceededDefersForRateLimitWindow() throws Exception {
+		final List<Long> deferredUntil = new ArrayList<Long>();
+		// paced like the daily follow limit, but without waiting
+		pipeline.setPacer(Type.FOLLOW, new RateLimitPacer(1000, 24 * 60 * 60 * 1000) {
+			@Override
+			public void acquire() {
+			}
+			@Override
+			public synchronized void deferUntil(long timeMillis) {
+				deferredUntil.add(timeMillis);
+			}
+		});
+		when(friendOperations.follow(1L)).thenThrow(new RateLimitExceededException("twitter")).thenReturn("habuma");
+		long now = System.currentTimeMillis();
+		assertEquals(1, pipeline.run("follow", Arrays.asList(WriteCommand.follow(1))).getSucceeded());
+		assertEquals(1, deferredUntil.size());
+		assertTrue(deferredUntil.get(0) - now <= 15 * 60 * 1000 + 1000);
+	}
+
+	@Test
+	public void run_alreadyApplied() throws Exception {
+		doThrow(new OperationNotPermittedException("twitter", "You have already favorited this status.")).when(timelineOperations).addToFavorites(1L);
+		doThrow(new InternalServerErrorException("twitter", "Broken"))
+			.doThrow(new OperationNotPermittedException("twitter", "You have already retweeted this Tweet."))
+			.when(timelineOperations).retweet(2L);
+		WriteReport report = pipeline.run("engage", Arrays.asList(WriteCommand.favorite(1), WriteCommand.retweet(2)));
+		assertEquals(2, report.getAlreadyApplied());
+		assertEquals(0, report.getFailed());
+		assertEquals(Status.ALREADY_APPLIED, journal.get(0).getStatus());
+		assertEquals(Status.ALREADY_APPLIED, journal.get(1).getStatus());
+		assertEquals(2, journal.get(1).getAttempts());
+	}
+
+	@Test
+	public void run_concurrently() throws Exception {
+		pipeline.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		pipeline.setConcurrencyLimit(4);
+		List<WriteCommand> commands = new ArrayList<WriteCommand>();
+		for (long id = 1; id <= 100; id++) {
+			commands.add(WriteCommand.unfollow(id));
+		}
+		WriteReport report = pipeline.run("unfollow-everyone", commands);
+		assertEquals(100, report.getSucceeded());
+		assertEquals(100, journal.size());
+		for (long id = 1; id <= 100; id++) {
+			verify(friendOperations).unfollow(id);
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.social.InternalServerErrorException;
+import org.springframework.social.twitter.api.DirectMessage;
+import org.springframework.social.twitter.api.DirectMessageOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TwitterProfile;
+
+public class DirectMessageInboxTest {
+
+	private DirectMessageOperations directMessageOperations = mock(DirectMessageOperations.class);
+
+	private DirectMessageInbox inbox = new DirectMessageInbox(directMessageOperations, true);
+
+	@Before
+	public void setup() {
+		inbox.setPacer(new RateLimitPacer(1, 0));
+		inbox.setSentPacer(new RateLimitPacer(1, 0));
+		when(directMessageOperations.getDirectMessagesReceived(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(new ArrayList<DirectMessage>());
+		when(directMessageOperations.getDirectMessagesSent(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(new ArrayList<DirectMessage>());
+	}
+
+	@Test
+	public void sync_backfills() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(1000, 801));
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 800)).thenReturn(messages(800, 751));
+		when(directMessageOperations.getDirectMessagesSent(1, 200, 0, 0)).thenReturn(messages(760, 755));
+		assertFalse(inbox.isSynced());
+		assertEquals(256, inbox.sync());
+		assertTrue(inbox.isSynced());
+		verify(directMessageOperations).getDirectMessagesReceived(1, 200, 0, 750);
+		verify(directMessageOperations).getDirectMessagesSent(1, 200, 0, 754);
+		List<DirectMessage> received = inbox.getDirectMessagesReceived();
+		assertEquals(250, received.size());
+		assertEquals(1000, received.get(0).getId());
+		assertEquals(751, received.get(249).getId());
+		assertEquals(6, inbox.getDirectMessagesSent().size());
+	}
+
+	@Test
+	public void sync_sinceNewest() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(100, 91));
+		inbox.sync();
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 100, 0)).thenReturn(messages(103, 101));
+		assertEquals(3, inbox.sync());
+		assertEquals(13, inbox.getDirectMessagesReceived().size());
+		// a quiet inbox costs a single request per folder
+		reset(directMessageOperations);
+		when(directMessageOperations.getDirectMessagesReceived(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(new ArrayList<DirectMessage>());
+		when(directMessageOperations.getDirectMessagesSent(anyInt(), anyInt(), anyLong(), anyLong())).thenReturn(new ArrayList<DirectMessage>());
+		assertEquals(0, inbox.sync());
+		verify(directMessageOperations).getDirectMessagesReceived(1, 200, 103, 0);
+		verify(directMessageOperations).getDirectMessagesSent(1, 200, 0, 0);
+		verifyNoMoreInteractions(directMessageOperations);
+	}
+
+	@Test
+	public void sync_fillsGap() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(100, 100));
+		inbox.sync();
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 100, 0)).thenReturn(messages(500, 301));
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 100, 300)).thenReturn(messages(300, 101));
+		assertEquals(400, inbox.sync());
+		assertEquals(401, inbox.getDirectMessagesReceived().size());
+	}
+
+	@Test
+	public void sync_failureAddsNothing() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(1000, 801));
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 800)).thenThrow(new InternalServerErrorException("twitter", "Something went wrong"));
+		try {
+			inbox.sync();
+			fail();
+		} catch (InternalServerErrorException e) {
+			// expected
+		}
+		assertFalse(inbox.isSynced());
+		assertTrue(inbox.getDirectMessagesReceived().isEmpty());
+	}
+
+	@Test
+	public void sync_resumesFromCheckpoint() throws Exception {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		inbox = new DirectMessageInbox(directMessageOperations, true, checkpointStore, "habuma");
+		inbox.setPacer(new RateLimitPacer(1, 0));
+		inbox.setSentPacer(new RateLimitPacer(1, 0));
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(100, 91));
+		when(directMessageOperations.getDirectMessagesSent(1, 200, 0, 0)).thenReturn(messages(95, 94));
+		inbox.sync();
+		assertEquals(100L, checkpointStore.get("dm/habuma/received", -1L));
+		assertEquals(95L, checkpointStore.get("dm/habuma/sent", -1L));
+		// after a restart, the messages kept before are backfilled along with those that arrived since
+		DirectMessageInbox restarted = new DirectMessageInbox(directMessageOperations, true, checkpointStore, "habuma");
+		restarted.setPacer(new RateLimitPacer(1, 0));
+		restarted.setSentPacer(new RateLimitPacer(1, 0));
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(102, 91));
+		assertEquals(14, restarted.sync());
+		assertEquals(12, restarted.getDirectMessagesReceived().size());
+		assertEquals(2, restarted.getDirectMessagesSent().size());
+		assertEquals(102L, checkpointStore.get("dm/habuma/received", -1L));
+		// later syncs only fetch what is newer
+		restarted.sync();
+		verify(directMessageOperations).getDirectMessagesReceived(1, 200, 102, 0);
+		verify(directMessageOperations).getDirectMessagesSent(1, 200, 95, 0);
+	}
+
+	@Test
+	public void sync_checkpointNeverMovesBack() throws Exception {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		checkpointStore.put("dm/habuma/received", 100L);
+		inbox = new DirectMessageInbox(directMessageOperations, false, checkpointStore, "habuma");
+		inbox.setPacer(new RateLimitPacer(1, 0));
+		// the newest messages were deleted while the inbox wasn't running
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(98, 91));
+		assertEquals(8, inbox.sync());
+		assertEquals(100L, checkpointStore.get("dm/habuma/received", -1L));
+	}
+
+	@Test
+	public void sync_backfillStopsAtMaxMessages() throws Exception {
+		inbox.setMaxMessages(200);
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(1000, 801));
+		assertEquals(200, inbox.sync());
+		verify(directMessageOperations, never()).getDirectMessagesReceived(1, 200, 0, 800);
+	}
+
+	@Test
+	public void sync_removedMessageNotFetchedAgain() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(100, 91));
+		inbox.sync();
+		inbox.remove(100);
+		inbox.sync();
+		verify(directMessageOperations).getDirectMessagesReceived(1, 200, 100, 0);
+		assertNull(inbox.getDirectMessage(100));
+	}
+
+	@Test
+	public void readsServedLocally() throws Exception {
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(20, 1));
+		inbox.sync();
+		List<DirectMessage> page = inbox.getDirectMessagesReceived(5, 0, 0);
+		assertEquals(5, page.size());
+		assertEquals(20, page.get(0).getId());
+		page = inbox.getDirectMessagesReceived(5, 0, 15);
+		assertEquals(15, page.get(0).getId());
+		assertEquals(11, page.get(4).getId());
+		page = inbox.getDirectMessagesReceived(20, 17, 0);
+		assertEquals(3, page.size());
+		assertEquals(18, page.get(2).getId());
+		assertTrue(inbox.getDirectMessagesReceived(20, 10, 5).isEmpty());
+		assertEquals(7, inbox.getDirectMessage(7).getId());
+		inbox.remove(7);
+		assertNull(inbox.getDirectMessage(7));
+		assertEquals(19, inbox.getDirectMessagesReceived().size());
+	}
+
+	@Test
+	public void maxMessages() throws Exception {
+		inbox.setMaxMessages(10);
+		when(directMessageOperations.getDirectMessagesReceived(1, 200, 0, 0)).thenReturn(messages(20, 1));
+		inbox.sync();
+		List<DirectMessage> received = inbox.getDirectMessagesReceived();
+		assertEquals(10, received.size());
+		assertEquals(11, received.get(9).getId());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void sentNotKept() {
+		new DirectMessageInbox(directMessageOperations, false).getDirectMessagesSent();
+	}
+
+	private List<DirectMessage> messages(long newestId, long oldestId) {
+		TwitterProfile sender = new TwitterProfile(1, "habuma", "Craig Walls", null, null, null, null, new Date());
+		TwitterProfile recipient = new TwitterProfile(2, "kdonald", "Keith Donald", null, null, null, null, new Date());
+		List<DirectMessage> messages = new ArrayList<DirectMessage>();
+		for (long id = newestId; id >= oldestId; id--) {
+			messages.add(new DirectMessage(id, "Message " + id, sender, recipient, new Date()));
+		}
+		return messages;
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileCheckpointStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private FileCheckpointStore store;
+
+	@Before
+	public void setup() {
+		file = new File(folder.getRoot(), "checkpoints/crawler.log");
+		store = new FileCheckpointStore(file);
+	}
+
+	@After
+	public void closeStore() {
+		store.close();
+	}
+
+	@Test
+	public void putAndGet() {
+		assertEquals(-1L, store.get("friends/habuma", -1L));
+		store.put("friends/habuma", 1234567890123L);
+		store.put("search/#spring", 42L);
+		assertEquals(1234567890123L, store.get("friends/habuma", -1L));
+		assertEquals(42L, store.get("search/#spring", -1L));
+		store.remove("search/#spring");
+		assertEquals(-1L, store.get("search/#spring", -1L));
+	}
+
+	@Test
+	public void survivesRestart() {
+		store.put("friends/habuma", 1234567890123L);
+		store.put("poll/kdonald/home", 7L);
+		store.put("poll/kdonald/home", 8L);
+		store.put("search/#spring", 42L);
+		store.remove("search/#spring");
+		store.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(1234567890123L, store.get("friends/habuma", -1L));
+		assertEquals(8L, store.get("poll/kdonald/home", -1L));
+		assertEquals(-1L, store.get("search/#spring", -1L));
+	}
+
+	@Test
+	public void incompleteRecordDiscarded() throws Exception {
+		store.put("friends/habuma", 1L);
+		store.put("friends/kdonald", 2L);
+		store.close();
+		long length = file.length();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(length - 3);
+		raf.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(1L, store.get("friends/habuma", -1L));
+		assertEquals(-1L, store.get("friends/kdonald", -1L));
+		// the torn record is truncated so that new records are readable
+		store.put("friends/kdonald", 3L);
+		store.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(3L, store.get("friends/kdonald", -1L));
+	}
+
+	@Test
+	public void compaction() {
+		store.setCompactionThreshold(10);
+		store.put("friends/habuma", 0L);
+		for (int i = 1; i <= 10; i++) {
+			store.put("poll/kdonald/home", i);
+		}
+		long lengthBeforeCompaction = file.length();
+		store.put("poll/kdonald/home", 11L);
+		assertTrue(file.length() < lengthBeforeCompaction);
+		store.put("poll/kdonald/home", 12L);
+		store.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(0L, store.get("friends/habuma", -1L));
+		assertEquals(12L, store.get("poll/kdonald/home", -1L));
+	}
+
+	@Test
+	public void compaction_appendsAfterCompactedRecords() {
+		store.put("poll/kdonald/home", 1L);
+		store.put("friends/habuma", 2L);
+		store.compact();
+		store.put("f", 3L);
+		store.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(1L, store.get("poll/kdonald/home", -1L));
+		assertEquals(2L, store.get("friends/habuma", -1L));
+		assertEquals(3L, store.get("f", -1L));
+	}
+
+	@Test
+	public void compaction_interruptedAfterLogDeleted() {
+		store.put("friends/habuma", 1L);
+		store.put("poll/kdonald/home", 2L);
+		store.close();
+		// the state a crash leaves behind when the log had to be deleted before the compacted file could replace it
+		assertTrue(file.renameTo(new File(file.getParentFile(), file.getName() + ".tmp")));
+		store = new FileCheckpointStore(file);
+		assertEquals(1L, store.get("friends/habuma", -1L));
+		assertEquals(2L, store.get("poll/kdonald/home", -1L));
+		store.put("search/#spring", 3L);
+		store.close();
+		store = new FileCheckpointStore(file);
+		assertEquals(1L, store.get("friends/habuma", -1L));
+		assertEquals(3L, store.get("search/#spring", -1L));
+	}
+
+	@Test
+	public void unchangedValueNotWritten() {
+		store.put("friends/habuma", 5L);
+		long length = file.length();
+		store.put("friends/habuma", 5L);
+		store.remove("friends/nobody");
+		assertEquals(length, file.length());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void fileInUse() {
+		new FileCheckpointStore(file);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void closed() {
+		store.close();
+		store.put("friends/habuma", 1L);
+	}
+
+}
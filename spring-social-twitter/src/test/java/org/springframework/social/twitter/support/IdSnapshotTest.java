@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class IdSnapshotTest {
+
+	private IdSnapshot friends = IdSnapshot.of(2, 3, 5, 7, 11, 13);
+
+	private IdSnapshot followers = IdSnapshot.of(1, 2, 3, 4, 5, 6, 8);
+
+	@Test
+	public void ofCollection() {
+		assertArrayEquals(new long[] {1, 2, 3}, IdSnapshot.of(Arrays.asList(3L, 1L, 2L, 3L)).toArray());
+	}
+
+	@Test
+	public void intersect() {
+		assertArrayEquals(new long[] {2, 3, 5}, friends.intersect(followers).toArray());
+		assertArrayEquals(new long[] {2, 3, 5}, followers.intersect(friends).toArray());
+		assertTrue(friends.intersect(IdSnapshot.EMPTY).isEmpty());
+	}
+
+	@Test
+	public void minus() {
+		assertArrayEquals(new long[] {1, 4, 6, 8}, followers.minus(friends).toArray());
+		assertArrayEquals(new long[] {7, 11, 13}, friends.minus(followers).toArray());
+		assertArrayEquals(friends.toArray(), friends.minus(IdSnapshot.EMPTY).toArray());
+		assertTrue(IdSnapshot.EMPTY.minus(friends).isEmpty());
+	}
+
+	@Test
+	public void intersectAndMinus_skewedSizes() {
+		long[] many = new long[100000];
+		for (int i = 0; i < many.length; i++) {
+			many[i] = i * 3L;
+		}
+		IdSnapshot large = IdSnapshot.of(many);
+		IdSnapshot small = IdSnapshot.of(-3, 0, 4, 299997, 299998, 300000);
+		assertArrayEquals(new long[] {0, 299997}, small.intersect(large).toArray());
+		assertArrayEquals(new long[] {0, 299997}, large.intersect(small).toArray());
+		assertArrayEquals(new long[] {-3, 4, 299998, 300000}, small.minus(large).toArray());
+		assertEquals(99998, large.minus(small).size());
+	}
+
+	@Test
+	public void intersect_streaming() {
+		long[] evens = new long[5000];
+		long[] multiplesOfThree = new long[5000];
+		for (int i = 0; i < 5000; i++) {
+			evens[i] = i * 2L;
+			multiplesOfThree[i] = i * 3L;
+		}
+		final List<Long> streamed = new ArrayList<Long>();
+		final List<Integer> batchSizes = new ArrayList<Integer>();
+		IdSnapshot.of(evens).intersect(IdSnapshot.of(multiplesOfThree), new IdSink() {
+			public void accept(long[] ids, int offset, int length) {
+				batchSizes.add(length);
+				for (int i = offset; i < offset + length; i++) {
+					streamed.add(ids[i]);
+				}
+			}
+		});
+		assertEquals(1667, streamed.size());
+		assertEquals(0L, (long) streamed.get(0));
+		assertEquals(9996L, (long) streamed.get(1666));
+		assertEquals(Arrays.asList(1024, 643), batchSizes);
+	}
+
+	@Test
+	public void minus_streaming() {
+		final List<Long> streamed = new ArrayList<Long>();
+		followers.minus(friends, new IdSink() {
+			public void accept(long[] ids, int offset, int length) {
+				for (int i = offset; i < offset + length; i++) {
+					streamed.add(ids[i]);
+				}
+			}
+		});
+		assertEquals(Arrays.asList(1L, 4L, 6L, 8L), streamed);
+	}
+
+}
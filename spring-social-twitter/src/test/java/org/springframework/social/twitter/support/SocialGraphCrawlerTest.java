@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.CursoredIdPage;
+import org.springframework.social.twitter.api.FriendOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.Twitter;
+import org.springframework.social.twitter.api.UserOperations;
+import org.springframework.social.twitter.support.SocialGraphCrawler.Graph;
+
+public class SocialGraphCrawlerTest {
+
+	private FriendOperations friendOperations = mock(FriendOperations.class);
+
+	private CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+
+	private UserOperations userOperations = mock(UserOperations.class);
+
+	private SocialGraphCrawler crawler;
+
+	@Before
+	public void setup() {
+		crawler = new SocialGraphCrawler(twitter(friendOperations, userOperations), checkpointStore);
+		when(userOperations.getProfileId()).thenReturn(42L);
+		crawler.setFriendsPacer(new RateLimitPacer(15, 0));
+		crawler.setFollowersPacer(new RateLimitPacer(15, 0));
+	}
+
+	@Test
+	public void crawl_followers() throws Exception {
+		when(friendOperations.getFollowerIdPage(12345L, -1)).thenReturn(new CursoredIdPage(new long[] {1, 2, 3}, 0, 111));
+		when(friendOperations.getFollowerIdPage(12345L, 111)).thenReturn(new CursoredIdPage(new long[] {4, 5}, -111, 0));
+		CollectingSink sink = new CollectingSink();
+		assertEquals(5, crawler.crawl(Graph.FOLLOWERS, 12345L, sink));
+		assertEquals(5, sink.ids.size());
+		assertEquals(1L, (long) sink.ids.get(0));
+		assertEquals(5L, (long) sink.ids.get(4));
+		assertEquals(-1, checkpointStore.get("crawl/followers/12345", -1));
+	}
+
+	@Test
+	public void crawl_friends_byScreenName() throws Exception {
+		when(friendOperations.getFriendIdPage("habuma", -1)).thenReturn(new CursoredIdPage(new long[] {7, 8}, 0, 0));
+		CollectingSink sink = new CollectingSink();
+		assertEquals(2, crawler.crawl(Graph.FRIENDS, "habuma", sink));
+		assertEquals(2, sink.ids.size());
+		verify(friendOperations, never()).getFollowerIdPage("habuma", -1);
+	}
+
+	@Test
+	public void crawl_resumesFromCheckpoint() throws Exception {
+		when(friendOperations.getFriendIdPage(-1)).thenReturn(new CursoredIdPage(new long[] {1, 2}, 0, 111));
+		when(friendOperations.getFriendIdPage(111)).thenReturn(new CursoredIdPage(new long[] {3, 4}, -111, 222));
+		when(friendOperations.getFriendIdPage(222)).thenReturn(new CursoredIdPage(new long[] {5}, -222, 0));
+		CollectingSink failingSink = new CollectingSink(3);
+		try {
+			crawler.crawl(Graph.FRIENDS, failingSink);
+			fail("Expected the sink to fail");
+		} catch (IllegalStateException e) {
+			assertEquals(111, checkpointStore.get("crawl/friends/42", -1));
+		}
+		CollectingSink sink = new CollectingSink();
+		assertEquals(3, crawler.crawl(Graph.FRIENDS, sink));
+		assertEquals(3L, (long) sink.ids.get(0));
+		assertEquals(5L, (long) sink.ids.get(2));
+		verify(friendOperations, times(1)).getFriendIdPage(-1);
+		verify(friendOperations, times(2)).getFriendIdPage(111);
+		verify(userOperations, times(1)).getProfileId();
+	}
+
+	@Test
+	public void crawl_selfKeyedByAuthenticatedUser() throws Exception {
+		FriendOperations otherFriendOperations = mock(FriendOperations.class);
+		UserOperations otherUserOperations = mock(UserOperations.class);
+		when(otherUserOperations.getProfileId()).thenReturn(43L);
+		SocialGraphCrawler otherCrawler = new SocialGraphCrawler(twitter(otherFriendOperations, otherUserOperations), checkpointStore);
+		otherCrawler.setFriendsPacer(new RateLimitPacer(15, 0));
+		when(friendOperations.getFriendIdPage(-1)).thenReturn(new CursoredIdPage(new long[] {1, 2}, 0, 111));
+		when(friendOperations.getFriendIdPage(111)).thenReturn(new CursoredIdPage(new long[] {3}, -111, 0));
+		when(otherFriendOperations.getFriendIdPage(-1)).thenReturn(new CursoredIdPage(new long[] {3}, 0, 0));
+		try {
+			crawler.crawl(Graph.FRIENDS, new CollectingSink(2));
+			fail("Expected the sink to fail");
+		} catch (IllegalStateException e) {
+			// interrupted after the first page
+		}
+		// another user's crawl sharing the store neither resumes from nor clears the first user's checkpoint
+		assertEquals(1, otherCrawler.crawl(Graph.FRIENDS, new CollectingSink()));
+		assertEquals(111, checkpointStore.get("crawl/friends/42", -1));
+		assertTrue(crawler.isUnfinished(Graph.FRIENDS, 42L));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void crawl_selfNeedsTwitter() throws Exception {
+		new SocialGraphCrawler(friendOperations, checkpointStore).crawl(Graph.FRIENDS, new CollectingSink());
+	}
+
+	@Test
+	public void crawl_retriesAfterRateLimitExceeded() throws Exception {
+		when(friendOperations.getFollowerIdPage(-1))
+			.thenThrow(new RateLimitExceededException("twitter"))
+			.thenReturn(new CursoredIdPage(new long[] {1}, 0, 0));
+		CollectingSink sink = new CollectingSink();
+		assertEquals(1, crawler.crawl(Graph.FOLLOWERS, sink));
+		verify(friendOperations, times(2)).getFollowerIdPage(-1);
+	}
+
+	@Test
+	public void reset() throws Exception {
+		checkpointStore.put("crawl/followers/12345", 111);
+		crawler.reset(Graph.FOLLOWERS, 12345L);
+		assertEquals(-1, checkpointStore.get("crawl/followers/12345", -1));
+	}
+
+	private Twitter twitter(FriendOperations friendOperations, UserOperations userOperations) {
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.friendOperations()).thenReturn(friendOperations);
+		when(twitter.userOperations()).thenReturn(userOperations);
+		return twitter;
+	}
+
+	private static class CollectingSink implements IdSink {
+
+		private final List<Long> ids = new ArrayList<Long>();
+
+		private final int failAfter;
+
+		public CollectingSink() {
+			this(Integer.MAX_VALUE);
+		}
+
+		public CollectingSink(int failAfter) {
+			this.failAfter = failAfter;
+		}
+
+		public void accept(long[] ids, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				if (this.ids.size() == failAfter) {
+					throw new IllegalStateException("Sink failure");
+				}
+				this.ids.add(ids[i]);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.social.twitter.api.CursoredIdPage;
+import org.springframework.social.twitter.api.FriendOperations;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.support.SocialGraphCrawler.Graph;
+
+public class SocialGraphDifferTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private FriendOperations friendOperations = mock(FriendOperations.class);
+
+	private SocialGraphDiffer differ;
+
+	private FileIdSnapshotStore snapshotStore;
+
+	@Before
+	public void setup() {
+		SocialGraphCrawler crawler = new SocialGraphCrawler(friendOperations, new InMemoryCheckpointStore());
+		crawler.setFollowersPacer(new RateLimitPacer(15, 0));
+		snapshotStore = new FileIdSnapshotStore(new File(folder.getRoot(), "snapshots"));
+		differ = new SocialGraphDiffer(crawler, snapshotStore);
+	}
+
+	@Test
+	public void snapshot_sortsAndDedupes() {
+		IdSnapshot snapshot = IdSnapshot.of(5, 3, 9, 3, 1, 5);
+		assertArrayEquals(new long[] {1, 3, 5, 9}, snapshot.toArray());
+		assertTrue(snapshot.contains(9));
+		assertFalse(snapshot.contains(4));
+		assertTrue(IdSnapshot.of().isEmpty());
+	}
+
+	@Test
+	public void diff() {
+		IdDiff diff = IdSnapshot.of(1, 2, 3, 5, 8).diff(IdSnapshot.of(2, 3, 4, 8, 13, 21));
+		assertArrayEquals(new long[] {4, 13, 21}, diff.getAdded());
+		assertArrayEquals(new long[] {1, 5}, diff.getRemoved());
+		assertFalse(diff.isEmpty());
+		assertTrue(IdSnapshot.of(1, 2).diff(IdSnapshot.of(2, 1)).isEmpty());
+	}
+
+	@Test
+	public void fileStore_roundTrip() {
+		assertNull(snapshotStore.load("followers/12345"));
+		long[] ids = new long[10000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = 1000000000000000000L - i * 7919L;
+		}
+		ids[0] = Long.MAX_VALUE;
+		ids[1] = 1;
+		snapshotStore.save("followers/12345", IdSnapshot.of(ids));
+		IdSnapshot loaded = snapshotStore.load("followers/12345");
+		assertArrayEquals(IdSnapshot.of(ids).toArray(), loaded.toArray());
+		snapshotStore.save("followers/12345", IdSnapshot.EMPTY);
+		assertTrue(snapshotStore.load("followers/12345").isEmpty());
+		snapshotStore.remove("followers/12345");
+		assertNull(snapshotStore.load("followers/12345"));
+	}
+
+	@Test
+	public void fileStore_fallsBackToPreviousSnapshot() {
+		snapshotStore.save("followers/12345", IdSnapshot.of(1, 2, 3));
+		File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+		assertEquals(1, snapshotDirectory.list().length);
+		File file = new File(snapshotDirectory, "followers%2F12345.ids");
+		assertTrue(file.renameTo(new File(snapshotDirectory, "followers%2F12345.ids.previous")));
+		assertArrayEquals(new long[] {1, 2, 3}, snapshotStore.load("followers/12345").toArray());
+		snapshotStore.remove("followers/12345");
+		assertNull(snapshotStore.load("followers/12345"));
+		assertEquals(0, snapshotDirectory.list().length);
+	}
+
+	@Test
+	public void update() throws Exception {
+		when(friendOperations.getFollowerIdPage(12345L, -1))
+			.thenReturn(new CursoredIdPage(new long[] {30, 10, 20}, 0, 0))
+			.thenReturn(new CursoredIdPage(new long[] {40, 20}, 0, 111));
+		when(friendOperations.getFollowerIdPage(12345L, 111)).thenReturn(new CursoredIdPage(new long[] {50, 10}, -111, 0));
+		assertNull(differ.update(Graph.FOLLOWERS, 12345L));
+		assertArrayEquals(new long[] {10, 20, 30}, differ.getSnapshot(Graph.FOLLOWERS, 12345L).toArray());
+		IdDiff diff = differ.update(Graph.FOLLOWERS, 12345L);
+		assertArrayEquals(new long[] {40, 50}, diff.getAdded());
+		assertArrayEquals(new long[] {30}, diff.getRemoved());
+		assertArrayEquals(new long[] {10, 20, 40, 50}, differ.getSnapshot(Graph.FOLLOWERS, 12345L).toArray());
+	}
+
+	@Test
+	public void update_resumesInterruptedCrawl() throws Exception {
+		when(friendOperations.getFollowerIdPage(12345L, -1))
+			.thenReturn(new CursoredIdPage(new long[] {30, 10, 20}, 0, 0))
+			.thenReturn(new CursoredIdPage(new long[] {40, 20}, 0, 111));
+		when(friendOperations.getFollowerIdPage(12345L, 111))
+			.thenThrow(new IllegalStateException("process died"))
+			.thenReturn(new CursoredIdPage(new long[] {50, 10}, -111, 0));
+		assertNull(differ.update(Graph.FOLLOWERS, 12345L));
+		try {
+			differ.update(Graph.FOLLOWERS, 12345L);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("process died", e.getMessage());
+		}
+		IdDiff diff = differ.update(Graph.FOLLOWERS, 12345L);
+		assertArrayEquals(new long[] {40, 50}, diff.getAdded());
+		assertArrayEquals(new long[] {30}, diff.getRemoved());
+		verify(friendOperations, times(2)).getFollowerIdPage(12345L, -1);
+		assertNull(snapshotStore.load("followers-12345-partial-0"));
+		assertNull(snapshotStore.load("followers-12345-partial-1"));
+	}
+
+	@Test
+	public void update_savesEachPageOnce() throws Exception {
+		when(friendOperations.getFollowerIdPage(12345L, -1)).thenReturn(new CursoredIdPage(new long[] {30, 10, 20}, 0, 111));
+		when(friendOperations.getFollowerIdPage(12345L, 111))
+			.thenThrow(new IllegalStateException("process died"))
+			.thenReturn(new CursoredIdPage(new long[] {50, 10}, -111, 0));
+		try {
+			differ.update(Graph.FOLLOWERS, 12345L);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("process died", e.getMessage());
+		}
+		// only the page fetched is saved, not everything collected so far
+		assertArrayEquals(new long[] {10, 20, 30}, snapshotStore.load("followers-12345-partial-0").toArray());
+		assertNull(snapshotStore.load("followers-12345-partial-1"));
+		assertNull(differ.update(Graph.FOLLOWERS, 12345L));
+		assertArrayEquals(new long[] {10, 20, 30, 50}, differ.getSnapshot(Graph.FOLLOWERS, 12345L).toArray());
+		assertNull(snapshotStore.load("followers-12345-partial-0"));
+	}
+
+}
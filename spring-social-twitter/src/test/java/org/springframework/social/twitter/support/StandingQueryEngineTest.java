@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.SavedSearch;
+import org.springframework.social.twitter.api.SearchOperations;
+import org.springframework.social.twitter.api.SearchResults;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.social.twitter.api.impl.SearchParameters;
+
+public class StandingQueryEngineTest {
+
+	private SearchOperations searchOperations = mock(SearchOperations.class);
+
+	private CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+
+	private StandingQueryEngine engine = new StandingQueryEngine(searchOperations, checkpointStore);
+
+	private List<String> deliveries = Collections.synchronizedList(new ArrayList<String>());
+
+	@Before
+	public void setup() {
+		engine.setPacer(new RateLimitPacer(1, 0));
+		engine.addListener(new StandingQueryListener() {
+			public void onTweets(String queryName, List<Tweet> tweets) {
+				for (Tweet tweet : tweets) {
+					deliveries.add(queryName + ":" + tweet.getId());
+				}
+			}
+
+			public void onError(String queryName, RuntimeException e) {
+				deliveries.add(queryName + ":error");
+			}
+		});
+	}
+
+	@Test
+	public void refresh() throws Exception {
+		when(searchOperations.search(any(SearchParameters.class))).thenAnswer(new Answer<SearchResults>() {
+			public SearchResults answer(InvocationOnMock invocation) {
+				SearchParameters parameters = (SearchParameters) invocation.getArguments()[0];
+				long sinceId = parameters.getSinceId() != null ? parameters.getSinceId() : 0;
+				if (parameters.getQuery().equals("#spring")) {
+					return results(sinceId, 30, 20, 10);
+				}
+				return results(sinceId, 25, 20, 15);
+			}
+		});
+		engine.register("spring", new SearchParameters("#spring"));
+		engine.register("java", new SearchParameters("#java"));
+		assertEquals(5, engine.refresh());
+		// tweet 20 matches both queries but is only delivered once
+		assertEquals(5, deliveries.size());
+		assertEquals(1, Collections.frequency(deliveries, "spring:20") + Collections.frequency(deliveries, "java:20"));
+		assertEquals(30, checkpointStore.get("search/spring", 0));
+		assertEquals(25, checkpointStore.get("search/java", 0));
+		// nothing new the second time around
+		assertEquals(0, engine.refresh());
+	}
+
+	@Test
+	public void refresh_fillsGap() throws Exception {
+		checkpointStore.put("search/spring", 5);
+		when(searchOperations.search(any(SearchParameters.class))).thenAnswer(new Answer<SearchResults>() {
+			public SearchResults answer(InvocationOnMock invocation) {
+				SearchParameters parameters = (SearchParameters) invocation.getArguments()[0];
+				assertEquals(5L, parameters.getSinceId().longValue());
+				if (parameters.getMaxId() == null) {
+					return results(5, 30, 20);
+				}
+				assertEquals(19L, parameters.getMaxId().longValue());
+				return results(5, 10);
+			}
+		});
+		SearchParameters parameters = new SearchParameters("#spring");
+		parameters.setCount(2);
+		engine.register("spring", parameters);
+		assertEquals(3, engine.refresh());
+		assertEquals(Arrays.asList("spring:30", "spring:20", "spring:10"), deliveries);
+		assertEquals(30, checkpointStore.get("search/spring", 0));
+	}
+
+	@Test
+	public void refresh_redeliversAfterListenerFailure() throws Exception {
+		when(searchOperations.search(any(SearchParameters.class))).thenReturn(results(0, 20, 10));
+		final boolean[] failNext = {true};
+		engine.addListener(new StandingQueryListener() {
+			public void onTweets(String queryName, List<Tweet> tweets) {
+				if (failNext[0]) {
+					failNext[0] = false;
+					throw new IllegalStateException("Listener failed");
+				}
+			}
+
+			public void onError(String queryName, RuntimeException e) {
+			}
+		});
+		engine.register("spring", new SearchParameters("#spring"));
+		assertEquals(0, engine.refresh());
+		assertEquals(0, checkpointStore.get("search/spring", 0));
+		deliveries.clear();
+		// the tweets weren't lost to the deduplication filter
+		assertEquals(2, engine.refresh());
+		assertEquals(Arrays.asList("spring:20", "spring:10"), deliveries);
+		assertEquals(20, checkpointStore.get("search/spring", 0));
+	}
+
+	@Test
+	public void refresh_concurrently() throws Exception {
+		when(searchOperations.search(any(SearchParameters.class))).thenAnswer(new Answer<SearchResults>() {
+			public SearchResults answer(InvocationOnMock invocation) {
+				SearchParameters parameters = (SearchParameters) invocation.getArguments()[0];
+				long id = Long.parseLong(parameters.getQuery());
+				return results(0, id * 10 + 1, id * 10);
+			}
+		});
+		engine.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		for (int i = 1; i <= 50; i++) {
+			engine.register("q" + i, new SearchParameters(String.valueOf(i)));
+		}
+		assertEquals(100, engine.refresh());
+		assertEquals(100, deliveries.size());
+	}
+
+	@Test
+	public void registerSavedSearches() throws Exception {
+		when(searchOperations.getSavedSearches()).thenReturn(Arrays.asList(new SavedSearch(7, "Spring", "#spring", 0, new Date())));
+		when(searchOperations.search(any(SearchParameters.class))).thenReturn(results(0, 11));
+		assertEquals(1, engine.registerSavedSearches());
+		engine.refresh();
+		assertEquals(Arrays.asList("saved/7:11"), deliveries);
+	}
+
+	private SearchResults results(long sinceId, long... ids) {
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		for (long id : ids) {
+			if (id > sinceId) {
+				tweets.add(new Tweet(id, "Tweet " + id, new Date(), "habuma", null, null, 1, "en", "web"));
+			}
+		}
+		return new SearchResults(tweets, null);
+	}
+
+}
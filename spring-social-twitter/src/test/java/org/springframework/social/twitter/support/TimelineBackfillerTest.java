@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.social.NotAuthorizedException;
+import org.springframework.social.RateLimitExceededException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TimelineOperations;
+import org.springframework.social.twitter.api.Tweet;
+
+public class TimelineBackfillerTest {
+
+	private TimelineOperations timelineOperations = mock(TimelineOperations.class);
+
+	private TimelineBackfiller backfiller = new TimelineBackfiller(timelineOperations);
+
+	private List<Tweet> received = Collections.synchronizedList(new ArrayList<Tweet>());
+
+	private TweetSink sink = new TweetSink() {
+		public void accept(long userId, List<Tweet> tweets) {
+			received.addAll(tweets);
+		}
+	};
+
+	@Before
+	public void setup() {
+		backfiller.setPacer(new RateLimitPacer(1, 0));
+		backfiller.setPageSize(3);
+	}
+
+	@Test
+	public void backfill() throws Exception {
+		when(timelineOperations.getUserTimeline(42L, 3, 0, 0)).thenReturn(tweets(42, 10, 9, 8));
+		when(timelineOperations.getUserTimeline(42L, 3, 0, 7))
+			.thenThrow(new RateLimitExceededException("twitter"))
+			.thenReturn(tweets(42, 7, 5));
+		when(timelineOperations.getUserTimeline(42L, 3, 0, 4)).thenReturn(new ArrayList<Tweet>());
+		assertEquals(5, backfiller.backfill(42, 0, null, sink));
+		assertEquals(5, received.size());
+		assertEquals(10, received.get(0).getId());
+		assertEquals(5, received.get(4).getId());
+		verify(timelineOperations, times(2)).getUserTimeline(42L, 3, 0, 7);
+	}
+
+	@Test
+	public void backfill_stopsAtSinceIdAndDate() throws Exception {
+		when(timelineOperations.getUserTimeline(42L, 3, 5, 0)).thenReturn(tweets(42, 10, 9));
+		when(timelineOperations.getUserTimeline(42L, 3, 5, 8)).thenReturn(new ArrayList<Tweet>());
+		assertEquals(2, backfiller.backfill(42, 5, null, sink));
+
+		received.clear();
+		when(timelineOperations.getUserTimeline(42L, 3, 0, 0)).thenReturn(tweets(42, 10, 9, 8));
+		assertEquals(1, backfiller.backfill(42, 0, new Date(9500), sink));
+		assertEquals(1, received.size());
+		verify(timelineOperations, never()).getUserTimeline(42L, 3, 0, 7);
+	}
+
+	@Test
+	public void backfill_manyUsers() throws Exception {
+		backfiller.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		backfiller.setConcurrencyLimit(3);
+		long[] userIds = new long[20];
+		for (int i = 0; i < userIds.length; i++) {
+			long userId = i + 1;
+			userIds[i] = userId;
+			when(timelineOperations.getUserTimeline(userId, 3, 0, 0)).thenReturn(tweets(userId, userId * 100 + 2, userId * 100 + 1));
+			when(timelineOperations.getUserTimeline(userId, 3, 0, userId * 100)).thenReturn(new ArrayList<Tweet>());
+		}
+		when(timelineOperations.getUserTimeline(7L, 3, 0, 0)).thenThrow(new NotAuthorizedException("twitter", "Protected"));
+		BackfillReport report = backfiller.backfill(userIds, 0, null, sink);
+		assertEquals(19, report.getCompletedUserCount());
+		assertEquals(38, report.getTweetCount());
+		assertEquals(38, received.size());
+		assertFalse(report.isComplete());
+		assertArrayEquals(new long[] { 7 }, report.getFailedUserIds());
+		assertTrue(report.getFailure(7) instanceof NotAuthorizedException);
+	}
+
+	private List<Tweet> tweets(long userId, long... ids) {
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		for (long id : ids) {
+			tweets.add(new Tweet(id, "Tweet " + id, new Date(id * 1000), "user" + userId, null, null, userId, "en", "web"));
+		}
+		return tweets;
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.social.InternalServerErrorException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.TimelineOperations;
+import org.springframework.social.twitter.api.Tweet;
+import org.springframework.social.twitter.support.TimelinePoller.Timeline;
+
+public class TimelinePollerTest {
+
+	private TimelineOperations timelineOperations = mock(TimelineOperations.class);
+
+	private CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+
+	private TimelinePoller poller = new TimelinePoller(checkpointStore);
+
+	private List<Tweet> received = new ArrayList<Tweet>();
+
+	private List<RuntimeException> errors = new ArrayList<RuntimeException>();
+
+	@Before
+	public void setup() {
+		poller.addListener(new TimelineListener() {
+			public void onTweets(String account, Timeline timeline, List<Tweet> tweets) {
+				assertEquals("habuma", account);
+				received.addAll(tweets);
+			}
+
+			public void onError(String account, Timeline timeline, RuntimeException e) {
+				errors.add(e);
+			}
+		});
+		poller.watch("habuma", timelineOperations, Timeline.MENTIONS, new RateLimitPacer(1, 0));
+	}
+
+	@Test
+	public void poll() throws Exception {
+		when(timelineOperations.getMentions(200, 0, 0)).thenReturn(tweets(12, 10));
+		when(timelineOperations.getMentions(200, 12, 0)).thenReturn(new ArrayList<Tweet>());
+		assertEquals(0, poller.poll(1000));
+		assertEquals(3, received.size());
+		assertEquals(12, checkpointStore.get("poll/habuma/mentions", 0));
+		// nothing new, so the timeline is left alone for as long as possible
+		assertEquals(15 * 60 * 1000, poller.poll(2000));
+		assertEquals(3, received.size());
+		verify(timelineOperations).getMentions(200, 12, 0);
+	}
+
+	@Test
+	public void poll_fillsGap() throws Exception {
+		checkpointStore.put("poll/habuma/mentions", 100);
+		when(timelineOperations.getMentions(200, 100, 0)).thenReturn(tweets(500, 301));
+		when(timelineOperations.getMentions(200, 100, 300)).thenReturn(tweets(300, 101));
+		when(timelineOperations.getMentions(200, 100, 100)).thenReturn(new ArrayList<Tweet>());
+		poller.poll(1000);
+		assertEquals(400, received.size());
+		assertEquals(500, received.get(0).getId());
+		assertEquals(101, received.get(399).getId());
+		assertEquals(500, checkpointStore.get("poll/habuma/mentions", 0));
+	}
+
+	@Test
+	public void poll_adaptsInterval() throws Exception {
+		poller.setMaxIntervalMillis(600000);
+		poller.setTargetTweetsPerPoll(10);
+		when(timelineOperations.getMentions(200, 0, 0)).thenReturn(tweets(12, 10));
+		when(timelineOperations.getMentions(200, 12, 0)).thenReturn(tweets(32, 13)).thenReturn(new ArrayList<Tweet>());
+		poller.poll(0);
+		assertEquals(0, poller.getIntervalMillis("habuma", Timeline.MENTIONS));
+		// 20 tweets in 10 seconds means polling every 5 seconds to get 10 tweets
+		poller.poll(10000);
+		assertEquals(5000, poller.getIntervalMillis("habuma", Timeline.MENTIONS));
+		assertEquals(5000, poller.poll(10000));
+		// a quiet poll slows polling down
+		poller.poll(15000);
+		assertEquals(10000, poller.getIntervalMillis("habuma", Timeline.MENTIONS));
+	}
+
+	@Test
+	public void poll_error() throws Exception {
+		when(timelineOperations.getMentions(200, 0, 0)).thenThrow(new InternalServerErrorException("twitter", "Broken"));
+		assertEquals(15 * 60 * 1000, poller.poll(0));
+		assertEquals(1, errors.size());
+		assertEquals(0, checkpointStore.get("poll/habuma/mentions", 0));
+	}
+
+	private List<Tweet> tweets(long newestId, long oldestId) {
+		List<Tweet> tweets = new ArrayList<Tweet>();
+		for (long id = newestId; id >= oldestId; id--) {
+			tweets.add(new Tweet(id, "Tweet " + id, new Date(id * 1000), "habuma", null, null, 1, "en", "web"));
+		}
+		return tweets;
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.social.twitter.support;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.social.InternalServerErrorException;
+import org.springframework.social.twitter.api.RateLimitPacer;
+import org.springframework.social.twitter.api.SearchOperations;
+import org.springframework.social.twitter.api.Trend;
+import org.springframework.social.twitter.api.Trends;
+
+public class TrendsCacheTest {
+
+	private SearchOperations searchOperations = mock(SearchOperations.class);
+
+	private TrendsCache cache = new TrendsCache(searchOperations, true);
+
+	@Before
+	public void setup() {
+		cache.setPacer(new RateLimitPacer(1, 0));
+	}
+
+	@Test
+	public void getTrends() {
+		when(searchOperations.getLocalTrends(2442047L, true)).thenReturn(trends("#spring", "Cool Stuff"));
+		Trends trends = cache.getTrends(2442047);
+		assertEquals("#spring", trends.getTrends().get(0).getName());
+		assertEquals("Cool Stuff", trends.getTrends().get(1).getName());
+		assertSame(trends, cache.getTrends(2442047));
+		assertEquals(Arrays.asList(2442047L), cache.getLocations());
+		verify(searchOperations, times(1)).getLocalTrends(2442047L, true);
+	}
+
+	@Test
+	public void getTrends_concurrentFirstReadsShareOneRequest() throws Exception {
+		RateLimitPacer pacer = spy(new RateLimitPacer(1, 0));
+		cache.setPacer(pacer);
+		final Trends[] otherTrends = new Trends[1];
+		final Thread otherReader = new Thread() {
+			public void run() {
+				otherTrends[0] = cache.getTrends(2442047);
+			}
+		};
+		when(searchOperations.getLocalTrends(2442047L, true)).thenAnswer(new Answer<Trends>() {
+			public Trends answer(InvocationOnMock invocation) throws Exception {
+				// hold the first request until the other reader is waiting for it
+				otherReader.start();
+				long deadline = System.currentTimeMillis() + 10000;
+				while (otherReader.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+					Thread.sleep(1);
+				}
+				return trends("#spring");
+			}
+		});
+		Trends trends = cache.getTrends(2442047);
+		otherReader.join(10000);
+		assertSame(trends, otherTrends[0]);
+		verify(searchOperations, times(1)).getLocalTrends(2442047L, true);
+		verify(pacer, times(1)).record();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void getTrends_unmodifiable() {
+		when(searchOperations.getLocalTrends(2442047L, true)).thenReturn(trends("#spring"));
+		cache.getTrends(2442047).getTrends().clear();
+	}
+
+	@Test
+	public void refreshNext() throws Exception {
+		when(searchOperations.getLocalTrends(1L, true)).thenReturn(trends("one"));
+		when(searchOperations.getLocalTrends(2L, true)).thenReturn(trends("two"));
+		cache.addLocation(1);
+		cache.addLocation(2);
+		assertEquals(1, cache.refreshNext());
+		assertEquals(2, cache.refreshNext());
+		// the stalest location goes next
+		assertEquals(1, cache.refreshNext());
+		verify(searchOperations, times(2)).getLocalTrends(1L, true);
+		verify(searchOperations, times(1)).getLocalTrends(2L, true);
+	}
+
+	@Test
+	public void refreshNext_failureKeepsLastTrends() throws Exception {
+		when(searchOperations.getLocalTrends(1L, true))
+			.thenReturn(trends("one"))
+			.thenThrow(new InternalServerErrorException("twitter", "Broken"));
+		cache.addLocation(1);
+		cache.refreshNext();
+		try {
+			cache.refreshNext();
+			fail();
+		} catch (InternalServerErrorException e) {
+			assertEquals("one", cache.getTrends(1).getTrends().get(0).getName());
+		}
+	}
+
+	@Test
+	public void removeLocation() throws Exception {
+		when(searchOperations.getLocalTrends(1L, true)).thenReturn(trends("one"));
+		cache.addLocation(1);
+		cache.refreshNext();
+		cache.removeLocation(1);
+		assertEquals(-1, cache.getFetchTime(1));
+		assertEquals(-1, cache.refreshNext());
+	}
+
+	private Trends trends(String... names) {
+		Trend[] trends = new Trend[names.length];
+		for (int i = 0; i < names.length; i++) {
+			trends[i] = new Trend(names[i], names[i]);
+		}
+		return new Trends(new Date(), Arrays.asList(trends));
+	}
+
+}